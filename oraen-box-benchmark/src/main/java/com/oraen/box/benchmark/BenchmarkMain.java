@@ -0,0 +1,31 @@
+package com.oraen.box.benchmark;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 不带参数时运行所有基准并开启 GC 分析，结果写到 baseline/jmh-result.json，用来更新提交的基线
+ * 带参数时按 JMH 命令行执行，例如 java -jar target/benchmarks.jar LoadLogicBenchmark -prof gc
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        if(args.length > 0) {
+            Main.main(args);
+            return;
+        }
+
+        Options options = new OptionsBuilder()
+                .include(BenchmarkMain.class.getPackage().getName() + ".*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("baseline/jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.oraen.box.benchmark;
+
+import com.oraen.box.loader.DataLoader;
+import com.oraen.box.loader.ExecResult;
+import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.LoaderHook;
+import com.oraen.box.loader.core.AssembleDataLoader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基准测试用的图和钩子函数，节点只做很少的计算，测出来的主要是引擎本身的开销
+ */
+public class Graphs {
+
+    //在调用线程上直接执行，只剩下引擎的调度开销
+    public static final Executor DIRECT = Runnable::run;
+
+    /**
+     * depth 层、每层 width 个节点，每个节点依赖上一层的所有节点，最后由 sink 汇总最后一层
+     * 节点名称带上 prefix，避免不同基准之间共用按名称注册的统计
+     */
+    public static List<DataLoader<?>> layered(String prefix, int width, int depth) {
+        List<DataLoader<?>> loaders = new ArrayList<>(width * depth + 1);
+        List<String> previous = Collections.emptyList();
+        for (int layer = 0; layer < depth; layer++) {
+            List<String> current = new ArrayList<>(width);
+            for (int i = 0; i < width; i++) {
+                String name = prefix + "-" + layer + "-" + i;
+                int value = i;
+                loaders.add(new AssembleDataLoader<>(name, previous, context -> value));
+                current.add(name);
+            }
+            previous = current;
+        }
+
+        List<String> last = previous;
+        loaders.add(new AssembleDataLoader<>(sinkName(prefix), last, context -> sum(context, last)));
+        return loaders;
+    }
+
+    public static String sinkName(String prefix) {
+        return prefix + "-sink";
+    }
+
+    public static int sum(LoadContext context, List<String> names) {
+        int sum = 0;
+        for (String name : names) {
+            Integer value = context.getDataLoadData(name);
+            sum += value == null ? 0 : value;
+        }
+        return sum;
+    }
+
+    public static List<LoaderHook> countingHooks(int count) {
+        List<LoaderHook> hooks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            hooks.add(new CountingHook());
+        }
+        return hooks;
+    }
+
+    //记录节点执行次数，避免空的钩子函数被优化掉
+    public static class CountingHook implements LoaderHook {
+
+        private final LongAdder execCount = new LongAdder();
+
+        @Override
+        public void beforeExec(String name, LoadContext loadContext) {
+            execCount.increment();
+        }
+
+        @Override
+        public void afterExec(String name, LoadContext loadContext, ExecResult loaderExecResult) {
+            execCount.increment();
+        }
+
+        public long getExecCount() {
+            return execCount.sum();
+        }
+    }
+
+}
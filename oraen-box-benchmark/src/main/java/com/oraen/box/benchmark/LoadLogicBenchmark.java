@@ -0,0 +1,80 @@
+package com.oraen.box.benchmark;
+
+import com.oraen.box.loader.LoaderHook;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不同宽度、深度和钩子函数数量的图上 LoadLogic.exec 的耗时
+ * direct 在调用线程上执行所有节点，只有引擎本身的开销，pool 额外包括线程池的排队和线程切换
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class LoadLogicBenchmark {
+
+    @Param({"1", "8", "32"})
+    private int width;
+
+    @Param({"1", "4", "16"})
+    private int depth;
+
+    @Param({"0", "4"})
+    private int hookCount;
+
+    @Param({"direct", "pool"})
+    private String executorType;
+
+    private ExecutionPlan plan;
+
+    private List<LoaderHook> hooks;
+
+    private ExecutorService pool;
+
+    private Executor executor;
+
+    private String sinkName;
+
+    @Setup
+    public void setup() {
+        String prefix = "exec-" + width + "x" + depth;
+        plan = ExecutionPlan.compile(Graphs.layered(prefix, width, depth));
+        sinkName = Graphs.sinkName(prefix);
+        hooks = Graphs.countingHooks(hookCount);
+        if("pool".equals(executorType)) {
+            pool = Executors.newFixedThreadPool(4);
+            executor = pool;
+        } else {
+            executor = Graphs.DIRECT;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if(pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public Object exec() {
+        CommonLoadContext loadContext = new CommonLoadContext(plan, null, (Object) null);
+        Throwable throwable = LoadLogic.exec(loadContext, executor, 1000L, hooks);
+        if(throwable != null) {
+            throw new IllegalStateException(throwable);
+        }
+        return loadContext.getDataLoadData(sinkName);
+    }
+
+}
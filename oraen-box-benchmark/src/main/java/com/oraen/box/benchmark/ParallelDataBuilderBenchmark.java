@@ -0,0 +1,91 @@
+package com.oraen.box.benchmark;
+
+import com.oraen.box.loader.extend.AssembleProcessNode;
+import com.oraen.box.loader.extend.ParallelDataBuilder;
+import com.oraen.box.loader.extend.ProcessNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * width 个互不依赖的节点并行加载，再由一个节点合并写入 resp
+ * 对比 ParallelDataBuilder 和手写 CompletableFuture 编排在同一个线程池上的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ParallelDataBuilderBenchmark {
+
+    @Param({"4", "16"})
+    private int width;
+
+    private ExecutorService pool;
+
+    private ParallelDataBuilder<Integer, Map<String, Object>> builder;
+
+    private List<String> names;
+
+    @Setup
+    public void setup() {
+        pool = Executors.newFixedThreadPool(4);
+        names = new ArrayList<>(width);
+        List<ProcessNode<? super Integer, ? super Map<String, Object>>> nodes = new ArrayList<>(width + 1);
+        for (int i = 0; i < width; i++) {
+            String name = "builder-" + width + "-" + i;
+            int value = i;
+            names.add(name);
+            nodes.add(new AssembleProcessNode<Integer, Map<String, Object>>(name, null, (param, resp, context) -> param + value));
+        }
+        nodes.add(new AssembleProcessNode<Integer, Map<String, Object>>("builder-" + width + "-merge", names, (param, resp, context) -> {
+            resp.put("sum", Graphs.sum(context, names));
+            return null;
+        }));
+        builder = ParallelDataBuilder.<Integer, Map<String, Object>>builder()
+                .addNodes(nodes)
+                .setExecutors(Collections.singletonList(pool))
+                .setExecTimeout(1000L)
+                .ensure();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Object parallelDataBuilder() {
+        return builder.buildResp(1, new HashMap<>());
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object completableFuture() throws Exception {
+        int param = 1;
+        CompletableFuture<Integer>[] futures = new CompletableFuture[width];
+        for (int i = 0; i < width; i++) {
+            int value = i;
+            futures[i] = CompletableFuture.supplyAsync(() -> param + value, pool);
+        }
+        Map<String, Object> resp = new HashMap<>();
+        return CompletableFuture.allOf(futures).thenApply(v -> {
+            int sum = 0;
+            for (CompletableFuture<Integer> future : futures) {
+                sum += future.join();
+            }
+            resp.put("sum", sum);
+            return resp;
+        }).get(1000L, TimeUnit.MILLISECONDS);
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.oraen.box.benchmark;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.loader.DataLoader;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import com.oraen.box.loader.resilience.RetryBudgetPolicy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次成功、失败后重试成功、失败后兜底三种路径的开销，节点在调用线程上执行
+ * 异常不带堆栈，测出来的是引擎处理错误的开销，不是创建异常的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class RetryFallbackBenchmark {
+
+    private static final RuntimeException FAILURE = new RuntimeException("benchmark failure", null, false, false) {
+    };
+
+    private static final String FAILED = "failed";
+
+    @Param({"success", "retry", "fallback"})
+    private String path;
+
+    private ExecutionPlan plan;
+
+    @Setup
+    public void setup() {
+        String target = "retry-" + path;
+        AssembleDataLoader.AssembleDataLoaderBuilder<Integer> builder = AssembleDataLoader.<Integer>builder()
+                .name(target)
+                .fallback((context, e) -> -1)
+                //每次成功都存入一次重试的令牌，重试路径不会被预算限制
+                .retryBudgetPolicy(RetryBudgetPolicy.builder().ratio(1.0).build());
+        if("success".equals(path)) {
+            builder.dataFunction(context -> 1);
+        } else if("retry".equals(path)) {
+            builder.maxRetry(2).dataFunction(context -> {
+                if(context.getContextVariable(FAILED) == null) {
+                    context.setContextVariable(FAILED, Boolean.TRUE);
+                    throw FAILURE;
+                }
+                return 1;
+            });
+        } else {
+            builder.dataFunction(context -> {
+                throw FAILURE;
+            });
+        }
+
+        DataLoader<Integer> sink = new AssembleDataLoader<>(target + "-sink", ListUtil.of(target), context -> context.getDataLoadData(target));
+        plan = ExecutionPlan.compile(ListUtil.of(builder.build(), sink));
+    }
+
+    @Benchmark
+    public Object exec() {
+        CommonLoadContext loadContext = new CommonLoadContext(plan, null, (Object) null);
+        LoadLogic.exec(loadContext, Graphs.DIRECT, 1000L, null);
+        return loadContext.getDataLoadResult(plan.getName(0)).getResult();
+    }
+
+}
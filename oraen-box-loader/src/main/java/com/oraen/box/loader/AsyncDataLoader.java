@@ -0,0 +1,31 @@
+package com.oraen.box.loader;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 异步 DataLoader，适合等待 RPC 等 I/O 的节点，等待期间不占用线程池线程
+ * 引擎会在返回的 CompletionStage 完成后再通知依赖它的节点，重试、兜底和钩子函数与同步节点一致
+ */
+public interface AsyncDataLoader<T> extends DataLoader<T> {
+
+    /**
+     * Load data asynchronously based on the provided context.
+     *
+     * @param context the context containing necessary information for loading data
+     * @return a stage completed with the loaded data
+     */
+    CompletionStage<T> getDataAsync(LoadContext context);
+
+    //同步调用时阻塞等待结果
+    @Override
+    default T getData(LoadContext context) {
+        try {
+            return getDataAsync(context).toCompletableFuture().join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException)cause : new RuntimeException(cause);
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.oraen.box.loader;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 单次加载的取消标记，超时、致命错误或者调用方主动取消时触发
+ * 触发后引擎不再调度新的节点，并尝试中断正在执行的节点，DataLoader 也可以主动检查后提前结束
+ */
+public class CancellationToken {
+
+    /**
+     * 永远不会被取消的标记，给不支持取消的 LoadContext 实现使用，调用 cancel 不生效
+     */
+    public static final CancellationToken NEVER = new CancellationToken() {
+        @Override
+        public boolean cancel(Throwable cause) {
+            return false;
+        }
+
+        @Override
+        public void onCancel(Consumer<Throwable> listener) {
+        }
+    };
+
+    private final AtomicReference<Throwable> reason = new AtomicReference<>(null);
+
+    private final ConcurrentLinkedQueue<Consumer<Throwable>> listeners = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 取消，只有第一次调用生效
+     *
+     * @param cause 取消原因
+     * @return 是否是这次调用触发的取消
+     */
+    public boolean cancel(Throwable cause) {
+        if(! reason.compareAndSet(null, cause)) {
+            return false;
+        }
+
+        Consumer<Throwable> listener;
+        while ((listener = listeners.poll()) != null) {
+            listener.accept(cause);
+        }
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return reason.get() != null;
+    }
+
+    public Throwable getReason() {
+        return reason.get();
+    }
+
+    /**
+     * 注册取消回调，已经取消时立即执行
+     */
+    public void onCancel(Consumer<Throwable> listener) {
+        listeners.add(listener);
+        Throwable cause = reason.get();
+        //注册和取消并发时，保证回调只执行一次
+        if(cause != null && listeners.remove(listener)) {
+            listener.accept(cause);
+        }
+    }
+
+}
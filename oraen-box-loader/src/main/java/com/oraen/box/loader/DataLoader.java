@@ -1,5 +1,13 @@
 package com.oraen.box.loader;
 
+import com.oraen.box.loader.cache.CachePolicy;
+import com.oraen.box.loader.resilience.AdaptiveLimitPolicy;
+import com.oraen.box.loader.resilience.BulkheadPolicy;
+import com.oraen.box.loader.resilience.CircuitBreakerPolicy;
+import com.oraen.box.loader.resilience.HedgePolicy;
+import com.oraen.box.loader.resilience.RetryBackoff;
+import com.oraen.box.loader.resilience.RetryBudgetPolicy;
+
 import java.util.List;
 
 public interface DataLoader<T> {
@@ -55,5 +63,148 @@ public interface DataLoader<T> {
         return RetryCommand.KEEP;
     }
 
+    /**
+     * Backoff between retries, the worker thread is released while waiting,
+     * no retry is made if the delay exceeds the remaining budget of the load.
+     *
+     * @return the backoff, or null to retry immediately
+     */
+    default RetryBackoff retryBackoff() {
+        return null;
+    }
+
+    /**
+     * Retry budget shared by all data loaders with the same name, KEEP and RETRY are downgraded
+     * to GIVE_UP when the budget is exhausted, RETRY_FORCE is not limited.
+     * Disabled by default, {@link RetryBudgetPolicy#DEFAULT} is a reasonable policy to opt in with.
+     *
+     * @return the retry budget policy, or null for unlimited retries
+     */
+    default RetryBudgetPolicy retryBudgetPolicy() {
+        return null;
+    }
+
+    /**
+     * Circuit breaker shared by all data loaders with the same name, while it is open
+     * {@link #fallback} is called directly with a CircuitBreakerOpenException.
+     *
+     * @return the circuit breaker policy, or null to disable the circuit breaker
+     */
+    default CircuitBreakerPolicy circuitBreakerPolicy() {
+        return null;
+    }
+
+    /**
+     * Bulkhead limiting how many nodes of this group run at the same time, nodes of the group
+     * run on the bulkhead's own executor when it has one.
+     *
+     * @return the bulkhead policy, or null to run without concurrency limit on the request executor
+     */
+    default BulkheadPolicy bulkheadPolicy() {
+        return null;
+    }
+
+    /**
+     * Adaptive concurrency limit shared by all data loaders with the same name, the limit moves
+     * with the observed latency, calls over the limit wait briefly or go to {@link #fallback}.
+     *
+     * @return the adaptive limit policy, or null to disable the adaptive limit
+     */
+    default AdaptiveLimitPolicy adaptiveLimitPolicy() {
+        return null;
+    }
+
+    /**
+     * Whether the node runs directly on the thread that completed its last dependency instead of
+     * going through the executor, nodes with a bulkhead or an adaptive limit always use the executor.
+     *
+     * @return the inline mode, AUTO inlines nodes whose recent execution took only a few microseconds
+     */
+    default InlineMode inlineMode() {
+        return InlineMode.AUTO;
+    }
+
+    /**
+     * Whether the data loader only runs on demand. A lazy data loader is not started with the load, it starts when
+     * {@link LoadContext#getDataLoadData(String)} or {@link LoadContext#prefetch(String)} is called on it, or
+     * eagerly when a data loader that is not lazy depends on it.
+     *
+     * @return true if the data loader is lazy
+     */
+    default boolean lazy() {
+        return false;
+    }
+
+    /**
+     * Groups of redundant dependencies, the data loader starts as soon as enough dependencies of each group
+     * succeed instead of waiting for all of them. Every source of a group must also be one of {@link #dependencies()}.
+     *
+     * @return the dependency groups, or null if every dependency is required
+     */
+    default List<DependencyQuorum> dependencyQuorums() {
+        return null;
+    }
+
+    /**
+     * Cross-request cache policy of this data loader, results are shared by data loader name.
+     *
+     * @return the cache policy, or null if results should not be cached
+     */
+    default CachePolicy cachePolicy() {
+        return null;
+    }
+
+    /**
+     * Cache key of the current request, only used when {@link #cachePolicy()} is not null.
+     *
+     * @param context the context containing necessary information for loading data
+     * @return the cache key, or null to skip the cache for this request
+     */
+    default Object cacheKey(LoadContext context) {
+        return null;
+    }
+
+    /**
+     * Coalescing key of the current request, concurrent requests with the same data loader name and key
+     * share one execution, including its fallback result or error.
+     *
+     * @param context the context containing necessary information for loading data
+     * @return the coalescing key, or null to execute independently
+     */
+    default Object coalesceKey(LoadContext context) {
+        return null;
+    }
+
+    /**
+     * Timeout of a single execution of this data loader, the fallback is triggered with a
+     * {@link java.util.concurrent.TimeoutException} when exceeded, retries are included.
+     *
+     * @return the timeout in milliseconds, or a non-positive value for no timeout
+     */
+    default long timeoutMillis() {
+        return -1L;
+    }
+
+    /**
+     * Whether the executing thread may be interrupted when the load is cancelled,
+     * return false if the data loader uses clients that do not tolerate interrupts, such as NIO channels.
+     *
+     * @return true if the executing thread can be interrupted
+     */
+    default boolean interruptible() {
+        return true;
+    }
+
+    /**
+     * Hedging policy of this data loader, a second call is started in parallel when the first call
+     * is slower than the hedge delay, the first successful result wins and the others are cancelled.
+     * Only suitable for idempotent data loaders.
+     *
+     * @return the hedging policy, or null to disable hedging
+     */
+    default HedgePolicy hedgePolicy() {
+        return null;
+    }
+
 
 }
@@ -0,0 +1,39 @@
+package com.oraen.box.loader;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 一组冗余的依赖，其中 required 个执行成功就可以开始执行依赖它们的节点，不必等最慢的那个
+ * 组内的节点也必须出现在 DataLoader 的 dependencies 中
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DependencyQuorum {
+
+    private List<String> sources;
+
+    //需要成功的依赖数，失败的依赖多到凑不够时也会开始执行，由节点自己检查依赖的状态
+    @Builder.Default
+    private int required = 1;
+
+    //凑够后取消组内还没完成的依赖，只取消没有被其他节点依赖的节点，其余的照常执行但结果不再等待
+    @Builder.Default
+    private boolean cancelRemaining = true;
+
+    public static DependencyQuorum anyOf(String... sources) {
+        return quorum(1, sources);
+    }
+
+    public static DependencyQuorum quorum(int required, String... sources) {
+        return DependencyQuorum.builder().sources(Arrays.asList(sources)).required(required).build();
+    }
+
+}
@@ -16,6 +16,8 @@ public class ExecResult {
     public static final int STATUS_WAITING = 10;
     public static final int STATUS_EXECUTING = 20;
     public static final int STATUS_SUCCESS = 30;
+    //命中跨请求缓存，没有真正执行，也算成功
+    public static final int STATUS_CACHED = 35;
     public static final int STATUS_FALLBACK = 40;
     public static final int STATUS_ERROR = 50;
     public static final int STATUS_ABANDON = 60;
@@ -37,6 +39,15 @@ public class ExecResult {
     private int status;
     //重试次数,没重试为1
     private int retry = 1;
+    //最后一次尝试发起的对冲调用次数，没有对冲为0
+    private int hedge;
+    //提交到线程池、开始执行、执行完成时的 System.nanoTime()，没有经过对应阶段为0
+    private long submitNanos;
+    private long startNanos;
+    private long endNanos;
+    //开始、结束兜底时的 System.nanoTime()，只在记录时间线的请求中记录
+    private long fallbackStartNanos;
+    private long fallbackEndNanos;
 
     public<T> T getResult() {
         return (T) result;
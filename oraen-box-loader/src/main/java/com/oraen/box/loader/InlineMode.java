@@ -0,0 +1,13 @@
+package com.oraen.box.loader;
+
+/**
+ * 节点是否直接在完成最后一个依赖的线程上执行，省去一次线程池排队和线程切换
+ */
+public enum InlineMode {
+    //按最近的执行耗时判断，足够快的节点直接执行
+    AUTO,
+    //总是直接执行，只适合不会阻塞的节点
+    ALWAYS,
+    //总是提交到线程池
+    NEVER
+}
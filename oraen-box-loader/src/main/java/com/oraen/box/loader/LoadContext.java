@@ -13,6 +13,16 @@ public interface LoadContext extends DataLoaderContainer{
 
     <T> T getDataLoadData(String name);
 
+    /**
+     * Start a lazy data loader without waiting for it, so that it runs in parallel with the caller.
+     * Its result can be read later with {@link #getDataLoadData(String)}. Does nothing for other data loaders.
+     *
+     * @param name the name of the data loader
+     */
+    default void prefetch(String name) {
+
+    }
+
     ExecResult getDataLoadResult(String name);
 
     <T extends Throwable> T getDataLoadError(String name, Class<T> clazz);
@@ -63,6 +73,26 @@ public interface LoadContext extends DataLoaderContainer{
 
     Executor getExecutor();
 
+    /**
+     * Remaining time before the whole load times out, can be forwarded to downstream clients.
+     * The default implementation has no deadline and returns {@link Long#MAX_VALUE}.
+     *
+     * @return the remaining budget in milliseconds, never negative
+     */
+    default long remainingBudget() {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Cancellation token of the current load, data loaders can check it to stop early.
+     * The default implementation returns a token that is never cancelled.
+     *
+     * @return the cancellation token
+     */
+    default CancellationToken getCancellationToken() {
+        return CancellationToken.NEVER;
+    }
+
     void submitTask(Runnable runnable, boolean blockMain);
 
     enum LoadStatus{
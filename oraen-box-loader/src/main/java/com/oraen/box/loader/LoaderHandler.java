@@ -1,10 +1,25 @@
 package com.oraen.box.loader;
 
+import java.util.concurrent.CompletableFuture;
+
 @SuppressWarnings("all")
 public interface LoaderHandler {
 
     <T, U> ExecLog execDataLoadWithLog(DataLoader<T> dataLoader, U initParam, Object initResp);
 
+    /**
+     * 非阻塞执行，返回的 future 由最后完成的节点或者超时完成，调用线程不会被占用
+     * 默认实现仍然阻塞调用线程，需要实现类覆盖
+     *
+     * @param dataLoader 根 DataLoader
+     * @param initParam 初始化参数
+     * @param initResp 初始化返回值
+     * @return 执行日志
+     */
+    default <T, U> CompletableFuture<ExecLog> execDataLoadAsync(DataLoader<T> dataLoader, U initParam, Object initResp){
+        return CompletableFuture.completedFuture(execDataLoadWithLog(dataLoader, initParam, initResp));
+    }
+
     default <T, U> ExecResult execDataLoad(DataLoader<T> dataLoader, U initParam, Object initResp){
         ExecLog execLog = execDataLoadWithLog(dataLoader, initParam, initResp);
         if(execLog == null) {
@@ -1,5 +1,7 @@
 package com.oraen.box.loader;
 
+import com.oraen.box.loader.resilience.CircuitState;
+
 public interface LoaderHook {
     default void beforeExec(String name, LoadContext loadContext){
 
@@ -40,6 +42,11 @@ public interface LoaderHook {
 
     }
 
+    //熔断器状态变化，由触发变化的那次请求回调
+    default void onCircuitStateChange(String name, CircuitState from, CircuitState to, LoadContext loadContext){
+
+    }
+
     enum RunPoi{
         NORMAL,
         FALLBACK
@@ -0,0 +1,176 @@
+package com.oraen.box.loader.batch;
+
+import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.DependencyQuorum;
+import com.oraen.box.loader.InlineMode;
+import com.oraen.box.loader.RetryCommand;
+import com.oraen.box.loader.resilience.AdaptiveLimitPolicy;
+import com.oraen.box.loader.resilience.BulkheadPolicy;
+import com.oraen.box.loader.resilience.CircuitBreakerPolicy;
+import com.oraen.box.loader.resilience.RetryBackoff;
+import com.oraen.box.loader.resilience.RetryBudgetPolicy;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Builder
+public class AssembleBatchDataLoader<K, V> implements BatchDataLoader<K, V> {
+
+    private String name;
+
+    private List<String> dependencies;
+
+    private Function<LoadContext, K> batchKey;
+
+    private Function<Set<K>, Map<K, V>> multiGet;
+
+    private BiFunction<LoadContext, Throwable, V> fallback;
+
+    private Predicate<LoadContext> needLoad;
+
+    private Integer maxRetry;
+
+    private BiFunction<LoadContext, Throwable, RetryCommand> needRetry;
+
+    private RetryBackoff retryBackoff;
+
+    //为 null 时不限制重试，需要限制时可以使用 RetryBudgetPolicy.DEFAULT
+    private RetryBudgetPolicy retryBudgetPolicy;
+
+    private CircuitBreakerPolicy circuitBreakerPolicy;
+
+    private BulkheadPolicy bulkheadPolicy;
+
+    private AdaptiveLimitPolicy adaptiveLimitPolicy;
+
+    private InlineMode inlineMode;
+
+    private Boolean lazy;
+
+    private List<DependencyQuorum> dependencyQuorums;
+
+    private Long batchWindowMillis;
+
+    private Integer maxBatchSize;
+
+    private Long timeoutMillis;
+
+    public AssembleBatchDataLoader(String name, List<String> dependencies, Function<LoadContext, K> batchKey, Function<Set<K>, Map<K, V>> multiGet){
+        this.name = name;
+        this.dependencies = dependencies;
+        this.batchKey = batchKey;
+        this.multiGet = multiGet;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public List<String> dependencies() {
+        return dependencies;
+    }
+
+    @Override
+    public K batchKey(LoadContext context) {
+        return batchKey.apply(context);
+    }
+
+    @Override
+    public Map<K, V> multiGet(Set<K> keys) {
+        return multiGet.apply(keys);
+    }
+
+    @Override
+    public V fallback(LoadContext context, Throwable e){
+        if(fallback == null){
+            throw e instanceof RuntimeException ? (RuntimeException)e : new RuntimeException(e);
+        }
+
+        return fallback.apply(context, e);
+    }
+
+    @Override
+    public boolean needLoad(LoadContext context) {
+        return needLoad == null || needLoad.test(context);
+    }
+
+    @Override
+    public int maxRetry() {
+        return maxRetry == null || maxRetry < 1 ? 1 : maxRetry;
+    }
+
+    @Override
+    public RetryBackoff retryBackoff() {
+        return retryBackoff;
+    }
+
+    @Override
+    public RetryBudgetPolicy retryBudgetPolicy() {
+        return retryBudgetPolicy;
+    }
+
+    @Override
+    public CircuitBreakerPolicy circuitBreakerPolicy() {
+        return circuitBreakerPolicy;
+    }
+
+    @Override
+    public BulkheadPolicy bulkheadPolicy() {
+        return bulkheadPolicy;
+    }
+
+    @Override
+    public AdaptiveLimitPolicy adaptiveLimitPolicy() {
+        return adaptiveLimitPolicy;
+    }
+
+    @Override
+    public InlineMode inlineMode() {
+        return inlineMode == null ? InlineMode.AUTO : inlineMode;
+    }
+
+    @Override
+    public boolean lazy() {
+        return lazy != null && lazy;
+    }
+
+    @Override
+    public List<DependencyQuorum> dependencyQuorums() {
+        return dependencyQuorums;
+    }
+
+    @Override
+    public RetryCommand needRetry(LoadContext context, Throwable e) {
+        return needRetry == null ? RetryCommand.KEEP : needRetry.apply(context, e);
+    }
+
+    @Override
+    public long timeoutMillis() {
+        return timeoutMillis == null ? -1L : timeoutMillis;
+    }
+
+    @Override
+    public long batchWindowMillis() {
+        return batchWindowMillis == null ? BatchDataLoader.super.batchWindowMillis() : batchWindowMillis;
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return maxBatchSize == null ? BatchDataLoader.super.maxBatchSize() : maxBatchSize;
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.oraen.box.loader.batch;
+
+import com.oraen.box.loader.AsyncDataLoader;
+import com.oraen.box.loader.LoadContext;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 批量 DataLoader，收集并发请求中同名节点的 key，在时间窗口到期或者攒够数量后合并成一次批量调用，
+ * 每个请求的节点只拿到自己 key 对应的结果，拿到后立即通知依赖它的节点
+ * 同名的批量 DataLoader 共用批次配置和统计，以第一次使用时为准，不同实例的 key 分开批量调用
+ */
+public interface BatchDataLoader<K, V> extends AsyncDataLoader<V> {
+
+    /**
+     * Key of the current request.
+     *
+     * @param context the context containing necessary information for loading data
+     * @return the key to be loaded in a batch
+     */
+    K batchKey(LoadContext context);
+
+    /**
+     * Load all keys of a batch at once, keys missing in the result are completed with null.
+     *
+     * @param keys distinct keys collected from concurrent requests
+     * @return the loaded values
+     */
+    Map<K, V> multiGet(Set<K> keys);
+
+    //第一个 key 到达后最多等待多久发起批量调用
+    default long batchWindowMillis() {
+        return 5L;
+    }
+
+    //攒够这么多个不同的 key 立即发起批量调用
+    default int maxBatchSize() {
+        return 100;
+    }
+
+    @Override
+    default CompletionStage<V> getDataAsync(LoadContext context) {
+        return KeyBatchers.getBatcher(this).load(this, batchKey(context), context.getExecutor());
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.oraen.box.loader.batch;
+
+import com.oraen.box.loader.core.LoadTimer;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 同名批量 DataLoader 的批次管理，同一个批次中相同的 key 只加载一次
+ * 同名的不同实例各自攒批次，批量调用总是交给把 key 加入批次的实例，不会拿到其他实例的数据
+ */
+public class KeyBatcher<K, V> {
+
+    private final long batchWindowMillis;
+
+    private final int maxBatchSize;
+
+    //正在收集 key 的批次，每个 DataLoader 实例一个，发出后移除，不会一直持有 DataLoader，由 this 保护
+    private final Map<BatchDataLoader<K, V>, Batch<K, V>> current = new IdentityHashMap<>();
+
+    private final LongAdder batchCount = new LongAdder();
+
+    private final LongAdder keyCount = new LongAdder();
+
+    KeyBatcher(BatchDataLoader<K, V> dataLoader) {
+        this.batchWindowMillis = Math.max(dataLoader.batchWindowMillis(), 0L);
+        this.maxBatchSize = Math.max(dataLoader.maxBatchSize(), 1);
+    }
+
+    /**
+     * 把 key 加入这个 DataLoader 当前的批次
+     *
+     * @param dataLoader 执行批量调用的 DataLoader
+     * @param executor 执行批量调用的线程池，使用批次中第一个请求的线程池
+     */
+    public CompletableFuture<V> load(BatchDataLoader<K, V> dataLoader, K key, Executor executor) {
+        Batch<K, V> full = null;
+        CompletableFuture<V> future;
+        synchronized (this) {
+            Batch<K, V> batch = current.get(dataLoader);
+            if(batch == null) {
+                batch = new Batch<>(dataLoader, executor);
+                current.put(dataLoader, batch);
+                Batch<K, V> scheduled = batch;
+                batch.timer = LoadTimer.schedule(() -> dispatchOnTimeout(scheduled), batchWindowMillis, TimeUnit.MILLISECONDS);
+            }
+
+            future = batch.futures.computeIfAbsent(key, k -> new CompletableFuture<>());
+            if(batch.futures.size() >= maxBatchSize) {
+                current.remove(dataLoader);
+                full = batch;
+            }
+        }
+
+        if(full != null) {
+            full.timer.cancel(false);
+            submit(full);
+        }
+        //每个请求拿到独立的 future，取消时不影响同批次的其他请求
+        return future.thenApply(Function.identity());
+    }
+
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    public long getKeyCount() {
+        return keyCount.sum();
+    }
+
+    private void dispatchOnTimeout(Batch<K, V> batch) {
+        synchronized (this) {
+            //已经因为攒够数量发出去了
+            if(current.get(batch.dataLoader) != batch) {
+                return;
+            }
+            current.remove(batch.dataLoader);
+        }
+        submit(batch);
+    }
+
+    //定时器线程只负责触发，批量调用交给线程池
+    private void submit(Batch<K, V> batch) {
+        try {
+            batch.executor.execute(() -> dispatch(batch));
+        } catch (Throwable t) {
+            batch.futures.values().forEach(future -> future.completeExceptionally(t));
+        }
+    }
+
+    private void dispatch(Batch<K, V> batch) {
+        batchCount.increment();
+        keyCount.add(batch.futures.size());
+        Map<K, V> values;
+        try {
+            values = batch.dataLoader.multiGet(batch.futures.keySet());
+        } catch (Throwable t) {
+            batch.futures.values().forEach(future -> future.completeExceptionally(t));
+            return;
+        }
+
+        batch.futures.forEach((key, future) -> future.complete(values == null ? null : values.get(key)));
+    }
+
+    private static class Batch<K, V> {
+
+        private final BatchDataLoader<K, V> dataLoader;
+
+        private final Executor executor;
+
+        private final Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+
+        private ScheduledFuture<?> timer;
+
+        Batch(BatchDataLoader<K, V> dataLoader, Executor executor) {
+            this.dataLoader = dataLoader;
+            this.executor = executor;
+        }
+    }
+
+}
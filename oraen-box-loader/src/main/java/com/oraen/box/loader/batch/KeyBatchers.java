@@ -0,0 +1,33 @@
+package com.oraen.box.loader.batch;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 DataLoader 名称管理批次，同名 DataLoader 共用批次配置和统计，只保存配置，不持有 DataLoader
+ */
+public class KeyBatchers {
+
+    private static final ConcurrentHashMap<String, KeyBatcher<?, ?>> BATCHERS = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> KeyBatcher<K, V> getBatcher(BatchDataLoader<K, V> dataLoader) {
+        KeyBatcher<?, ?> batcher = BATCHERS.get(dataLoader.name());
+        if(batcher == null) {
+            batcher = BATCHERS.computeIfAbsent(dataLoader.name(), key -> new KeyBatcher<>(dataLoader));
+        }
+        return (KeyBatcher<K, V>) batcher;
+    }
+
+    /**
+     * @return 对应的批次管理，还没有使用过时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> KeyBatcher<K, V> getBatcher(String name) {
+        return (KeyBatcher<K, V>) BATCHERS.get(name);
+    }
+
+    public static void remove(String name) {
+        BATCHERS.remove(name);
+    }
+
+}
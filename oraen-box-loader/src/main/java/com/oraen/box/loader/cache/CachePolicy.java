@@ -0,0 +1,24 @@
+package com.oraen.box.loader.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CachePolicy {
+
+    //最大缓存条数，超出后按 W-TinyLFU 淘汰
+    @Builder.Default
+    private long maximumSize = 10000L;
+
+    //写入多久后过期，小于等于0代表不过期
+    private long expireAfterWriteMillis;
+
+    //写入多久后在返回旧值的同时后台刷新，小于等于0代表不刷新，需要小于过期时间才有意义
+    private long refreshAfterWriteMillis;
+
+}
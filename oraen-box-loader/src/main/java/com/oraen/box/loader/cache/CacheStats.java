@@ -0,0 +1,36 @@
+package com.oraen.box.loader.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheStats {
+
+    private long hitCount;
+
+    private long missCount;
+
+    //命中但已经需要刷新的次数，包含在 hitCount 中
+    private long staleHitCount;
+
+    private long refreshCount;
+
+    private long refreshFailureCount;
+
+    private long evictionCount;
+
+    private long expirationCount;
+
+    private long size;
+
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+}
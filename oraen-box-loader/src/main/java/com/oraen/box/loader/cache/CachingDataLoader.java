@@ -0,0 +1,177 @@
+package com.oraen.box.loader.cache;
+
+import com.oraen.box.loader.AsyncDataLoader;
+import com.oraen.box.loader.DataLoader;
+import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.DependencyQuorum;
+import com.oraen.box.loader.InlineMode;
+import com.oraen.box.loader.RetryCommand;
+import com.oraen.box.loader.resilience.AdaptiveLimitPolicy;
+import com.oraen.box.loader.resilience.BulkheadPolicy;
+import com.oraen.box.loader.resilience.CircuitBreakerPolicy;
+import com.oraen.box.loader.resilience.HedgePolicy;
+import com.oraen.box.loader.resilience.RetryBackoff;
+import com.oraen.box.loader.resilience.RetryBudgetPolicy;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * 给已有的 DataLoader 加上跨请求缓存，其他行为全部委托给原 DataLoader
+ */
+public class CachingDataLoader<T> implements DataLoader<T> {
+
+    protected final DataLoader<T> delegate;
+
+    private final CachePolicy cachePolicy;
+
+    private final Function<LoadContext, ?> cacheKey;
+
+    protected CachingDataLoader(DataLoader<T> delegate, CachePolicy cachePolicy, Function<LoadContext, ?> cacheKey) {
+        this.delegate = delegate;
+        this.cachePolicy = cachePolicy;
+        this.cacheKey = cacheKey;
+    }
+
+    /**
+     * 包装 DataLoader，异步 DataLoader 包装后仍然是异步的
+     *
+     * @param delegate 原 DataLoader
+     * @param cachePolicy 缓存策略
+     * @param cacheKey 根据上下文计算缓存 key，返回 null 时本次不走缓存
+     */
+    public static <T> CachingDataLoader<T> of(DataLoader<T> delegate, CachePolicy cachePolicy, Function<LoadContext, ?> cacheKey) {
+        if(delegate instanceof AsyncDataLoader) {
+            return new AsyncCachingDataLoader<>((AsyncDataLoader<T>) delegate, cachePolicy, cacheKey);
+        }
+        return new CachingDataLoader<>(delegate, cachePolicy, cacheKey);
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+    @Override
+    public List<String> dependencies() {
+        return delegate.dependencies();
+    }
+
+    @Override
+    public T getData(LoadContext context) {
+        return delegate.getData(context);
+    }
+
+    @Override
+    public T fallback(LoadContext context, Throwable e) {
+        return delegate.fallback(context, e);
+    }
+
+    @Override
+    public boolean needLoad(LoadContext context) {
+        return delegate.needLoad(context);
+    }
+
+    @Override
+    public int maxRetry() {
+        return delegate.maxRetry();
+    }
+
+    @Override
+    public RetryBackoff retryBackoff() {
+        return delegate.retryBackoff();
+    }
+
+    @Override
+    public RetryBudgetPolicy retryBudgetPolicy() {
+        return delegate.retryBudgetPolicy();
+    }
+
+    @Override
+    public CircuitBreakerPolicy circuitBreakerPolicy() {
+        return delegate.circuitBreakerPolicy();
+    }
+
+    @Override
+    public BulkheadPolicy bulkheadPolicy() {
+        return delegate.bulkheadPolicy();
+    }
+
+    @Override
+    public AdaptiveLimitPolicy adaptiveLimitPolicy() {
+        return delegate.adaptiveLimitPolicy();
+    }
+
+    @Override
+    public InlineMode inlineMode() {
+        return delegate.inlineMode();
+    }
+
+    @Override
+    public boolean lazy() {
+        return delegate.lazy();
+    }
+
+    @Override
+    public List<DependencyQuorum> dependencyQuorums() {
+        return delegate.dependencyQuorums();
+    }
+
+    @Override
+    public RetryCommand needRetry(LoadContext context, Throwable e) {
+        return delegate.needRetry(context, e);
+    }
+
+    @Override
+    public HedgePolicy hedgePolicy() {
+        return delegate.hedgePolicy();
+    }
+
+    @Override
+    public boolean interruptible() {
+        return delegate.interruptible();
+    }
+
+    @Override
+    public long timeoutMillis() {
+        return delegate.timeoutMillis();
+    }
+
+    @Override
+    public Object coalesceKey(LoadContext context) {
+        return delegate.coalesceKey(context);
+    }
+
+    @Override
+    public CachePolicy cachePolicy() {
+        return cachePolicy;
+    }
+
+    @Override
+    public Object cacheKey(LoadContext context) {
+        return cacheKey.apply(context);
+    }
+
+    public DataLoader<T> getDelegate() {
+        return delegate;
+    }
+
+    static class AsyncCachingDataLoader<T> extends CachingDataLoader<T> implements AsyncDataLoader<T> {
+
+        AsyncCachingDataLoader(AsyncDataLoader<T> delegate, CachePolicy cachePolicy, Function<LoadContext, ?> cacheKey) {
+            super(delegate, cachePolicy, cacheKey);
+        }
+
+        @Override
+        public CompletionStage<T> getDataAsync(LoadContext context) {
+            return ((AsyncDataLoader<T>) delegate).getDataAsync(context);
+        }
+
+        @Override
+        public T getData(LoadContext context) {
+            return delegate.getData(context);
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.oraen.box.loader.cache;
+
+/**
+ * Count-Min Sketch，每个计数器4位，最大15
+ * 计数总量达到采样上限后所有计数器减半，让历史热度逐渐衰减
+ * 非线程安全，由 LoaderCache 在淘汰锁内调用
+ */
+class FrequencySketch {
+
+    private static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private final long[] table;
+
+    private final int tableMask;
+
+    private final int sampleSize;
+
+    private int size;
+
+    FrequencySketch(long maximumSize) {
+        int maximum = (int) Math.min(Math.max(maximumSize, 16L), 1L << 30);
+        int capacity = Integer.highestOneBit(maximum - 1) << 1;
+        this.table = new long[capacity];
+        this.tableMask = capacity - 1;
+        this.sampleSize = 10 * capacity;
+    }
+
+    int frequency(Object e) {
+        int hash = spread(e.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(Object e) {
+        int hash = spread(e.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+
+        if(added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = 0xfL << offset;
+        if((table[i] & mask) != mask) {
+            table[i] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    //所有计数器减半
+    private void reset() {
+        int count = 0;
+        for (int i = 0; i < table.length; i++) {
+            count += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (count >>> 2);
+    }
+
+    private int indexOf(int item, int i) {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += (hash >>> 32);
+        return ((int) hash) & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+}
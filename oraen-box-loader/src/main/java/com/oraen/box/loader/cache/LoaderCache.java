@@ -0,0 +1,464 @@
+package com.oraen.box.loader.cache;
+
+import com.oraen.box.loader.CancellationToken;
+import com.oraen.box.loader.core.LoadTimer;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 有界并发缓存，淘汰策略为 W-TinyLFU
+ * 新数据先进入 1% 容量的 LRU 窗口区，被挤出窗口后进入主区的试用段，
+ * 主区满时由 Count-Min Sketch 估算的访问频率决定保留新数据还是淘汰试用段中最久未访问的数据，
+ * 试用段中再次被访问的数据晋升到保护段
+ * 读操作不加锁，访问记录在拿不到淘汰锁时直接丢弃，只影响淘汰的精度
+ */
+public class LoaderCache<K, V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int REMOVED = 3;
+
+    private final ConcurrentHashMap<K, Entry<K, V>> data = new ConcurrentHashMap<>();
+
+    private final long maximumSize;
+
+    private final long expireAfterWriteNanos;
+
+    private final long refreshAfterWriteNanos;
+
+    private final long refreshTimeoutMillis;
+
+    private final long windowMaximum;
+
+    private final long protectedMaximum;
+
+    //以下字段由 evictionLock 保护
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final FrequencySketch sketch;
+
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+
+    private final AccessOrderDeque<K, V> protect = new AccessOrderDeque<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder staleHitCount = new LongAdder();
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder refreshFailureCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    public LoaderCache(CachePolicy cachePolicy) {
+        this.maximumSize = Math.max(cachePolicy.getMaximumSize(), 1L);
+        this.expireAfterWriteNanos = cachePolicy.getExpireAfterWriteMillis() > 0
+                ? TimeUnit.MILLISECONDS.toNanos(cachePolicy.getExpireAfterWriteMillis()) : Long.MAX_VALUE;
+        this.refreshAfterWriteNanos = cachePolicy.getRefreshAfterWriteMillis() > 0
+                ? TimeUnit.MILLISECONDS.toNanos(cachePolicy.getRefreshAfterWriteMillis()) : Long.MAX_VALUE;
+        this.refreshTimeoutMillis = Math.max(cachePolicy.getRefreshAfterWriteMillis(), 0L);
+        this.windowMaximum = Math.max(1L, maximumSize / 100);
+        this.protectedMaximum = (long) ((maximumSize - windowMaximum) * 0.8);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * 查询缓存，过期的数据视为不存在
+     *
+     * @return 缓存项，不存在时返回 null
+     */
+    public Entry<K, V> getEntry(K key) {
+        Entry<K, V> entry = data.get(key);
+        long now = System.nanoTime();
+        if(entry == null) {
+            missCount.increment();
+            afterRead(key, null);
+            return null;
+        }
+
+        if(now - entry.writeTime >= expireAfterWriteNanos) {
+            missCount.increment();
+            expirationCount.increment();
+            remove(entry);
+            return null;
+        }
+
+        hitCount.increment();
+        if(entry.needsRefresh(now)) {
+            staleHitCount.increment();
+        }
+        afterRead(key, entry);
+        return entry;
+    }
+
+    public V getIfPresent(K key) {
+        Entry<K, V> entry = getEntry(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * 写入缓存，null 值不缓存
+     */
+    public void put(K key, V value) {
+        if(value == null) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        Entry<K, V> existing = data.get(key);
+        if(existing != null) {
+            existing.update(value, now);
+            afterRead(key, existing);
+            return;
+        }
+
+        Entry<K, V> entry = new Entry<>(key, value, now, this);
+        existing = data.putIfAbsent(key, entry);
+        if(existing != null) {
+            existing.update(value, now);
+            afterRead(key, existing);
+            return;
+        }
+
+        evictionLock.lock();
+        try {
+            //加锁前可能已经被删除
+            if(data.get(key) != entry) {
+                return;
+            }
+            sketch.increment(key);
+            entry.region = WINDOW;
+            window.addLast(entry);
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        Entry<K, V> entry = data.get(key);
+        if(entry != null) {
+            remove(entry);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Entry<K, V> entry : data.values()) {
+            remove(entry);
+        }
+    }
+
+    /**
+     * 后台刷新缓存项，同一个缓存项同时只会有一个刷新任务，超时时间为刷新间隔
+     *
+     * @param executor 执行刷新的线程池
+     * @param loader 重新加载数据
+     */
+    public void refresh(K key, Entry<K, V> entry, Executor executor, Supplier<? extends CompletionStage<? extends V>> loader) {
+        refresh(key, entry, executor, 0L, token -> loader.get());
+    }
+
+    /**
+     * 后台刷新缓存项，同一个缓存项同时只会有一个刷新任务
+     * 超时后放弃这次刷新并取消传给 loader 的标记，晚到的结果不再写入，避免卡住的刷新一直占着刷新状态
+     *
+     * @param executor 执行刷新的线程池
+     * @param timeoutMillis 刷新的超时时间，小于等于0时使用刷新间隔
+     * @param loader 重新加载数据，参数是这次刷新的取消标记
+     */
+    public void refresh(K key, Entry<K, V> entry, Executor executor, long timeoutMillis,
+                        Function<CancellationToken, ? extends CompletionStage<? extends V>> loader) {
+        if(! entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        refreshCount.increment();
+        CancellationToken token = new CancellationToken();
+        AtomicBoolean finished = new AtomicBoolean(false);
+        long timeout = timeoutMillis > 0 ? timeoutMillis : refreshTimeoutMillis;
+        ScheduledFuture<?> timer = timeout <= 0 ? null : LoadTimer.schedule(() -> {
+            if(finishRefresh(entry, finished, null)) {
+                refreshFailureCount.increment();
+                token.cancel(new TimeoutException("Cache refresh timed out after " + timeout + " milliseconds"));
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+        try {
+            executor.execute(() -> {
+                try {
+                    CompletionStage<? extends V> stage = loader.apply(token);
+                    if(stage == null) {
+                        throw new IllegalStateException("Cache refresh returned a null stage");
+                    }
+                    stage.whenComplete((value, t) -> {
+                        //已经超时，丢弃晚到的结果
+                        if(! finishRefresh(entry, finished, timer)) {
+                            return;
+                        }
+                        if(t == null && value != null) {
+                            put(key, value);
+                        } else {
+                            refreshFailureCount.increment();
+                        }
+                    });
+                } catch (Throwable t) {
+                    if(finishRefresh(entry, finished, timer)) {
+                        refreshFailureCount.increment();
+                    }
+                }
+            });
+        } catch (Throwable t) {
+            if(finishRefresh(entry, finished, timer)) {
+                refreshFailureCount.increment();
+            }
+        }
+    }
+
+    //刷新完成和超时先到先得，返回 true 代表由这次调用结束刷新
+    private static boolean finishRefresh(Entry<?, ?> entry, AtomicBoolean finished, ScheduledFuture<?> timer) {
+        if(! finished.compareAndSet(false, true)) {
+            return false;
+        }
+
+        if(timer != null) {
+            timer.cancel(false);
+        }
+        entry.refreshing.set(false);
+        return true;
+    }
+
+    public long size() {
+        return data.size();
+    }
+
+    public CacheStats stats() {
+        return CacheStats.builder()
+                .hitCount(hitCount.sum())
+                .missCount(missCount.sum())
+                .staleHitCount(staleHitCount.sum())
+                .refreshCount(refreshCount.sum())
+                .refreshFailureCount(refreshFailureCount.sum())
+                .evictionCount(evictionCount.sum())
+                .expirationCount(expirationCount.sum())
+                .size(data.size())
+                .build();
+    }
+
+    //记录访问频率和访问顺序，拿不到锁就放弃
+    private void afterRead(K key, Entry<K, V> entry) {
+        if(! evictionLock.tryLock()) {
+            return;
+        }
+
+        try {
+            sketch.increment(key);
+            if(entry != null) {
+                onAccess(entry);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void remove(Entry<K, V> entry) {
+        if(! data.remove(entry.key, entry)) {
+            return;
+        }
+
+        evictionLock.lock();
+        try {
+            unlink(entry);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void onAccess(Entry<K, V> entry) {
+        switch (entry.region) {
+            case WINDOW:
+                window.moveToLast(entry);
+                break;
+            case PROBATION:
+                //试用段中再次被访问，晋升到保护段
+                probation.remove(entry);
+                entry.region = PROTECTED;
+                protect.addLast(entry);
+                while (protect.size > protectedMaximum) {
+                    Entry<K, V> demoted = protect.pollFirst();
+                    demoted.region = PROBATION;
+                    probation.addLast(demoted);
+                }
+                break;
+            case PROTECTED:
+                protect.moveToLast(entry);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void unlink(Entry<K, V> entry) {
+        switch (entry.region) {
+            case WINDOW:
+                window.remove(entry);
+                break;
+            case PROBATION:
+                probation.remove(entry);
+                break;
+            case PROTECTED:
+                protect.remove(entry);
+                break;
+            default:
+                break;
+        }
+        entry.region = REMOVED;
+    }
+
+    private void evict() {
+        //窗口区溢出的数据进入试用段，成为候选
+        while (window.size > windowMaximum) {
+            Entry<K, V> candidate = window.pollFirst();
+            candidate.region = PROBATION;
+            probation.addLast(candidate);
+        }
+
+        while (window.size + probation.size + protect.size > maximumSize) {
+            Entry<K, V> victim = probation.peekFirst();
+            if(victim == null) {
+                //试用段为空时从保护段降级
+                Entry<K, V> demoted = protect.pollFirst();
+                if(demoted == null) {
+                    demoted = window.pollFirst();
+                }
+                demoted.region = PROBATION;
+                probation.addLast(demoted);
+                continue;
+            }
+
+            Entry<K, V> candidate = probation.peekLast();
+            if(candidate == victim || sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evictEntry(victim);
+            } else {
+                evictEntry(candidate);
+            }
+        }
+    }
+
+    private void evictEntry(Entry<K, V> entry) {
+        unlink(entry);
+        if(data.remove(entry.key, entry)) {
+            evictionCount.increment();
+        }
+    }
+
+    public static final class Entry<K, V> {
+
+        private final K key;
+
+        private final LoaderCache<K, V> cache;
+
+        private volatile V value;
+
+        private volatile long writeTime;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+        //以下字段由 evictionLock 保护
+        private int region = REMOVED;
+
+        private Entry<K, V> prev;
+
+        private Entry<K, V> next;
+
+        private Entry(K key, V value, long writeTime, LoaderCache<K, V> cache) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = writeTime;
+            this.cache = cache;
+        }
+
+        private void update(V value, long writeTime) {
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        /**
+         * 是否已经超过刷新时间，超过后仍然可以返回，但需要后台刷新
+         */
+        public boolean needsRefresh() {
+            return needsRefresh(System.nanoTime());
+        }
+
+        private boolean needsRefresh(long now) {
+            return now - writeTime >= cache.refreshAfterWriteNanos;
+        }
+
+    }
+
+    //带哨兵的双向链表，由 evictionLock 保护
+    private static final class AccessOrderDeque<K, V> {
+
+        private final Entry<K, V> head = new Entry<>(null, null, 0L, null);
+
+        private long size;
+
+        AccessOrderDeque() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        void addLast(Entry<K, V> entry) {
+            entry.prev = head.prev;
+            entry.next = head;
+            head.prev.next = entry;
+            head.prev = entry;
+            size++;
+        }
+
+        void remove(Entry<K, V> entry) {
+            entry.prev.next = entry.next;
+            entry.next.prev = entry.prev;
+            entry.prev = null;
+            entry.next = null;
+            size--;
+        }
+
+        void moveToLast(Entry<K, V> entry) {
+            remove(entry);
+            addLast(entry);
+        }
+
+        Entry<K, V> peekFirst() {
+            return head.next == head ? null : head.next;
+        }
+
+        Entry<K, V> peekLast() {
+            return head.prev == head ? null : head.prev;
+        }
+
+        Entry<K, V> pollFirst() {
+            Entry<K, V> first = peekFirst();
+            if(first != null) {
+                remove(first);
+            }
+            return first;
+        }
+
+    }
+
+}
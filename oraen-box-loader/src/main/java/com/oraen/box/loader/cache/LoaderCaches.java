@@ -0,0 +1,48 @@
+package com.oraen.box.loader.cache;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 DataLoader 名称管理跨请求缓存，同名 DataLoader 共用一个缓存，缓存在第一次使用时按当时的策略创建
+ */
+public class LoaderCaches {
+
+    private static final ConcurrentHashMap<String, LoaderCache<Object, Object>> CACHES = new ConcurrentHashMap<>();
+
+    public static LoaderCache<Object, Object> getCache(String name, CachePolicy cachePolicy) {
+        LoaderCache<Object, Object> cache = CACHES.get(name);
+        if(cache != null) {
+            return cache;
+        }
+
+        return CACHES.computeIfAbsent(name, key -> new LoaderCache<>(cachePolicy));
+    }
+
+    /**
+     * @return 对应的缓存，还没有使用过时返回 null
+     */
+    public static LoaderCache<Object, Object> getCache(String name) {
+        return CACHES.get(name);
+    }
+
+    public static Map<String, CacheStats> stats() {
+        Map<String, CacheStats> re = new TreeMap<>();
+        CACHES.forEach((name, cache) -> re.put(name, cache.stats()));
+        return re;
+    }
+
+    public static void invalidate(String name) {
+        LoaderCache<Object, Object> cache = CACHES.get(name);
+        if(cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    //移除缓存，下次使用时按新的策略重新创建
+    public static void remove(String name) {
+        CACHES.remove(name);
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.oraen.box.loader.cache;
+
+import com.oraen.box.loader.ExecResult;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 跨请求合并同一个 DataLoader 的相同调用，key 为 DataLoader 名称加上用户指定的合并 key
+ * 第一个请求真正执行，执行期间到达的相同请求直接等待它的执行结果，包括兜底结果和异常
+ * 执行完成后立即移除，之后的请求会重新执行，需要复用结果时配合缓存使用
+ */
+public class SingleFlight {
+
+    private static final ConcurrentHashMap<FlightKey, CompletableFuture<ExecResult>> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    private static final LongAdder LEADER_COUNT = new LongAdder();
+
+    private static final LongAdder FOLLOWER_COUNT = new LongAdder();
+
+    /**
+     * 尝试成为这次调用的执行者
+     *
+     * @param flight 执行者需要完成的 future
+     * @return 正在执行的相同调用，返回 null 时代表当前请求成为执行者
+     */
+    public static CompletableFuture<ExecResult> join(String name, Object key, CompletableFuture<ExecResult> flight) {
+        CompletableFuture<ExecResult> existing = IN_FLIGHT.putIfAbsent(new FlightKey(name, key), flight);
+        if(existing == null) {
+            LEADER_COUNT.increment();
+        } else {
+            FOLLOWER_COUNT.increment();
+        }
+        return existing;
+    }
+
+    /**
+     * 执行者完成调用，先移除再通知等待者，结果是执行结果的副本
+     */
+    public static void complete(String name, Object key, CompletableFuture<ExecResult> flight, ExecResult execResult) {
+        IN_FLIGHT.remove(new FlightKey(name, key), flight);
+        flight.complete(ExecResult.builder()
+                .result(execResult.getResult())
+                .exception(execResult.getException())
+                .isSuccess(execResult.isSuccess())
+                .useFallback(execResult.isUseFallback())
+                .status(execResult.getStatus())
+                .retry(execResult.getRetry())
+                .hedge(execResult.getHedge())
+                .build());
+    }
+
+    /**
+     * 执行者被取消，等待者需要自己重新执行
+     */
+    public static void abandon(String name, Object key, CompletableFuture<ExecResult> flight, Throwable reason) {
+        IN_FLIGHT.remove(new FlightKey(name, key), flight);
+        flight.completeExceptionally(reason);
+    }
+
+    public static int inFlightCount() {
+        return IN_FLIGHT.size();
+    }
+
+    public static long leaderCount() {
+        return LEADER_COUNT.sum();
+    }
+
+    //等待其他请求结果的次数
+    public static long followerCount() {
+        return FOLLOWER_COUNT.sum();
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static final class FlightKey {
+
+        private final String name;
+
+        private final Object key;
+    }
+
+}
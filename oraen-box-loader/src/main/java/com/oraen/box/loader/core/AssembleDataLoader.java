@@ -1,12 +1,22 @@
 package com.oraen.box.loader.core;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import com.oraen.box.loader.DataLoader;
 import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.DependencyQuorum;
+import com.oraen.box.loader.InlineMode;
 import com.oraen.box.loader.RetryCommand;
+import com.oraen.box.loader.cache.CachePolicy;
+import com.oraen.box.loader.resilience.HedgePolicy;
+import com.oraen.box.loader.resilience.AdaptiveLimitPolicy;
+import com.oraen.box.loader.resilience.BulkheadPolicy;
+import com.oraen.box.loader.resilience.CircuitBreakerPolicy;
+import com.oraen.box.loader.resilience.RetryBackoff;
+import com.oraen.box.loader.resilience.RetryBudgetPolicy;
 
 import java.util.List;
 import java.util.function.BiFunction;
@@ -15,7 +25,7 @@ import java.util.function.Predicate;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 @Builder
 public class AssembleDataLoader<T> implements DataLoader<T> {
 
@@ -33,12 +43,52 @@ public class AssembleDataLoader<T> implements DataLoader<T> {
 
     private BiFunction<LoadContext, Throwable, RetryCommand> needRetry;
 
+    private RetryBackoff retryBackoff;
+
+    //为 null 时不限制重试，需要限制时可以使用 RetryBudgetPolicy.DEFAULT
+    private RetryBudgetPolicy retryBudgetPolicy;
+
+    private CircuitBreakerPolicy circuitBreakerPolicy;
+
+    private BulkheadPolicy bulkheadPolicy;
+
+    private AdaptiveLimitPolicy adaptiveLimitPolicy;
+
+    private InlineMode inlineMode;
+
+    private Boolean lazy;
+
+    private List<DependencyQuorum> dependencyQuorums;
+
+    private CachePolicy cachePolicy;
+
+    private Function<LoadContext, Object> cacheKey;
+
+    private Function<LoadContext, Object> coalesceKey;
+
+    private Long timeoutMillis;
+
+    private Boolean interruptible;
+
+    private HedgePolicy hedgePolicy;
+
     public AssembleDataLoader(String name, List<String> dependencies, Function<LoadContext, T> dataFunction){
         this.name = name;
         this.dependencies = dependencies;
         this.dataFunction = dataFunction;
     }
 
+    //最初版本的全参构造器，之后新增的配置只能通过 builder 设置
+    public AssembleDataLoader(String name, List<String> dependencies, Function<LoadContext, T> dataFunction,
+                              BiFunction<LoadContext, Throwable, T> fallback, Predicate<LoadContext> needLoad,
+                              Integer maxRetry, BiFunction<LoadContext, Throwable, RetryCommand> needRetry){
+        this(name, dependencies, dataFunction);
+        this.fallback = fallback;
+        this.needLoad = needLoad;
+        this.maxRetry = maxRetry;
+        this.needRetry = needRetry;
+    }
+
     @Override
     public String name() {
         return name;
@@ -73,10 +123,80 @@ public class AssembleDataLoader<T> implements DataLoader<T> {
         return maxRetry == null || maxRetry < 1 ? 1 : maxRetry;
     }
 
+    @Override
+    public RetryBackoff retryBackoff() {
+        return retryBackoff;
+    }
+
+    @Override
+    public RetryBudgetPolicy retryBudgetPolicy() {
+        return retryBudgetPolicy;
+    }
+
+    @Override
+    public CircuitBreakerPolicy circuitBreakerPolicy() {
+        return circuitBreakerPolicy;
+    }
+
+    @Override
+    public BulkheadPolicy bulkheadPolicy() {
+        return bulkheadPolicy;
+    }
+
+    @Override
+    public AdaptiveLimitPolicy adaptiveLimitPolicy() {
+        return adaptiveLimitPolicy;
+    }
+
+    @Override
+    public InlineMode inlineMode() {
+        return inlineMode == null ? InlineMode.AUTO : inlineMode;
+    }
+
+    @Override
+    public boolean lazy() {
+        return lazy != null && lazy;
+    }
+
+    @Override
+    public List<DependencyQuorum> dependencyQuorums() {
+        return dependencyQuorums;
+    }
+
     @Override
     public RetryCommand needRetry(LoadContext context, Throwable e) {
         return needRetry == null ? RetryCommand.KEEP : needRetry.apply(context, e);
     }
 
+    @Override
+    public CachePolicy cachePolicy() {
+        return cachePolicy;
+    }
+
+    @Override
+    public Object cacheKey(LoadContext context) {
+        return cacheKey == null ? null : cacheKey.apply(context);
+    }
+
+    @Override
+    public Object coalesceKey(LoadContext context) {
+        return coalesceKey == null ? null : coalesceKey.apply(context);
+    }
+
+    @Override
+    public long timeoutMillis() {
+        return timeoutMillis == null ? -1L : timeoutMillis;
+    }
+
+    @Override
+    public boolean interruptible() {
+        return interruptible == null || interruptible;
+    }
+
+    @Override
+    public HedgePolicy hedgePolicy() {
+        return hedgePolicy;
+    }
+
 
 }
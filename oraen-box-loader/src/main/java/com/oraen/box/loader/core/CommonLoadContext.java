@@ -1,9 +1,13 @@
 package com.oraen.box.loader.core;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import com.oraen.box.common.util.JSONUtil;
+import com.oraen.box.loader.CancellationToken;
 import com.oraen.box.loader.DataLoader;
 import com.oraen.box.loader.ExecResult;
 import com.oraen.box.loader.LoadContext;
@@ -17,20 +21,21 @@ import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.ANY;
 @JsonAutoDetect(fieldVisibility = ANY)
 public class CommonLoadContext implements LoadContext {
 
+    @JsonIgnore
+    @Getter
+    private final ExecutionPlan executionPlan;
+
     private final Map<String, DataLoader<?>> dataLoaderMap;
 
-    //初始化时统一写，避免后续并发写操作
-    private final Map<String, ExecResult> dataLoadResultMap = new HashMap<>();
+    //按执行计划的下标存放，初始化时统一写，避免后续并发写操作
+    @JsonIgnore
+    private final ExecResult[] dataLoadResults;
 
     private final ConcurrentMap<String, Object> contextVariableMap = new ConcurrentHashMap<>();
 
     @Getter
     private final Object resp;
 
-    @Setter
-    Map<String, DataLoadTask> dataLoaderTaskMap;
-
-
     @Setter
     @Getter
     Executor executor;
@@ -60,26 +65,59 @@ public class CommonLoadContext implements LoadContext {
     @Getter
     Throwable throwable;
 
-    public CommonLoadContext(Object initParam, Object initResp, Collection<? extends DataLoader<?>> dataLoaders) {
+    //整个加载过程的截止时间
+    @JsonIgnore
+    @Setter
+    @Getter
+    private long deadline = Long.MAX_VALUE;
+
+    //开始、结束加载时的 System.nanoTime()，用于高精度计时
+    @JsonIgnore
+    @Setter
+    @Getter
+    private long startNanos;
+
+    @JsonIgnore
+    @Setter
+    @Getter
+    private long endNanos;
+
+    //是否记录完整的执行时间线，由采样决定，需要在开始加载前设置
+    @JsonIgnore
+    @Setter
+    @Getter
+    private boolean timelineEnabled;
+
+    @JsonIgnore
+    @Getter
+    private final CancellationToken cancellationToken = new CancellationToken();
+
+    //本次加载的执行状态，读取惰性节点时用来启动并等待它
+    @JsonIgnore
+    @Setter(AccessLevel.PACKAGE)
+    private LoadExecution execution;
+
+    public CommonLoadContext(ExecutionPlan executionPlan, Object initParam, Object initResp) {
+        this.executionPlan = executionPlan;
         this.initParam = initParam;
         this.resp = initResp;
-        dataLoaderMap = new HashMap<>();
-        for(DataLoader<?> dataLoader : dataLoaders) {
-            if (dataLoader != null) {
-                dataLoaderMap.put(dataLoader.name(), dataLoader);
-            }
-        }
+        this.dataLoaderMap = executionPlan.getDataLoaderMap();
+        this.dataLoadResults = new ExecResult[executionPlan.size()];
+    }
+
+    public CommonLoadContext(Object initParam, Object initResp, Collection<? extends DataLoader<?>> dataLoaders) {
+        this(ExecutionPlan.compile(dataLoaders), initParam, initResp);
     }
 
     public CommonLoadContext(Object initParam, Object initResp, DataLoader<?>... dataLoaders) {
         this(initParam, initResp, Arrays.asList(dataLoaders));
     }
 
-    public DataLoadTask getDataLoadTask(String name) {
-        return dataLoaderTaskMap.get(name);
+    @Override
+    public long remainingBudget() {
+        return Math.max(deadline - System.currentTimeMillis(), 0L);
     }
 
-
     @Override
     public <T> DataLoader<T> getDataLoader(String name, Class<T> clazz) {
         return (DataLoader<T>)dataLoaderMap.get(name);
@@ -98,14 +136,26 @@ public class CommonLoadContext implements LoadContext {
 
     @Override
     public <T> T getDataLoadData(String name, Class<T> clazz) {
-        return (T)getDataLoadResult(name).getResult();
+        return getDataLoadData(name);
     }
 
     @Override
     public <T> T getDataLoadData(String name) {
+        int index = executionPlan.indexOf(name);
+        if(index >= 0 && execution != null && executionPlan.isDormant(index)) {
+            LoadLogic.awaitLazy(execution, index);
+        }
         return (T)getDataLoadResult(name).getResult();
     }
 
+    @Override
+    public void prefetch(String name) {
+        int index = executionPlan.indexOf(name);
+        if(index >= 0 && execution != null && executionPlan.isDormant(index)) {
+            LoadLogic.activate(execution, index, false);
+        }
+    }
+
     @Override
     public <T extends Throwable> T getDataLoadError(String name, Class<T> clazz) {
         return (T)getDataLoadResult(name).getException();
@@ -114,7 +164,7 @@ public class CommonLoadContext implements LoadContext {
     @Override
     public LoadStatus getDataLoadStatus(String name) {
         int status = getDataLoadResult(name).getStatus();
-        if(status == ExecResult.STATUS_SUCCESS) {
+        if(status == ExecResult.STATUS_SUCCESS || status == ExecResult.STATUS_CACHED) {
             return LoadStatus.SUCCESS;
         } else if(status == ExecResult.STATUS_FALLBACK) {
             return LoadStatus.FALLBACK;
@@ -128,7 +178,8 @@ public class CommonLoadContext implements LoadContext {
     }
 
     public ExecResult getDataLoadResult(String name) {
-        ExecResult re = dataLoadResultMap.get(name);
+        int index = executionPlan.indexOf(name);
+        ExecResult re = index < 0 ? null : dataLoadResults[index];
         if(re == null){
             throw new RuntimeException("DataLoader result not found for name: " + name);
         }
@@ -136,8 +187,30 @@ public class CommonLoadContext implements LoadContext {
 
     }
 
+    public ExecResult getDataLoadResult(int index) {
+        return dataLoadResults[index];
+    }
+
     public void saveDataLoadResult(String name, ExecResult result) {
-        dataLoadResultMap.put(name, result);
+        int index = executionPlan.indexOf(name);
+        if(index < 0){
+            throw new IllegalArgumentException("DataLoader not found in execution plan: " + name);
+        }
+        dataLoadResults[index] = result;
+    }
+
+    public void saveDataLoadResult(int index, ExecResult result) {
+        dataLoadResults[index] = result;
+    }
+
+    //序列化时仍按名称输出
+    @JsonProperty("dataLoadResultMap")
+    public Map<String, ExecResult> getDataLoadResultMap() {
+        Map<String, ExecResult> re = new LinkedHashMap<>(dataLoadResults.length * 2);
+        for (int i = 0; i < dataLoadResults.length; i++) {
+            re.put(executionPlan.getName(i), dataLoadResults[i]);
+        }
+        return re;
     }
 
     @Override
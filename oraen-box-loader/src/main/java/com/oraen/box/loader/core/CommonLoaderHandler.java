@@ -8,6 +8,10 @@ import lombok.Getter;
 import lombok.Setter;
 import com.oraen.box.common.util.CollectionUtil;
 import com.oraen.box.loader.*;
+import com.oraen.box.loader.executor.ExecutorSelector;
+import com.oraen.box.loader.executor.LeastQueuedExecutorSelector;
+import com.oraen.box.loader.executor.LoaderExecutors;
+import com.oraen.box.loader.executor.NodeSpreadingExecutor;
 
 import java.util.*;
 import java.util.concurrent.*;
@@ -18,10 +22,17 @@ public class CommonLoaderHandler implements LoaderHandler {
 
     private final DataLoaderContainer dataLoaderContainer;
 
-    private final ConcurrentHashMap<DataLoader<?>,  Map<String, DataLoader<?>> > dataLoaderDependencyCache = new ConcurrentHashMap<>();
+    //每个根节点只编译一次执行计划
+    private final ConcurrentHashMap<DataLoader<?>, ExecutionPlan> executionPlanCache = new ConcurrentHashMap<>();
 
     private final List<Executor> executors;
 
+    @Getter
+    private volatile ExecutorSelector executorSelector = new LeastQueuedExecutorSelector();
+
+    //不为空时同一个请求的节点分散到多个线程池
+    private volatile NodeSpreadingExecutor spreadingExecutor;
+
     @Setter
     @Getter
     private long execTimeout;
@@ -40,12 +51,45 @@ public class CommonLoaderHandler implements LoaderHandler {
         this.execTimeout = execTimeout;
     }
 
+    /**
+     * 虚拟线程模式，JDK 21 以上每个节点一个虚拟线程，其他版本退化为平台线程池
+     *
+     * @param maxConcurrentNodes 同时执行的节点数上限
+     */
+    public static CommonLoaderHandler withVirtualThreads(DataLoaderContainer dataLoaderContainer, int maxConcurrentNodes, long execTimeout) {
+        return new CommonLoaderHandler(dataLoaderContainer,
+                Collections.singletonList(LoaderExecutors.virtualThreadExecutor(maxConcurrentNodes)), execTimeout);
+    }
+
+    /**
+     * 优先级调度模式，线程池繁忙时剩余路径长的节点先执行
+     *
+     * @param priorityExecutor 由 LoaderExecutors.priorityExecutor 创建的线程池，由调用方负责关闭
+     */
+    public static CommonLoaderHandler withPriorityScheduling(DataLoaderContainer dataLoaderContainer, ThreadPoolExecutor priorityExecutor, long execTimeout) {
+        if(! LoaderExecutors.isPriorityExecutor(priorityExecutor)) {
+            throw new IllegalArgumentException("priorityExecutor must be created by LoaderExecutors.priorityExecutor");
+        }
+        return new CommonLoaderHandler(dataLoaderContainer, Collections.singletonList(priorityExecutor), execTimeout);
+    }
+
     @Override
     public <T, U> ExecLog execDataLoadWithLog(DataLoader<T> rootDataLoader, U initParam, Object initResp) {
-        Map<String, DataLoader<?>> dataLoaderMap = analyzeNeedLoadDataLoader(rootDataLoader);
-        CommonLoadContext loadContext = new CommonLoadContext(initParam, initResp, dataLoaderMap.values());
+        ExecutionPlan executionPlan = getExecutionPlan(rootDataLoader);
+        CommonLoadContext loadContext = new CommonLoadContext(executionPlan, initParam, initResp);
         Throwable throwable = exec(loadContext);
+        return buildExecLog(rootDataLoader, loadContext, throwable);
+    }
+
+    @Override
+    public <T, U> CompletableFuture<ExecLog> execDataLoadAsync(DataLoader<T> rootDataLoader, U initParam, Object initResp) {
+        ExecutionPlan executionPlan = getExecutionPlan(rootDataLoader);
+        CommonLoadContext loadContext = new CommonLoadContext(executionPlan, initParam, initResp);
+        return LoadLogic.execAsync(loadContext, selectExecutor(loadContext), execTimeout, null)
+                .thenApply(throwable -> buildExecLog(rootDataLoader, loadContext, throwable));
+    }
 
+    private ExecLog buildExecLog(DataLoader<?> rootDataLoader, CommonLoadContext loadContext, Throwable throwable) {
         loadContext.setSuccess(throwable == null);
         loadContext.setThrowable(throwable);
 
@@ -61,26 +105,46 @@ public class CommonLoaderHandler implements LoaderHandler {
         return re;
     }
 
-
-    private Map<String, DataLoader<?>> analyzeNeedLoadDataLoader(DataLoader<?> rootDataLoader) {
-        if(dataLoaderDependencyCache.get(rootDataLoader) != null) {
-            return dataLoaderDependencyCache.get(rootDataLoader);
+    public ExecutionPlan getExecutionPlan(DataLoader<?> rootDataLoader) {
+        ExecutionPlan executionPlan = executionPlanCache.get(rootDataLoader);
+        if(executionPlan != null) {
+            return executionPlan;
         }
 
-        String hasCircularDependency = LoadUtil.hasCircularDependency(rootDataLoader, dataLoaderContainer);
-        if(hasCircularDependency != null) {
-            throw new RuntimeException("DataLoader has circular dependency, on " + hasCircularDependency);
+        executionPlanCache.putIfAbsent(rootDataLoader, ExecutionPlan.compile(rootDataLoader, dataLoaderContainer));
+        return executionPlanCache.get(rootDataLoader);
+    }
+
+    private Throwable exec(CommonLoadContext loadContext){
+        return LoadLogic.exec(loadContext, selectExecutor(loadContext), execTimeout,null);
+    }
+
+    private Executor selectExecutor(CommonLoadContext loadContext){
+        NodeSpreadingExecutor spreadingExecutor = this.spreadingExecutor;
+        if(spreadingExecutor != null) {
+            return spreadingExecutor;
         }
 
-        Map<String, DataLoader<?>> re = LoadUtil.getAllDependencies(rootDataLoader, dataLoaderContainer);
+        return executorSelector.select(executors, loadContext);
+    }
 
-        dataLoaderDependencyCache.putIfAbsent(rootDataLoader, re);
-        return dataLoaderDependencyCache.get(rootDataLoader);
+    public void setExecutorSelector(ExecutorSelector executorSelector) {
+        this.executorSelector = executorSelector;
+        if(spreadingExecutor != null) {
+            spreadingExecutor = new NodeSpreadingExecutor(executors, executorSelector);
+        }
     }
 
-    private Throwable exec(CommonLoadContext loadContext){
-        Executor executor = executors.get(Math.abs(loadContext.hashCode() % executors.size()));
-        return LoadLogic.exec(loadContext, executor, execTimeout,null);
+    /**
+     * 同一个请求的节点是否分散到多个线程池，每个节点提交时重新选择线程池
+     * 默认整个请求使用同一个线程池，节点依赖 ThreadLocal 等线程亲和性时不要开启
+     */
+    public void setSpreadNodes(boolean spreadNodes) {
+        this.spreadingExecutor = spreadNodes && executors.size() > 1 ? new NodeSpreadingExecutor(executors, executorSelector) : null;
+    }
+
+    public boolean isSpreadNodes() {
+        return spreadingExecutor != null;
     }
 
 
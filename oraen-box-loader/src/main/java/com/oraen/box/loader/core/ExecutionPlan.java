@@ -0,0 +1,659 @@
+package com.oraen.box.loader.core;
+
+import com.oraen.box.loader.DataLoader;
+import com.oraen.box.loader.DataLoaderContainer;
+import com.oraen.box.loader.DependencyQuorum;
+import com.oraen.box.loader.InlineMode;
+import com.oraen.box.loader.metrics.LatencyStats;
+import com.oraen.box.loader.metrics.LoaderLatencies;
+import com.oraen.box.loader.resilience.AdaptiveLimitPolicy;
+import com.oraen.box.loader.resilience.AdaptiveLimiter;
+import com.oraen.box.loader.resilience.AdaptiveLimiters;
+import com.oraen.box.loader.resilience.Bulkhead;
+import com.oraen.box.loader.resilience.BulkheadPolicy;
+import com.oraen.box.loader.resilience.Bulkheads;
+import com.oraen.box.loader.resilience.CircuitBreaker;
+import com.oraen.box.loader.resilience.CircuitBreakerPolicy;
+import com.oraen.box.loader.resilience.CircuitBreakers;
+import com.oraen.box.loader.resilience.OverflowPolicy;
+import com.oraen.box.loader.resilience.RetryBudget;
+import com.oraen.box.loader.resilience.RetryBudgetPolicy;
+import com.oraen.box.loader.resilience.RetryBudgets;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+
+/**
+ * 编译后的执行计划，不可变，可在多个请求之间共享
+ * 节点按下标寻址，依赖关系、拓扑序都在编译时确定，每次请求只需要复制一份依赖计数
+ */
+public final class ExecutionPlan {
+
+    //剩余路径长度的刷新间隔
+    private static final long PATH_ESTIMATE_REFRESH_MILLIS = 1000L;
+
+    //没有足够耗时样本的节点按 1 毫秒估计，剩余路径长度退化为剩余深度
+    private static final long DEFAULT_LATENCY_MILLIS = 1L;
+
+    private final String[] names;
+
+    private final DataLoader<?>[] dataLoaders;
+
+    private final Map<String, Integer> indexMap;
+
+    private final Map<String, DataLoader<?>> dataLoaderMap;
+
+    //拓扑序
+    private final int[] topologicalOrder;
+
+    //每个节点依赖的节点数
+    private final int[] dependencyCounts;
+
+    //每个节点依赖的节点
+    private final int[][] dependencies;
+
+    //依赖每个节点的节点
+    private final int[][] dependents;
+
+    //没有依赖的节点，按拓扑序排列
+    private final int[] roots;
+
+    //执行计划名称，由没有被其他节点依赖的节点名称组成，一般就是根 DataLoader 的名称
+    private final String planName;
+
+    //是否有节点配置了跨请求缓存
+    private final boolean hasCachedNode;
+
+    //是否有节点配置了单独的超时时间
+    private final boolean hasTimeoutNode;
+
+    //按下标存放每个节点的耗时统计，避免每次执行都查找
+    private final LatencyStats[] latencyStats;
+
+    //按下标存放每个节点的重试预算，不限制重试的节点为 null
+    private final RetryBudget[] retryBudgets;
+
+    //按下标存放每个节点的熔断器，没有配置熔断的节点为 null
+    private final CircuitBreaker[] circuitBreakers;
+
+    //是否有节点配置了隔离舱
+    private final boolean hasBulkheadNode;
+
+    //按下标存放每个节点的隔离舱、满时的处理方式和专用线程池，没有配置隔离舱的节点为 null
+    private final Bulkhead[] bulkheads;
+
+    private final OverflowPolicy[] overflowPolicies;
+
+    private final Executor[] executors;
+
+    //是否有节点配置了自适应并发上限
+    private final boolean hasLimitedNode;
+
+    //按下标存放每个节点的自适应并发上限，没有配置的节点为 null
+    private final AdaptiveLimiter[] limiters;
+
+    private final long[] limitWaitMillis;
+
+    //按下标存放每个节点的内联方式，配置了隔离舱或自适应并发上限的节点固定为 NEVER
+    private final InlineMode[] inlineModes;
+
+    //惰性节点中没有被任何非惰性节点依赖到的节点，只有被读取结果时才执行
+    private final boolean[] dormant;
+
+    private final int dormantCount;
+
+    //每个节点开始执行前要等待的次数，一个依赖组只算一次
+    private final int[] readyCounts;
+
+    //和 dependencies 一一对应，依赖所在的依赖组下标，不在组内为 -1，没有依赖组的节点为 null
+    private final int[][] dependencyGroups;
+
+    //依赖组按下标存放组内的依赖、需要成功的数量和凑够后是否取消剩余的依赖
+    private final int[][] quorumSources;
+
+    private final int[] quorumRequired;
+
+    private final boolean[] quorumCancelRemaining;
+
+    //按历史耗时估计的剩余路径长度，定期刷新
+    private volatile PathEstimate pathEstimate;
+
+    private ExecutionPlan(String[] names, DataLoader<?>[] dataLoaders, Map<String, Integer> indexMap,
+                          int[] topologicalOrder, int[] dependencyCounts, int[][] dependencies, int[][] dependents, int[] roots) {
+        this.names = names;
+        this.dataLoaders = dataLoaders;
+        this.indexMap = indexMap;
+        this.topologicalOrder = topologicalOrder;
+        this.dependencyCounts = dependencyCounts;
+        this.dependencies = dependencies;
+        this.dependents = dependents;
+        this.roots = roots;
+
+        Map<String, DataLoader<?>> dataLoaderMap = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            dataLoaderMap.put(names[i], dataLoaders[i]);
+        }
+        this.dataLoaderMap = Collections.unmodifiableMap(dataLoaderMap);
+
+        StringJoiner planName = new StringJoiner(",");
+        for (int index : topologicalOrder) {
+            if(dependents[index].length == 0) {
+                planName.add(names[index]);
+            }
+        }
+        this.planName = planName.toString();
+
+        boolean hasCachedNode = false;
+        boolean hasTimeoutNode = false;
+        boolean hasBulkheadNode = false;
+        boolean hasLimitedNode = false;
+        this.latencyStats = new LatencyStats[names.length];
+        this.retryBudgets = new RetryBudget[names.length];
+        this.circuitBreakers = new CircuitBreaker[names.length];
+        this.bulkheads = new Bulkhead[names.length];
+        this.overflowPolicies = new OverflowPolicy[names.length];
+        this.executors = new Executor[names.length];
+        this.limiters = new AdaptiveLimiter[names.length];
+        this.limitWaitMillis = new long[names.length];
+        this.inlineModes = new InlineMode[names.length];
+        for (int i = 0; i < names.length; i++) {
+            hasCachedNode |= dataLoaders[i].cachePolicy() != null;
+            hasTimeoutNode |= dataLoaders[i].timeoutMillis() > 0;
+            latencyStats[i] = LoaderLatencies.getStats(names[i]);
+            RetryBudgetPolicy retryBudgetPolicy = dataLoaders[i].retryBudgetPolicy();
+            retryBudgets[i] = retryBudgetPolicy == null ? null : RetryBudgets.getBudget(names[i], retryBudgetPolicy);
+            CircuitBreakerPolicy circuitBreakerPolicy = dataLoaders[i].circuitBreakerPolicy();
+            circuitBreakers[i] = circuitBreakerPolicy == null ? null : CircuitBreakers.getCircuitBreaker(names[i], circuitBreakerPolicy);
+            BulkheadPolicy bulkheadPolicy = dataLoaders[i].bulkheadPolicy();
+            if(bulkheadPolicy != null) {
+                hasBulkheadNode = true;
+                String bulkheadName = bulkheadPolicy.getName() == null ? names[i] : bulkheadPolicy.getName();
+                bulkheads[i] = Bulkheads.getBulkhead(bulkheadName, bulkheadPolicy);
+                overflowPolicies[i] = bulkheadPolicy.getOverflowPolicy() == null ? OverflowPolicy.QUEUE : bulkheadPolicy.getOverflowPolicy();
+                executors[i] = bulkheadPolicy.getExecutor();
+            }
+            AdaptiveLimitPolicy adaptiveLimitPolicy = dataLoaders[i].adaptiveLimitPolicy();
+            if(adaptiveLimitPolicy != null) {
+                hasLimitedNode = true;
+                limiters[i] = AdaptiveLimiters.getLimiter(names[i], adaptiveLimitPolicy);
+                limitWaitMillis[i] = adaptiveLimitPolicy.getMaxWaitMillis();
+            }
+            InlineMode inlineMode = dataLoaders[i].inlineMode();
+            //隔离舱和并发上限要求节点经过它们的排队，不能内联
+            inlineModes[i] = inlineMode == null || bulkheads[i] != null || limiters[i] != null ? InlineMode.NEVER : inlineMode;
+        }
+        this.hasCachedNode = hasCachedNode;
+        this.hasTimeoutNode = hasTimeoutNode;
+        this.hasBulkheadNode = hasBulkheadNode;
+        this.hasLimitedNode = hasLimitedNode;
+
+        //按拓扑序倒序，被需要的节点的依赖也被需要
+        boolean[] needed = new boolean[names.length];
+        for (int i = topologicalOrder.length - 1; i >= 0; i--) {
+            int index = topologicalOrder[i];
+            if(! needed[index] && dataLoaders[index].lazy()) {
+                continue;
+            }
+            needed[index] = true;
+            for (int dependency : dependencies[index]) {
+                needed[dependency] = true;
+            }
+        }
+        this.dormant = new boolean[names.length];
+        int dormantCount = 0;
+        for (int i = 0; i < names.length; i++) {
+            dormant[i] = ! needed[i];
+            if(dormant[i]) {
+                dormantCount++;
+            }
+        }
+        this.dormantCount = dormantCount;
+
+        this.readyCounts = dependencyCounts.clone();
+        this.dependencyGroups = new int[names.length][];
+        List<int[]> quorumSources = new ArrayList<>();
+        List<DependencyQuorum> quorums = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            List<DependencyQuorum> dependencyQuorums = dataLoaders[i].dependencyQuorums();
+            if(dependencyQuorums == null || dependencyQuorums.isEmpty()) {
+                continue;
+            }
+
+            int[] groups = new int[dependencies[i].length];
+            Arrays.fill(groups, -1);
+            for (DependencyQuorum quorum : dependencyQuorums) {
+                int group = quorums.size();
+                LinkedHashSet<Integer> sources = new LinkedHashSet<>();
+                for (String source : quorum.getSources()) {
+                    int position = indexOf(dependencies[i], indexOf(source));
+                    if(position < 0) {
+                        throw new IllegalStateException("DataLoader " + names[i] + " has quorum source " + source + " that is not one of its dependencies");
+                    }
+                    if(groups[position] >= 0 && groups[position] != group) {
+                        throw new IllegalStateException("DataLoader " + names[i] + " has quorum source " + source + " in more than one group");
+                    }
+                    groups[position] = group;
+                    sources.add(dependencies[i][position]);
+                }
+                if(quorum.getRequired() < 1 || quorum.getRequired() > sources.size()) {
+                    throw new IllegalStateException("DataLoader " + names[i] + " requires " + quorum.getRequired()
+                            + " of " + sources.size() + " quorum sources");
+                }
+                int[] sourceArray = new int[sources.size()];
+                int j = 0;
+                for (Integer source : sources) {
+                    sourceArray[j++] = source;
+                }
+                quorumSources.add(sourceArray);
+                quorums.add(quorum);
+                //整个组只等待一次
+                readyCounts[i] -= sourceArray.length - 1;
+            }
+            dependencyGroups[i] = groups;
+        }
+        this.quorumSources = quorumSources.toArray(new int[0][]);
+        this.quorumRequired = new int[quorums.size()];
+        this.quorumCancelRemaining = new boolean[quorums.size()];
+        for (int group = 0; group < quorums.size(); group++) {
+            quorumRequired[group] = quorums.get(group).getRequired();
+            quorumCancelRemaining[group] = quorums.get(group).isCancelRemaining();
+        }
+    }
+
+    private static int indexOf(int[] array, int value) {
+        for (int i = 0; i < array.length; i++) {
+            if(array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 以 rootLoader 为根编译执行计划，包含 rootLoader 及其所有递归依赖
+     *
+     * @param rootLoader 根 DataLoader
+     * @param dataLoaderContainer name -> DataLoader 容器
+     * @return 执行计划
+     */
+    public static ExecutionPlan compile(DataLoader<?> rootLoader, DataLoaderContainer dataLoaderContainer) {
+        String hasCircularDependency = LoadUtil.hasCircularDependency(rootLoader, dataLoaderContainer);
+        if(hasCircularDependency != null) {
+            throw new RuntimeException("DataLoader has circular dependency, on " + hasCircularDependency);
+        }
+
+        return compile(LoadUtil.getAllDependencies(rootLoader, dataLoaderContainer).values());
+    }
+
+    /**
+     * 编译一组 DataLoader 的执行计划，所有依赖都必须在这组 DataLoader 中
+     *
+     * @param loaders 参与执行的 DataLoader
+     * @return 执行计划
+     */
+    public static ExecutionPlan compile(Collection<? extends DataLoader<?>> loaders) {
+        List<DataLoader<?>> loaderList = new ArrayList<>(loaders.size());
+        for (DataLoader<?> dataLoader : loaders) {
+            if (dataLoader != null) {
+                loaderList.add(dataLoader);
+            }
+        }
+
+        int size = loaderList.size();
+        String[] names = new String[size];
+        DataLoader<?>[] dataLoaders = new DataLoader<?>[size];
+        Map<String, Integer> indexMap = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            DataLoader<?> dataLoader = loaderList.get(i);
+            String name = dataLoader.name();
+            if(indexMap.put(name, i) != null) {
+                throw new IllegalStateException("DataLoader name must be unique, but found duplicate: " + name);
+            }
+            names[i] = name;
+            dataLoaders[i] = dataLoader;
+        }
+
+        int[][] dependencies = new int[size][];
+        int[] dependencyCounts = new int[size];
+        int[] dependentCounts = new int[size];
+        for (int i = 0; i < size; i++) {
+            List<String> dependencyNames = dataLoaders[i].dependencies();
+            if(dependencyNames == null || dependencyNames.isEmpty()) {
+                dependencies[i] = new int[0];
+                continue;
+            }
+
+            //同一个依赖重复声明只算一次
+            LinkedHashSet<Integer> dependencySet = new LinkedHashSet<>();
+            for (String dependencyName : dependencyNames) {
+                Integer dependency = indexMap.get(dependencyName);
+                if(dependency == null) {
+                    throw new IllegalStateException("DataLoader " + names[i] + " depends on unknown DataLoader: " + dependencyName);
+                }
+                dependencySet.add(dependency);
+            }
+
+            int[] dependencyArray = new int[dependencySet.size()];
+            int j = 0;
+            for (Integer dependency : dependencySet) {
+                dependencyArray[j++] = dependency;
+                dependentCounts[dependency]++;
+            }
+            dependencies[i] = dependencyArray;
+            dependencyCounts[i] = dependencyArray.length;
+        }
+
+        int[][] dependents = new int[size][];
+        for (int i = 0; i < size; i++) {
+            dependents[i] = new int[dependentCounts[i]];
+        }
+        int[] fill = new int[size];
+        for (int i = 0; i < size; i++) {
+            for (int dependency : dependencies[i]) {
+                dependents[dependency][fill[dependency]++] = i;
+            }
+        }
+
+        //Kahn 算法求拓扑序，同时检查循环依赖
+        int[] remaining = Arrays.copyOf(dependencyCounts, size);
+        int[] topologicalOrder = new int[size];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < size; i++) {
+            if(remaining[i] == 0) {
+                topologicalOrder[tail++] = i;
+            }
+        }
+        int rootCount = tail;
+        while (head < tail) {
+            int current = topologicalOrder[head++];
+            for (int dependent : dependents[current]) {
+                if(--remaining[dependent] == 0) {
+                    topologicalOrder[tail++] = dependent;
+                }
+            }
+        }
+
+        if(tail != size) {
+            for (int i = 0; i < size; i++) {
+                if(remaining[i] > 0) {
+                    throw new RuntimeException("DataLoader has circular dependency, on " + names[i]);
+                }
+            }
+        }
+
+        return new ExecutionPlan(names, dataLoaders, Collections.unmodifiableMap(indexMap), topologicalOrder,
+                dependencyCounts, dependencies, dependents, Arrays.copyOf(topologicalOrder, rootCount));
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * 获取节点下标
+     *
+     * @param name DataLoader 名称
+     * @return 节点下标，不存在时返回 -1
+     */
+    public int indexOf(String name) {
+        Integer index = indexMap.get(name);
+        return index == null ? -1 : index;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public String getPlanName() {
+        return planName;
+    }
+
+    public DataLoader<?> getDataLoader(int index) {
+        return dataLoaders[index];
+    }
+
+    public DataLoader<?> getDataLoader(String name) {
+        return dataLoaderMap.get(name);
+    }
+
+    public Map<String, DataLoader<?>> getDataLoaderMap() {
+        return dataLoaderMap;
+    }
+
+    public int getDependencyCount(int index) {
+        return dependencyCounts[index];
+    }
+
+    //以下返回内部数组，调用方不可修改
+    public int[] getTopologicalOrder() {
+        return topologicalOrder;
+    }
+
+    public int[] getDependencyCounts() {
+        return dependencyCounts;
+    }
+
+    public int[] getDependencies(int index) {
+        return dependencies[index];
+    }
+
+    public int[] getDependents(int index) {
+        return dependents[index];
+    }
+
+    public int[] getRoots() {
+        return roots;
+    }
+
+    /**
+     * 按历史耗时估计的剩余路径长度，超过刷新间隔时重新计算
+     */
+    public PathEstimate getPathEstimate() {
+        PathEstimate estimate = pathEstimate;
+        if(estimate == null || System.currentTimeMillis() - estimate.computedAt >= PATH_ESTIMATE_REFRESH_MILLIS) {
+            estimate = refreshPathEstimate();
+        }
+        return estimate;
+    }
+
+    /**
+     * 立即按当前的历史耗时重新计算剩余路径长度，并发刷新时后算完的覆盖先算完的，结果都是有效的
+     */
+    public PathEstimate refreshPathEstimate() {
+        int size = names.length;
+        long[] remainingMillis = new long[size];
+        long longestMillis = 0;
+        //逆拓扑序，依赖当前节点的节点已经算完
+        for (int i = size - 1; i >= 0; i--) {
+            int index = topologicalOrder[i];
+            long expectedLatency = latencyStats[index].expectedLatency();
+            long remaining = 0;
+            for (int dependent : dependents[index]) {
+                remaining = Math.max(remaining, remainingMillis[dependent]);
+            }
+            remainingMillis[index] = remaining + Math.max(expectedLatency, DEFAULT_LATENCY_MILLIS);
+            longestMillis = Math.max(longestMillis, remainingMillis[index]);
+        }
+
+        Comparator<Integer> byRemaining = (a, b) -> Long.compare(remainingMillis[b], remainingMillis[a]);
+        int[] rootsByPriority = sortIndexes(roots, byRemaining);
+        int[][] dependentsByPriority = new int[size][];
+        for (int i = 0; i < size; i++) {
+            dependentsByPriority[i] = sortIndexes(dependents[i], byRemaining);
+        }
+
+        PathEstimate estimate = new PathEstimate(System.currentTimeMillis(), remainingMillis, longestMillis, rootsByPriority, dependentsByPriority);
+        this.pathEstimate = estimate;
+        return estimate;
+    }
+
+    private static int[] sortIndexes(int[] indexes, Comparator<Integer> comparator) {
+        if(indexes.length < 2) {
+            return indexes;
+        }
+
+        Integer[] boxed = new Integer[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            boxed[i] = indexes[i];
+        }
+        //稳定排序，剩余路径相同的节点保持原来的顺序
+        Arrays.sort(boxed, comparator);
+        int[] sorted = new int[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            sorted[i] = boxed[i];
+        }
+        return sorted;
+    }
+
+    public boolean hasCachedNode() {
+        return hasCachedNode;
+    }
+
+    public boolean hasTimeoutNode() {
+        return hasTimeoutNode;
+    }
+
+    public LatencyStats getLatencyStats(int index) {
+        return latencyStats[index];
+    }
+
+    public RetryBudget getRetryBudget(int index) {
+        return retryBudgets[index];
+    }
+
+    public CircuitBreaker getCircuitBreaker(int index) {
+        return circuitBreakers[index];
+    }
+
+    public boolean hasBulkheadNode() {
+        return hasBulkheadNode;
+    }
+
+    public Bulkhead getBulkhead(int index) {
+        return bulkheads[index];
+    }
+
+    public OverflowPolicy getOverflowPolicy(int index) {
+        return overflowPolicies[index];
+    }
+
+    /**
+     * @return 节点专用的线程池，没有时返回 null
+     */
+    public Executor getExecutor(int index) {
+        return executors[index];
+    }
+
+    public boolean hasLimitedNode() {
+        return hasLimitedNode;
+    }
+
+    public AdaptiveLimiter getLimiter(int index) {
+        return limiters[index];
+    }
+
+    public long getLimitWaitMillis(int index) {
+        return limitWaitMillis[index];
+    }
+
+    public InlineMode getInlineMode(int index) {
+        return inlineModes[index];
+    }
+
+    /**
+     * @return 节点是否要等到被读取结果时才执行
+     */
+    public boolean isDormant(int index) {
+        return dormant[index];
+    }
+
+    public int getDormantCount() {
+        return dormantCount;
+    }
+
+    //以下返回内部数组，调用方不可修改
+    public int[] getReadyCounts() {
+        return readyCounts;
+    }
+
+    public int getQuorumCount() {
+        return quorumRequired.length;
+    }
+
+    /**
+     * @return dependency 在 dependent 的哪个依赖组中，不在组内时返回 -1
+     */
+    public int getQuorumGroup(int dependent, int dependency) {
+        int[] groups = dependencyGroups[dependent];
+        if(groups == null) {
+            return -1;
+        }
+
+        int position = indexOf(dependencies[dependent], dependency);
+        return position < 0 ? -1 : groups[position];
+    }
+
+    public int[] getQuorumSources(int group) {
+        return quorumSources[group];
+    }
+
+    public int getQuorumRequired(int group) {
+        return quorumRequired[group];
+    }
+
+    public boolean isQuorumCancelRemaining(int group) {
+        return quorumCancelRemaining[group];
+    }
+
+    /**
+     * 每个节点到终点的预计剩余路径长度，剩余路径越长的节点越应该先执行
+     */
+    public static final class PathEstimate {
+
+        private final long computedAt;
+
+        private final long[] remainingMillis;
+
+        private final long longestMillis;
+
+        private final int[] rootsByPriority;
+
+        private final int[][] dependentsByPriority;
+
+        private PathEstimate(long computedAt, long[] remainingMillis, long longestMillis, int[] rootsByPriority, int[][] dependentsByPriority) {
+            this.computedAt = computedAt;
+            this.remainingMillis = remainingMillis;
+            this.longestMillis = longestMillis;
+            this.rootsByPriority = rootsByPriority;
+            this.dependentsByPriority = dependentsByPriority;
+        }
+
+        //包括节点自己的预计耗时
+        public long getRemainingMillis(int index) {
+            return remainingMillis[index];
+        }
+
+        public long getLongestMillis() {
+            return longestMillis;
+        }
+
+        /**
+         * 节点最晚可以在请求开始后多久开始执行而不拉长整个请求，最长路径上的节点为 0
+         */
+        public long getSlackMillis(int index) {
+            return longestMillis - remainingMillis[index];
+        }
+
+        //没有依赖的节点，按剩余路径从长到短排列
+        public int[] getRootsByPriority() {
+            return rootsByPriority;
+        }
+
+        //依赖这个节点的节点，按剩余路径从长到短排列
+        public int[] getDependentsByPriority(int index) {
+            return dependentsByPriority[index];
+        }
+    }
+
+}
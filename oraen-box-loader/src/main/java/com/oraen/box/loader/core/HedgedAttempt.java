@@ -0,0 +1,70 @@
+package com.oraen.box.loader.core;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一次带对冲的尝试，第一次调用和对冲调用中第一个成功的结果胜出，全部失败后才算这次尝试失败
+ * 调用 run 即取消所有还在执行的调用
+ */
+class HedgedAttempt implements Runnable {
+
+    //还在执行的调用数，胜出或者全部失败后置为 0，之后不能再发起对冲
+    private final AtomicInteger pending = new AtomicInteger(1);
+
+    private final ConcurrentLinkedQueue<Runnable> cancellers = new ConcurrentLinkedQueue<>();
+
+    volatile ScheduledFuture<?> hedgeTimer;
+
+    //已经发起的对冲次数，只有定时器线程写
+    volatile int hedges;
+
+    boolean tryAddHedge() {
+        int current;
+        do {
+            current = pending.get();
+            if(current <= 0) {
+                return false;
+            }
+        } while (! pending.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    //返回 true 代表这次调用胜出
+    boolean win() {
+        return pending.getAndSet(0) > 0;
+    }
+
+    //返回 true 代表所有调用都失败了
+    boolean failAndIsLast() {
+        int current;
+        do {
+            current = pending.get();
+            if(current <= 0) {
+                return false;
+            }
+        } while (! pending.compareAndSet(current, current - 1));
+        return current == 1;
+    }
+
+    void addCanceller(Runnable canceller) {
+        cancellers.add(canceller);
+        //添加前已经结束
+        if(pending.get() <= 0) {
+            canceller.run();
+        }
+    }
+
+    @Override
+    public void run() {
+        ScheduledFuture<?> timer = hedgeTimer;
+        if(timer != null) {
+            timer.cancel(false);
+        }
+        for (Runnable canceller : cancellers) {
+            canceller.run();
+        }
+    }
+
+}
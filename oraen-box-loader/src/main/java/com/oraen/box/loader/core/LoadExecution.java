@@ -0,0 +1,460 @@
+package com.oraen.box.loader.core;
+
+import com.oraen.box.loader.ExecResult;
+import com.oraen.box.loader.LoaderHook;
+import com.oraen.box.loader.cache.SingleFlight;
+import com.oraen.box.loader.resilience.CircuitBreaker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 单次请求的执行状态，执行计划本身在请求之间共享，这里只保存每次请求独有的部分
+ */
+class LoadExecution {
+
+    //节点的完成状态
+    private static final int PENDING = 0;
+    private static final int COMPLETED = 1;
+    //执行方正在写开始时间和状态
+    private static final int STARTING = 2;
+    private static final int STARTED = 3;
+
+    final ExecutionPlan plan;
+
+    final CommonLoadContext loadContext;
+
+    final Executor executor;
+
+    final LoaderHook[] hooks;
+
+    final LoaderHook[] reverseHooks;
+
+    final long startTime;
+
+    //每个节点还在等待的依赖数
+    final AtomicIntegerArray waitingForNums;
+
+    //还没完成的节点数
+    final AtomicInteger remainingTasks;
+
+    //所有节点完成，或者发生致命错误、超时时完成，由最后完成的任务触发
+    final CompletableFuture<Void> graphDone = new CompletableFuture<>();
+
+    final AtomicReference<Throwable> exceptionRef = new AtomicReference<>(null);
+
+    //没命中缓存的节点的缓存 key，执行成功后写入缓存，每个位置只被对应节点的任务读写
+    final Object[] cacheKeys;
+
+    //节点的结果只能由一个来源写入，超时兜底和正常返回的结果先到先得
+    private final AtomicIntegerArray completed;
+
+    //节点超时的定时任务，只有配置了节点超时时才创建
+    final ScheduledFuture<?>[] timeoutFutures;
+
+    //正在执行的节点的取消动作，中断同步节点的线程或者取消异步节点返回的 future
+    private final AtomicReferenceArray<Runnable> cancellers;
+
+    //节点是否占用着隔离舱的并发数，只有配置了隔离舱时才创建
+    private final AtomicIntegerArray bulkheadPermits;
+
+    //节点拿到自适应并发上限的时间，0 代表没有占用，只有配置了自适应并发上限时才创建
+    private final AtomicLongArray limitAcquireTimes;
+
+    //节点还没有返回的调用数，超时或取消后调用返回前不归还并发数，只有配置了隔离舱或自适应并发上限时才创建
+    private final AtomicIntegerArray attempts;
+
+    //本次请求使用的剩余路径估计，决定节点的提交顺序和优先级
+    final ExecutionPlan.PathEstimate pathEstimate;
+
+    //熔断器状态变化时回调钩子函数
+    final CircuitBreaker.StateListener circuitListener;
+
+    //惰性节点是否已经启动，以及等待它完成的 future，只有存在惰性节点时才创建
+    private final AtomicIntegerArray activated;
+
+    private final CompletableFuture<?>[] lazyDone;
+
+    //每个依赖组已经成功和失败的依赖数，只有存在依赖组时才创建
+    private final AtomicIntegerArray quorumSuccesses;
+
+    private final AtomicIntegerArray quorumFailures;
+
+    //作为执行者合并的调用，只有用到合并时才创建
+    private volatile Flight[] flights;
+
+    LoadExecution(CommonLoadContext loadContext, Executor executor, LoaderHook[] hooks, LoaderHook[] reverseHooks, long startTime) {
+        this.plan = loadContext.getExecutionPlan();
+        this.loadContext = loadContext;
+        this.executor = executor;
+        this.hooks = hooks;
+        this.reverseHooks = reverseHooks;
+        this.startTime = startTime;
+        this.remainingTasks = new AtomicInteger(plan.size() - plan.getDormantCount());
+        if(plan.getDormantCount() == 0) {
+            this.waitingForNums = new AtomicIntegerArray(plan.getReadyCounts());
+            this.activated = null;
+            this.lazyDone = null;
+        } else {
+            //惰性节点多等待一次启动，依赖完成和启动都到齐后才提交
+            int[] waitingForNums = plan.getReadyCounts().clone();
+            this.lazyDone = new CompletableFuture<?>[plan.size()];
+            for (int i = 0; i < plan.size(); i++) {
+                if(plan.isDormant(i)) {
+                    waitingForNums[i]++;
+                    lazyDone[i] = new CompletableFuture<Void>();
+                }
+            }
+            this.waitingForNums = new AtomicIntegerArray(waitingForNums);
+            this.activated = new AtomicIntegerArray(plan.size());
+        }
+        this.quorumSuccesses = plan.getQuorumCount() == 0 ? null : new AtomicIntegerArray(plan.getQuorumCount());
+        this.quorumFailures = plan.getQuorumCount() == 0 ? null : new AtomicIntegerArray(plan.getQuorumCount());
+        this.cacheKeys = plan.hasCachedNode() ? new Object[plan.size()] : null;
+        this.completed = new AtomicIntegerArray(plan.size());
+        this.timeoutFutures = plan.hasTimeoutNode() ? new ScheduledFuture<?>[plan.size()] : null;
+        this.cancellers = new AtomicReferenceArray<>(plan.size());
+        this.bulkheadPermits = plan.hasBulkheadNode() ? new AtomicIntegerArray(plan.size()) : null;
+        this.limitAcquireTimes = plan.hasLimitedNode() ? new AtomicLongArray(plan.size()) : null;
+        this.attempts = plan.hasBulkheadNode() || plan.hasLimitedNode() ? new AtomicIntegerArray(plan.size()) : null;
+        this.pathEstimate = plan.getPathEstimate();
+        this.circuitListener = hooks.length == 0 ? null : (name, from, to) -> {
+            for(LoaderHook hook : hooks) {
+                hook.onCircuitStateChange(name, from, to, loadContext);
+            }
+        };
+        if(remainingTasks.get() == 0) {
+            graphDone.complete(null);
+        }
+    }
+
+    /**
+     * 启动惰性节点，每个节点只启动一次
+     *
+     * @return true 代表由当前调用启动，调用方需要继续启动它的依赖并释放它多等待的一次
+     */
+    boolean tryActivate(int index) {
+        if(activated == null || ! plan.isDormant(index) || ! activated.compareAndSet(index, 0, 1)) {
+            return false;
+        }
+
+        //所有节点都已经完成后不再启动，结果保持为空
+        int remaining;
+        do {
+            remaining = remainingTasks.get();
+            if(remaining == 0) {
+                lazyDone(index);
+                return false;
+            }
+        } while (! remainingTasks.compareAndSet(remaining, remaining + 1));
+        return true;
+    }
+
+    /**
+     * 等待惰性节点完成，最多等到整个请求超时
+     */
+    void awaitLazy(int index) {
+        try {
+            lazyDone[index].get(loadContext.remainingBudget(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            //超时由整个请求的超时处理，这里只是不再等待
+        }
+    }
+
+    //惰性节点已经有结果或者不会再执行
+    void lazyDone(int index) {
+        if(lazyDone != null && lazyDone[index] != null) {
+            lazyDone[index].complete(null);
+        }
+    }
+
+    //请求结束时把没有启动过的惰性节点标记为 ABANDON
+    void abandonDormant() {
+        if(activated == null) {
+            return;
+        }
+
+        for (int i = 0; i < plan.size(); i++) {
+            if(plan.isDormant(i) && activated.compareAndSet(i, 0, 1) && tryComplete(i)) {
+                loadContext.getDataLoadResult(i).setStatus(ExecResult.STATUS_ABANDON);
+            }
+            lazyDone(i);
+        }
+    }
+
+    //返回 true 代表抢到了写入这个节点结果的权利
+    boolean tryComplete(int index) {
+        while (true) {
+            int state = completed.get(index);
+            if(state == COMPLETED) {
+                return false;
+            }
+            //执行方正在写开始时间和状态，只有两次赋值，等它写完再由自己写结果，避免结果被覆盖
+            if(state == STARTING) {
+                Thread.yield();
+                continue;
+            }
+            if(completed.compareAndSet(index, state, COMPLETED)) {
+                return true;
+            }
+        }
+    }
+
+    boolean isCompleted(int index) {
+        return completed.get(index) == COMPLETED;
+    }
+
+    /**
+     * 抢占节点的开始，成功后写入开始时间和状态，再调用 {@link #markStarted}
+     *
+     * @return false 代表节点已经被取消或兜底，结果已经由对方写好
+     */
+    boolean tryStart(int index) {
+        return completed.compareAndSet(index, PENDING, STARTING);
+    }
+
+    void markStarted(int index) {
+        completed.set(index, STARTED);
+    }
+
+    //记录节点拿到了自适应并发上限
+    void holdLimit(int index) {
+        //nanoTime 可能为 0 或负数，只需要和 0 区分
+        long now = System.nanoTime();
+        limitAcquireTimes.set(index, now == 0 ? 1 : now);
+    }
+
+    /**
+     * 归还节点占用的自适应并发上限，多次调用只归还一次
+     *
+     * @param sample 是否把这次调用记入耗时统计，被取消的调用不记录
+     * @param dropped 调用是否失败
+     */
+    void releaseLimit(int index, boolean sample, boolean dropped) {
+        if(limitAcquireTimes == null) {
+            return;
+        }
+
+        long acquireTime = limitAcquireTimes.getAndSet(index, 0);
+        if(acquireTime == 0) {
+            return;
+        }
+
+        if(sample) {
+            plan.getLimiter(index).release(System.nanoTime() - acquireTime, dropped);
+        } else {
+            plan.getLimiter(index).release();
+        }
+    }
+
+    //节点在线程池上执行，配置了隔离舱专用线程池时使用专用线程池
+    Executor executor(int index) {
+        Executor nodeExecutor = plan.getExecutor(index);
+        return nodeExecutor == null ? executor : nodeExecutor;
+    }
+
+    //记录节点拿到了隔离舱的并发数
+    void holdBulkhead(int index) {
+        bulkheadPermits.set(index, 1);
+    }
+
+    //归还节点占用的隔离舱并发数，多次调用只归还一次
+    void releaseBulkhead(int index) {
+        if(bulkheadPermits != null && bulkheadPermits.compareAndSet(index, 1, 0)) {
+            plan.getBulkhead(index).release();
+        }
+    }
+
+    /**
+     * 当前线程开始执行同步节点
+     *
+     * @return 已经被取消时返回 null
+     */
+    NodeRun beginRun(int index) {
+        beginAttempt(index);
+        NodeRun run = new NodeRun(Thread.currentThread(), plan.getDataLoader(index).interruptible());
+        cancellers.set(index, run);
+        if(isCompleted(index)) {
+            run.end();
+            endAttempt(index);
+            return null;
+        }
+        return run;
+    }
+
+    //节点开始一次调用，包括重试和对冲调用
+    void beginAttempt(int index) {
+        if(attempts != null) {
+            attempts.incrementAndGet(index);
+        }
+    }
+
+    //调用返回，节点已经有结果时由最后返回的调用归还并发数
+    void endAttempt(int index) {
+        if(attempts != null && attempts.decrementAndGet(index) == 0 && isCompleted(index)) {
+            releasePermits(index);
+        }
+    }
+
+    /**
+     * 节点有结果后归还隔离舱和自适应并发上限，还有调用没有返回时由它返回时归还，
+     * 超时兜底或被取消的调用仍然占用着下游，不能提前放行新的调用
+     */
+    void releasePermits(int index) {
+        if(attempts != null && attempts.get(index) > 0) {
+            return;
+        }
+
+        ExecResult execResult = loadContext.getDataLoadResult(index);
+        releaseBulkhead(index);
+        //被取消的调用不记入耗时统计
+        releaseLimit(index, execResult.getStatus() != ExecResult.STATUS_ABANDON, ! execResult.isSuccess());
+    }
+
+    /**
+     * 设置正在执行的节点的取消动作，已经被取消时立即执行
+     */
+    void setCanceller(int index, Runnable canceller) {
+        cancellers.set(index, canceller);
+        if(isCompleted(index)) {
+            canceller.run();
+        }
+    }
+
+    Flight getFlight(int index) {
+        Flight[] flights = this.flights;
+        return flights == null ? null : flights[index];
+    }
+
+    //每个位置只被对应节点的任务读写，只有数组的创建需要加锁
+    void setFlight(int index, Flight flight) {
+        Flight[] flights = this.flights;
+        if(flights == null) {
+            synchronized (this) {
+                flights = this.flights;
+                if(flights == null) {
+                    flights = new Flight[plan.size()];
+                    this.flights = flights;
+                }
+            }
+        }
+        flights[index] = flight;
+    }
+
+    /**
+     * 依赖组内的一个依赖完成，只有凑够成功数或者失败多到凑不够的那一次返回非 PENDING，之后完成的依赖都返回 PENDING
+     */
+    QuorumState reportToQuorum(int group, boolean success) {
+        int required = plan.getQuorumRequired(group);
+        if(success) {
+            return quorumSuccesses.incrementAndGet(group) == required ? QuorumState.REACHED : QuorumState.PENDING;
+        }
+
+        int tolerated = plan.getQuorumSources(group).length - required;
+        return quorumFailures.incrementAndGet(group) == tolerated + 1 ? QuorumState.FAILED : QuorumState.PENDING;
+    }
+
+    //节点是否已经启动，没有被读取过的惰性节点不算
+    boolean isActive(int index) {
+        return activated == null || ! plan.isDormant(index) || activated.get(index) == 1;
+    }
+
+    //返回 true 代表这个节点的依赖已经全部完成
+    boolean removeDependencyAndIsReady(int index) {
+        return waitingForNums.decrementAndGet(index) == 0;
+    }
+
+    void taskDone() {
+        if(remainingTasks.decrementAndGet() == 0) {
+            graphDone.complete(null);
+        }
+    }
+
+    //发生致命错误，不再等待剩余节点
+    void fatal(Throwable throwable) {
+        exceptionRef.set(throwable);
+        loadContext.getCancellationToken().cancel(throwable);
+        graphDone.complete(null);
+    }
+
+    /**
+     * 取消本次执行，还没有结果的节点全部标记为 ABANDON，正在执行的节点尽量中断，之后完成的结果直接丢弃
+     * 由 CancellationToken 回调，每次执行只会调用一次
+     */
+    void cancel(Throwable reason) {
+        exceptionRef.compareAndSet(null, reason);
+        for (int i = 0; i < plan.size(); i++) {
+            abandon(i, reason);
+        }
+
+        for (int i = 0; i < plan.size(); i++) {
+            lazyDone(i);
+        }
+
+        for(CompletableFuture<?> extraTask : loadContext.getExtraTasks()) {
+            extraTask.cancel(true);
+        }
+        graphDone.complete(null);
+    }
+
+    /**
+     * 把还没有结果的节点标记为 ABANDON，正在执行的节点尽量中断，之后完成的结果直接丢弃
+     *
+     * @return false 代表节点已经有结果
+     */
+    boolean abandon(int index, Throwable reason) {
+        if(! tryComplete(index)) {
+            return false;
+        }
+
+        if(timeoutFutures != null && timeoutFutures[index] != null) {
+            timeoutFutures[index].cancel(false);
+        }
+        loadContext.getDataLoadResult(index).setStatus(ExecResult.STATUS_ABANDON);
+        Flight flight = getFlight(index);
+        if(flight != null) {
+            SingleFlight.abandon(plan.getName(index), flight.key, flight.future, reason);
+        }
+        interrupt(index);
+        releasePermits(index);
+        return true;
+    }
+
+    //中断正在执行的调用，同步节点中断执行线程，异步节点取消返回的 future
+    void interrupt(int index) {
+        Runnable canceller = cancellers.get(index);
+        if(canceller != null) {
+            canceller.run();
+        }
+    }
+
+    enum QuorumState {
+        PENDING,
+        REACHED,
+        FAILED
+    }
+
+    static class Flight {
+
+        final Object key;
+
+        final CompletableFuture<ExecResult> future;
+
+        Flight(Object key, CompletableFuture<ExecResult> future) {
+            this.key = key;
+            this.future = future;
+        }
+    }
+
+}
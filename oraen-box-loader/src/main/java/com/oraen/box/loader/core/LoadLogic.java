@@ -4,87 +4,52 @@ import com.oraen.box.loader.DataLoader;
 import com.oraen.box.loader.ExecResult;
 import com.oraen.box.loader.LoaderHook;
 import com.oraen.box.loader.RetryCommand;
-import com.oraen.box.common.util.CollectionUtil;
-import com.oraen.box.common.util.ListUtil;
 import com.oraen.box.loader.*;
+import com.oraen.box.loader.cache.CachePolicy;
+import com.oraen.box.loader.cache.LoaderCache;
+import com.oraen.box.loader.cache.LoaderCaches;
+import com.oraen.box.loader.cache.SingleFlight;
+import com.oraen.box.loader.executor.PrioritizedTask;
+import com.oraen.box.loader.resilience.AdaptiveLimiter;
+import com.oraen.box.loader.resilience.Bulkhead;
+import com.oraen.box.loader.resilience.BulkheadFullException;
+import com.oraen.box.loader.resilience.CircuitBreaker;
+import com.oraen.box.loader.resilience.CircuitBreakerOpenException;
+import com.oraen.box.loader.resilience.CircuitState;
+import com.oraen.box.loader.resilience.HedgeBudget;
+import com.oraen.box.loader.resilience.HedgePolicy;
+import com.oraen.box.loader.resilience.LimitExceededException;
+import com.oraen.box.loader.resilience.OverflowPolicy;
+import com.oraen.box.loader.resilience.RetryBackoff;
+import com.oraen.box.loader.resilience.RetryBudget;
 
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class LoadLogic {
 
-    static private  final List<LoaderHook> EMPTY_HOOKS = new ArrayList<>();
+    static private  final LoaderHook[] EMPTY_HOOKS = new LoaderHook[0];
 
-    public static Throwable exec(CommonLoadContext loadContext, Executor executor, long execTimeout, Collection<? extends LoaderHook> hooks) {
-        if(hooks == null) {
-            hooks = EMPTY_HOOKS;
-        }
+    //最近执行耗时低于这个值的 AUTO 节点直接在完成依赖的线程上执行
+    private static final long INLINE_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(5);
 
-        long startTime = System.currentTimeMillis();
-        loadContext.setExecutor(executor);
-        List<DataLoader<?>> dataLoaders = loadContext.getDataLoaders();
-        //准备提交的任务
-        Map<String, DataLoadTask> dataLoaderTaskMap = new HashMap<>(dataLoaders.size());
-        CountDownLatch waitingTasks = new CountDownLatch(dataLoaders.size());
-        AtomicReference<Throwable> exceptionRef = new AtomicReference<>(null);
-        //主线程
-        Thread mainThread = Thread.currentThread();
-
-        //初始化任务和环境
-        for (DataLoader<?> dataLoader : dataLoaders) {
-            String name = dataLoader.name();
-            ExecResult result = ExecResult.builder()
-                    .status(ExecResult.STATUS_INIT)
-                    .build();
-            loadContext.saveDataLoadResult(name, result);
-            DataLoadTask task = new DataLoadTask(name);
-            DataLoadTask old = dataLoaderTaskMap.put(name, task);
-            if(old != null) {
-                throw new IllegalStateException("DataLoader name must be unique, but found duplicate: " + name);
-            }
-        }
-
-        loadContext.setDataLoaderTaskMap(dataLoaderTaskMap);
-
-        //构建任务之间的依赖关系，并且准备执行
-        for (DataLoader<?> dataLoader : dataLoaders) {
-            String name = dataLoader.name();
-            DataLoadTask dataLoadTask = dataLoaderTaskMap.get(name);
-            List<String> dependencies = dataLoader.dependencies();
-            if(dependencies != null) {
-                dependencies.forEach(dependency -> {
-                    DataLoadTask dependencyTask = dataLoaderTaskMap.get(dependency);
-                    dataLoadTask.addDependency(dependencyTask);
-                });
-            }
-
-            ExecResult execResult = loadContext.getDataLoadResult(name);
-            execResult.setStatus(ExecResult.STATUS_WAITING);
-        }
-
-        List<LoaderHook> reverseHooks = new ArrayList<>(hooks);
-        Collections.reverse(reverseHooks);
-        for(LoaderHook hook : hooks) {
-            hook.beforeLoad(loadContext);
-        }
+    //连续内联的最大层数，超过后提交到线程池，避免长链路把调用栈压得太深
+    private static final int MAX_INLINE_DEPTH = 16;
 
-        //先执行没有依赖的任务
-        for(Map.Entry<String, DataLoadTask> entry : dataLoaderTaskMap.entrySet()) {
-            DataLoadTask dataLoadTask = entry.getValue();
-            //如果没有依赖，直接提交任务
-            if(dataLoadTask.isReady()) {
-                submitTask(dataLoadTask, loadContext, executor, waitingTasks, mainThread, exceptionRef, hooks, reverseHooks);
-            }
-        }
+    private static final ThreadLocal<int[]> INLINE_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
 
+    public static Throwable exec(CommonLoadContext loadContext, Executor executor, long execTimeout, Collection<? extends LoaderHook> hooks) {
+        LoadExecution execution = start(loadContext, executor, execTimeout, hooks);
+        long startTime = execution.startTime;
         try {
-            boolean re = waitingTasks.await(execTimeout - (System.currentTimeMillis() - startTime), TimeUnit.MILLISECONDS);
-
-            if(! re){
+            try {
+                execution.graphDone.get(execTimeout - (System.currentTimeMillis() - startTime), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
                 TimeoutException timeoutException = new TimeoutException("DataLoader execution timed out after " + execTimeout + " milliseconds");
-                exceptionRef.set(timeoutException);
+                execution.exceptionRef.set(timeoutException);
+                //超时后不再调度剩余节点，并中断正在执行的节点
+                loadContext.getCancellationToken().cancel(timeoutException);
             }
 
             boolean allExtraTaskDone = false;
@@ -107,164 +72,1106 @@ public class LoadLogic {
             }
 
         } catch (InterruptedException e) {
-            if(exceptionRef.get() == null){
-                exceptionRef.set(e);
+            if(execution.exceptionRef.get() == null){
+                execution.exceptionRef.set(e);
             }
         }catch (Exception e){
-            exceptionRef.set(e);
+            execution.exceptionRef.set(e);
         }finally {
-            Throwable throwable = exceptionRef.get();
-            long endTime = System.currentTimeMillis();
-            loadContext.setEndTime(endTime);
-            loadContext.setStartTime(startTime);
-            loadContext.setExeTime(endTime - startTime);
-            loadContext.setThrowable(throwable);
-            loadContext.setSuccess(throwable == null);
-
-            for(LoaderHook hook : reverseHooks) {
-                if(throwable != null){
-                    hook.onFinalExceptionCaught(throwable, loadContext);
-                }
+            finish(execution);
+        }
+        return execution.exceptionRef.get();
+
+    }
 
-                hook.afterLoad(loadContext);
+    /**
+     * 非阻塞执行，调用线程只负责提交没有依赖的任务，由最后完成的任务或者超时定时器完成返回的 future
+     *
+     * @return 完成时携带最终异常，执行成功时为 null
+     */
+    public static CompletableFuture<Throwable> execAsync(CommonLoadContext loadContext, Executor executor, long execTimeout, Collection<? extends LoaderHook> hooks) {
+        LoadExecution execution = start(loadContext, executor, execTimeout, hooks);
+        CompletableFuture<Void> allDone = new CompletableFuture<>();
+        //超时后交给线程池完成，收尾和钩子函数不能占用共享的定时器线程
+        Runnable onTimeout = () -> {
+            TimeoutException timeoutException = new TimeoutException("DataLoader execution timed out after " + execTimeout + " milliseconds");
+            if(allDone.completeExceptionally(timeoutException)) {
+                loadContext.getCancellationToken().cancel(timeoutException);
             }
+        };
+        ScheduledFuture<?> timeoutFuture = LoadTimer.schedule(() -> {
+            try {
+                executor.execute(onTimeout);
+            } catch (RejectedExecutionException e) {
+                onTimeout.run();
+            }
+        }, execTimeout - (System.currentTimeMillis() - execution.startTime), TimeUnit.MILLISECONDS);
+
+        execution.graphDone.thenRun(() -> awaitExtraTasks(loadContext, allDone));
+
+        return allDone.handle((v, e) -> {
+            timeoutFuture.cancel(false);
+            if(e != null) {
+                execution.exceptionRef.set(e);
+            }
+            finish(execution);
+            return execution.exceptionRef.get();
+        });
+    }
+
+    private static LoadExecution start(CommonLoadContext loadContext, Executor executor, long execTimeout, Collection<? extends LoaderHook> hooks) {
+        LoaderHook[] hookArray = hooks == null ? EMPTY_HOOKS : hooks.toArray(EMPTY_HOOKS);
+        LoaderHook[] reverseHooks = new LoaderHook[hookArray.length];
+        for (int i = 0; i < hookArray.length; i++) {
+            reverseHooks[i] = hookArray[hookArray.length - 1 - i];
+        }
+
+        loadContext.setExecutor(executor);
+        LoadExecution execution = new LoadExecution(loadContext, executor, hookArray, reverseHooks, System.currentTimeMillis());
+        loadContext.setDeadline(execution.startTime + execTimeout);
+        loadContext.setStartNanos(System.nanoTime());
+        ExecutionPlan plan = execution.plan;
+
+        //初始化每个节点的执行结果
+        for (int i = 0; i < plan.size(); i++) {
+            ExecResult result = new ExecResult();
+            result.setStatus(ExecResult.STATUS_WAITING);
+            loadContext.saveDataLoadResult(i, result);
+        }
 
+        for(LoaderHook hook : hookArray) {
+            hook.beforeLoad(loadContext);
         }
-        return exceptionRef.get();
 
+        loadContext.getCancellationToken().onCancel(execution::cancel);
+        loadContext.setExecution(execution);
+
+        //先执行没有依赖的任务，剩余路径长的先提交，惰性节点等到被读取时再执行
+        for(int index : execution.pathEstimate.getRootsByPriority()) {
+            if(! plan.isDormant(index)) {
+                submitTask(execution, index);
+            }
+        }
+        return execution;
     }
 
-    private static void submitTask(DataLoadTask dataLoadTask, CommonLoadContext loadContext, Executor executor,
-                                   CountDownLatch countDownLatch, Thread mainThread, AtomicReference<Throwable> exceptionRef,
-                                   Collection<? extends LoaderHook> hooks, Collection<? extends LoaderHook> reverseHooks) {
-        String name = dataLoadTask.getName();
-        DataLoader<?> dataLoader = loadContext.getDataLoader(name);
-        if(dataLoader.needLoad(loadContext) && exceptionRef.get() == null) {
-            dataLoadTask.setExecutor(() -> {
-                ExecResult execResult = loadContext.getDataLoadResult(name);
-                execResult.setStatus(ExecResult.STATUS_EXECUTING);
-                long startTime = System.currentTimeMillis();
-                try{
-                    //钩子函数
-                    for(LoaderHook hook : hooks) {
-                        hook.beforeExec(dataLoader.name(), loadContext);
-                    }
-                    Object re = null;
-                    //重试逻辑
-                    int currentRetry = 0;
-                    int maxRetry = dataLoader.maxRetry();
-                    while(true){
-                        currentRetry ++;
-                        int currentRetry0 = currentRetry;
-                        execResult.setRetry(currentRetry0);
-                        try{
-                            re = dataLoader.getData(loadContext);
-                            break;
-                        }catch (Throwable t){
-                            for(LoaderHook hook : hooks) {
-                                hook.onEveryError(dataLoader.name(), loadContext, t, LoaderHook.RunPoi.NORMAL);
-                            }
-
-                            //多个重试拦截器优先级RETRY > GIVE_UP > KEEP
-                            List<RetryCommand> retryCommands = ListUtil.of(dataLoader.needRetry(loadContext, t));
-                            retryCommands
-                                    .addAll(reverseHooks.stream()
-                                            .map(hook -> hook.onMaybeNeedRetry(dataLoader.name(), t, currentRetry0, maxRetry, loadContext))
-                                            .collect(Collectors.toList()));
-
-                            boolean shouldRetry = shouldRetry(retryCommands, currentRetry, maxRetry);
-                            if(shouldRetry){
-                                continue;
-                            }else{
-                                throw t;
-                            }
-                        }
-                    }
+    //额外任务可能继续提交额外任务，所以每批完成后都要重新检查一次
+    private static void awaitExtraTasks(CommonLoadContext loadContext, CompletableFuture<Void> allDone) {
+        if(allDone.isDone()) {
+            return;
+        }
 
-                    execResult.setResult(re);
-                    execResult.setStatus(ExecResult.STATUS_SUCCESS);
-                    execResult.setSuccess(true);
-                }catch (Throwable e) {
-                    execResult.setException(e);
-                    execResult.setUseFallback(true);
-                    try{
-                        for(LoaderHook hook : hooks) {
-                            hook.beforeFallback(dataLoader.name(), e, loadContext);
-                        }
-
-                        Object re = dataLoader.fallback(loadContext, e);
-
-                        for(LoaderHook hook : reverseHooks){
-                            hook.afterFallback(dataLoader.name(), e, loadContext, execResult);
-                        }
-                        execResult.setResult(re);
-                        execResult.setStatus(ExecResult.STATUS_FALLBACK);
-                    }catch (Throwable e1) {
-                        execResult.setStatus(ExecResult.STATUS_ERROR);
-                        for(LoaderHook hook : hooks) {
-                            hook.onEveryError(dataLoader.name(), loadContext, e1, LoaderHook.RunPoi.FALLBACK);
-                        }
-
-                        execResult.setException(e1);
-                        exceptionRef.set(e1);
-                        //兜底方法异常时代表发生致命错误，中断主线程
-                        mainThread.interrupt();
-                    }
-                }finally {
-                    long endTime = System.currentTimeMillis();
-                    countDownLatch.countDown();
-                    execResult.setCompleted(true);
-                    execResult.setExecTime(endTime - startTime);
-
-                    //钩子函数
-                    for(LoaderHook hook : reverseHooks) {
-                        hook.afterExec(dataLoader.name(), loadContext, execResult);
-                    }
-                    //通知依赖这个任务的任务，并且符合条件时把他们提交到线程池尽可能避免线程切换
-                    for(DataLoadTask waitingTask : dataLoadTask.getWaitingTasks()){
-                        if(waitingTask.removeDependencyAndIsReady()) {
-                            submitTask(waitingTask, loadContext, executor, countDownLatch, mainThread, exceptionRef, hooks, reverseHooks);
-                        }
-                    }
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        for(CompletableFuture<?> extraTask : loadContext.getExtraTasks()){
+            if(! extraTask.isDone()){
+                pending.add(extraTask);
+            }
+        }
 
-                }
-            });
-            executor.execute(dataLoadTask.getExecutor());
+        if(pending.isEmpty()) {
+            allDone.complete(null);
+            return;
+        }
+
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).whenComplete((v, e) -> {
+            if(e != null) {
+                allDone.completeExceptionally(e);
+            } else {
+                awaitExtraTasks(loadContext, allDone);
+            }
+        });
+    }
+
+    private static void finish(LoadExecution execution) {
+        CommonLoadContext loadContext = execution.loadContext;
+        execution.abandonDormant();
+        Throwable throwable = execution.exceptionRef.get();
+        long endTime = System.currentTimeMillis();
+        loadContext.setEndNanos(System.nanoTime());
+        loadContext.setEndTime(endTime);
+        loadContext.setStartTime(execution.startTime);
+        loadContext.setExeTime(endTime - execution.startTime);
+        loadContext.setThrowable(throwable);
+        loadContext.setSuccess(throwable == null);
+
+        for(LoaderHook hook : execution.reverseHooks) {
+            if(throwable != null){
+                hook.onFinalExceptionCaught(throwable, loadContext);
+            }
+
+            hook.afterLoad(loadContext);
+        }
+    }
+
+    private static void submitTask(LoadExecution execution, int index) {
+        submitTask(execution, index, false);
+    }
+
+    /**
+     * @param inline 是否在当前线程直接执行，调用方需要先用 canInline 判断
+     */
+    private static void submitTask(LoadExecution execution, int index, boolean inline) {
+        CommonLoadContext loadContext = execution.loadContext;
+        DataLoader<?> dataLoader = execution.plan.getDataLoader(index);
+        //凑够依赖组后被取消的节点，已经在取消时通知过依赖它的节点
+        if(execution.isCompleted(index)) {
+            return;
+        }
+
+        if(dataLoader.needLoad(loadContext) && execution.exceptionRef.get() == null) {
+            loadContext.getDataLoadResult(index).setSubmitNanos(System.nanoTime());
+            if(inline && runInline(execution, index)) {
+                return;
+            }
+            AdaptiveLimiter limiter = execution.plan.getLimiter(index);
+            if(limiter == null) {
+                dispatch(execution, index);
+            } else {
+                submitToLimiter(execution, index, limiter);
+            }
         } else {
-            countDownLatch.countDown();
-            ExecResult execResult = loadContext.getDataLoadResult(name);
+            execution.taskDone();
+            ExecResult execResult = loadContext.getDataLoadResult(index);
             execResult.setStatus(ExecResult.STATUS_ABANDON);
+            execution.lazyDone(index);
             //这个任务不需要执行，也需要提醒依赖这个服务的任务执行
-            for(DataLoadTask waitingTask : dataLoadTask.getWaitingTasks()){
-                if(waitingTask.removeDependencyAndIsReady()) {
-                    submitTask(waitingTask, loadContext, executor, countDownLatch, mainThread, exceptionRef, hooks, reverseHooks);
+            notifyDependents(execution, index, inline);
+        }
+    }
+
+    /**
+     * 启动惰性节点和它还没启动的惰性依赖，依赖提交到线程池并行执行
+     *
+     * @param inline 节点已经可以执行时是否在当前线程直接执行，等待结果的线程反正要阻塞
+     */
+    static void activate(LoadExecution execution, int index, boolean inline) {
+        if(! execution.tryActivate(index)) {
+            return;
+        }
+
+        for(int dependency : execution.plan.getDependencies(index)) {
+            activate(execution, dependency, false);
+        }
+        if(execution.removeDependencyAndIsReady(index)) {
+            submitTask(execution, index, inline && execution.plan.getInlineMode(index) != InlineMode.NEVER);
+        }
+    }
+
+    //读取惰性节点的结果，还没启动时启动并等待它完成
+    static void awaitLazy(LoadExecution execution, int index) {
+        activate(execution, index, true);
+        execution.awaitLazy(index);
+    }
+
+    //返回 false 代表内联层数已满，需要提交到线程池
+    private static boolean runInline(LoadExecution execution, int index) {
+        int[] depth = INLINE_DEPTH.get();
+        if(depth[0] >= MAX_INLINE_DEPTH) {
+            return false;
+        }
+
+        depth[0]++;
+        try {
+            runTask(execution, index);
+        } finally {
+            depth[0]--;
+        }
+        return true;
+    }
+
+    //配置了隔离舱或并发上限的节点在编译执行计划时已经固定为 NEVER
+    private static boolean canInline(LoadExecution execution, int index) {
+        switch (execution.plan.getInlineMode(index)) {
+            case ALWAYS:
+                return true;
+            case NEVER:
+                return false;
+            default:
+                return execution.plan.getLatencyStats(index).isCheap(INLINE_THRESHOLD_NANOS);
+        }
+    }
+
+    private static void dispatch(LoadExecution execution, int index) {
+        Bulkhead bulkhead = execution.plan.getBulkhead(index);
+        if(bulkhead == null) {
+            execution.executor(index).execute(new NodeTask(execution, index));
+        } else {
+            submitToBulkhead(execution, index, bulkhead);
+        }
+    }
+
+    //超过自适应并发上限时等待一小段时间，仍然拿不到就兜底
+    private static void submitToLimiter(LoadExecution execution, int index, AdaptiveLimiter limiter) {
+        long maxWaitMillis = Math.min(execution.plan.getLimitWaitMillis(index), execution.loadContext.remainingBudget());
+        limiter.acquire(maxWaitMillis, () -> {
+            execution.holdLimit(index);
+            try {
+                dispatch(execution, index);
+            } catch (RejectedExecutionException e) {
+                execution.releaseLimit(index, false, false);
+                fallback(execution, index, e, System.currentTimeMillis());
+            }
+        }, () -> {
+            LimitExceededException e = new LimitExceededException(execution.plan.getName(index), limiter.getLimit());
+            try {
+                execution.executor(index).execute(() -> fallback(execution, index, e, System.currentTimeMillis()));
+            } catch (RejectedExecutionException e1) {
+                fallback(execution, index, e, System.currentTimeMillis());
+            }
+        });
+    }
+
+    private static void submitToBulkhead(LoadExecution execution, int index, Bulkhead bulkhead) {
+        if(bulkhead.tryAcquire()) {
+            runInBulkhead(execution, index);
+            return;
+        }
+
+        OverflowPolicy overflowPolicy = execution.plan.getOverflowPolicy(index);
+        if(overflowPolicy == OverflowPolicy.QUEUE) {
+            if(bulkhead.enqueue(() -> runInBulkhead(execution, index))) {
+                return;
+            }
+        } else {
+            bulkhead.recordRejected();
+        }
+
+        BulkheadFullException e = new BulkheadFullException(bulkhead.getName());
+        if(overflowPolicy == OverflowPolicy.REJECT) {
+            reject(execution, index, e);
+        } else {
+            fallback(execution, index, e, System.currentTimeMillis());
+        }
+    }
+
+    //拿到隔离舱的并发数后提交到线程池，排队的节点在其他节点归还并发数的线程上调用
+    private static void runInBulkhead(LoadExecution execution, int index) {
+        execution.holdBulkhead(index);
+        try {
+            execution.executor(index).execute(new NodeTask(execution, index));
+        } catch (RejectedExecutionException e) {
+            execution.releaseBulkhead(index);
+            fallback(execution, index, e, System.currentTimeMillis());
+        }
+    }
+
+    //不兜底，直接作为致命错误结束整个请求
+    private static void reject(LoadExecution execution, int index, Throwable e) {
+        if(! execution.tryComplete(index)) {
+            return;
+        }
+
+        CommonLoadContext loadContext = execution.loadContext;
+        ExecResult execResult = loadContext.getDataLoadResult(index);
+        execResult.setException(e);
+        execResult.setStatus(ExecResult.STATUS_ERROR);
+        for(LoaderHook hook : execution.hooks) {
+            hook.onEveryError(execution.plan.getName(index), loadContext, e, LoaderHook.RunPoi.NORMAL);
+        }
+        execution.fatal(e);
+        finishTask(execution, index, System.currentTimeMillis());
+    }
+
+    private static void runTask(LoadExecution execution, int index) {
+        CommonLoadContext loadContext = execution.loadContext;
+        String name = execution.plan.getName(index);
+        ExecResult execResult = loadContext.getDataLoadResult(index);
+        //提交后才被取消，结果已经由取消方写好，不能再覆盖开始时间和状态
+        if(! execution.tryStart(index)) {
+            execution.releasePermits(index);
+            return;
+        }
+
+        //写入期间取消方会等待，写完后才能写入它的结果
+        execResult.setStartNanos(System.nanoTime());
+        execResult.setStatus(ExecResult.STATUS_EXECUTING);
+        execution.markStarted(index);
+
+        long startTime = System.currentTimeMillis();
+        try{
+            //钩子函数
+            for(LoaderHook hook : execution.hooks) {
+                hook.beforeExec(name, loadContext);
+            }
+
+            if(execution.cacheKeys != null && loadFromCache(execution, index, startTime)) {
+                return;
+            }
+
+            //熔断时不调用 DataLoader，直接兜底
+            CircuitBreaker circuitBreaker = execution.plan.getCircuitBreaker(index);
+            if(circuitBreaker != null && ! circuitBreaker.tryAcquirePermission(execution.circuitListener)) {
+                throw new CircuitBreakerOpenException(name);
+            }
+
+            //按历史耗时估计剩余时间不够用，直接兜底
+            long expectedLatency = execution.plan.getLatencyStats(index).expectedLatency();
+            long remainingBudget = loadContext.remainingBudget();
+            if(expectedLatency > remainingBudget) {
+                throw new TimeoutException("DataLoader " + name + " skipped, expected latency " + expectedLatency
+                        + " milliseconds exceeds remaining budget " + remainingBudget + " milliseconds");
+            }
+
+            if(execution.timeoutFutures != null) {
+                scheduleTimeout(execution, index, startTime);
+            }
+
+            if(joinFlight(execution, index, startTime)) {
+                return;
+            }
+        }catch (Throwable e){
+            fallback(execution, index, e, startTime);
+            return;
+        }
+
+        attempt(execution, index, 1, startTime);
+    }
+
+    private static void attempt(LoadExecution execution, int index, int currentRetry, long startTime) {
+        CommonLoadContext loadContext = execution.loadContext;
+        DataLoader<?> dataLoader = execution.plan.getDataLoader(index);
+        ExecResult execResult = loadContext.getDataLoadResult(index);
+        //重试逻辑
+        while(true){
+            //已经超时兜底，不再继续重试
+            if(execution.isCompleted(index)) {
+                return;
+            }
+
+            execResult.setRetry(currentRetry);
+            HedgePolicy hedgePolicy = dataLoader.hedgePolicy();
+            if(hedgePolicy != null) {
+                attemptHedged(execution, index, hedgePolicy, currentRetry, startTime);
+                return;
+            }
+
+            if(dataLoader instanceof AsyncDataLoader) {
+                attemptAsync(execution, index, (AsyncDataLoader<?>) dataLoader, currentRetry, startTime);
+                return;
+            }
+
+            NodeRun run = execution.beginRun(index);
+            if(run == null) {
+                return;
+            }
+
+            Object re;
+            try{
+                re = dataLoader.getData(loadContext);
+            }catch (Throwable t){
+                run.end();
+                execution.endAttempt(index);
+                long retryDelay = retryOrFallback(execution, index, currentRetry, t, startTime);
+                if(retryDelay < 0) {
+                    return;
+                }
+
+                currentRetry ++;
+                //需要等待时交给定时器，释放当前线程
+                if(retryDelay > 0) {
+                    retry(execution, index, currentRetry, startTime, retryDelay);
+                    return;
                 }
+                continue;
+            }
+
+            run.end();
+            execution.endAttempt(index);
+            success(execution, index, re, startTime);
+            return;
+        }
+    }
+
+    //异步节点在 stage 完成后再继续，等待期间不占用线程
+    private static void attemptAsync(LoadExecution execution, int index, AsyncDataLoader<?> dataLoader, int currentRetry, long startTime) {
+        CompletionStage<?> stage;
+        execution.beginAttempt(index);
+        try{
+            stage = dataLoader.getDataAsync(execution.loadContext);
+            if(stage == null) {
+                throw new IllegalStateException("AsyncDataLoader " + dataLoader.name() + " returned a null stage");
+            }
+        }catch (Throwable t){
+            CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(t);
+            stage = failed;
+        }
+
+        try{
+            CompletableFuture<?> future = stage.toCompletableFuture();
+            execution.setCanceller(index, () -> future.cancel(true));
+        }catch (UnsupportedOperationException e){
+            //不支持转换的 stage 无法取消，只能丢弃之后的结果
+        }
+
+        stage.whenComplete((re, t) -> {
+            execution.endAttempt(index);
+            if(t == null) {
+                success(execution, index, re, startTime);
+                return;
             }
+
+            //重试和兜底可能比较耗时，交回线程池执行，不占用完成 stage 的线程
+            Throwable cause = unwrap(t);
+            executeOrRun(execution, index, () -> {
+                long retryDelay = retryOrFallback(execution, index, currentRetry, cause, startTime);
+                if(retryDelay >= 0) {
+                    retry(execution, index, currentRetry + 1, startTime, retryDelay);
+                }
+            });
+        });
+    }
+
+    //第一次调用在当前线程执行，超过对冲延迟还没有返回时在线程池发起对冲调用
+    private static void attemptHedged(LoadExecution execution, int index, HedgePolicy hedgePolicy, int currentRetry, long startTime) {
+        HedgedAttempt hedged = new HedgedAttempt();
+        execution.setCanceller(index, hedged);
+        HedgeBudget.recordCall();
+        long hedgeDelay = hedgePolicy.getDelayMillis() > 0
+                ? hedgePolicy.getDelayMillis()
+                : execution.plan.getLatencyStats(index).percentile(hedgePolicy.getPercentile());
+        if(hedgeDelay > 0 && hedgePolicy.getMaxHedges() > 0) {
+            hedged.hedgeTimer = LoadTimer.schedule(() -> hedge(execution, index, hedged, hedgePolicy, hedgeDelay, currentRetry, startTime),
+                    hedgeDelay, TimeUnit.MILLISECONDS);
         }
+
+        runHedged(execution, index, hedged, currentRetry, startTime);
     }
 
-    //多个重试拦截器优先级RETRY > GIVE_UP > KEEP
-    private static boolean shouldRetry(List<RetryCommand> retryCommands, int currentRetry, int maxRetry){
-        if(CollectionUtil.isEmpty(retryCommands)){
-            return maxRetry > currentRetry;
+    //在定时器线程执行，只负责提交对冲调用
+    private static void hedge(LoadExecution execution, int index, HedgedAttempt hedged, HedgePolicy hedgePolicy, long hedgeDelay, int currentRetry, long startTime) {
+        if(execution.isCompleted(index) || ! HedgeBudget.tryAcquire()) {
+            return;
+        }
+
+        if(! hedged.tryAddHedge()) {
+            return;
+        }
+
+        hedged.hedges++;
+        execution.loadContext.getDataLoadResult(index).setHedge(hedged.hedges);
+        try {
+            execution.executor(index).execute(() -> runHedged(execution, index, hedged, currentRetry, startTime));
+        } catch (RejectedExecutionException e) {
+            onHedgedResult(execution, index, hedged, currentRetry, startTime, null, e);
+            return;
+        }
+
+        if(hedged.hedges < hedgePolicy.getMaxHedges()) {
+            hedged.hedgeTimer = LoadTimer.schedule(() -> hedge(execution, index, hedged, hedgePolicy, hedgeDelay, currentRetry, startTime),
+                    hedgeDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void runHedged(LoadExecution execution, int index, HedgedAttempt hedged, int currentRetry, long startTime) {
+        DataLoader<?> dataLoader = execution.plan.getDataLoader(index);
+        execution.beginAttempt(index);
+        if(dataLoader instanceof AsyncDataLoader) {
+            CompletionStage<?> stage;
+            try{
+                stage = ((AsyncDataLoader<?>) dataLoader).getDataAsync(execution.loadContext);
+                if(stage == null) {
+                    throw new IllegalStateException("AsyncDataLoader " + dataLoader.name() + " returned a null stage");
+                }
+            }catch (Throwable t){
+                execution.endAttempt(index);
+                onHedgedResult(execution, index, hedged, currentRetry, startTime, null, t);
+                return;
+            }
+
+            try{
+                CompletableFuture<?> future = stage.toCompletableFuture();
+                hedged.addCanceller(() -> future.cancel(true));
+            }catch (UnsupportedOperationException e){
+                //不支持转换的 stage 无法取消，只能丢弃之后的结果
+            }
+            stage.whenComplete((re, t) -> {
+                execution.endAttempt(index);
+                onHedgedResult(execution, index, hedged, currentRetry, startTime, re, t == null ? null : unwrap(t));
+            });
+            return;
+        }
+
+        NodeRun run = new NodeRun(Thread.currentThread(), dataLoader.interruptible());
+        hedged.addCanceller(run);
+        Object re = null;
+        Throwable error = null;
+        try{
+            re = dataLoader.getData(execution.loadContext);
+        }catch (Throwable t){
+            error = t;
+        }finally {
+            run.end();
+            execution.endAttempt(index);
+        }
+        onHedgedResult(execution, index, hedged, currentRetry, startTime, re, error);
+    }
+
+    private static void onHedgedResult(LoadExecution execution, int index, HedgedAttempt hedged, int currentRetry, long startTime, Object re, Throwable t) {
+        if(t == null) {
+            if(hedged.win()) {
+                //取消输掉的调用
+                hedged.run();
+                success(execution, index, re, startTime);
+            }
+            return;
+        }
+
+        if(! hedged.failAndIsLast()) {
+            return;
         }
 
-        if(retryCommands.stream().anyMatch(retryCommand -> retryCommand == RetryCommand.RETRY_FORCE)){
+        ScheduledFuture<?> hedgeTimer = hedged.hedgeTimer;
+        if(hedgeTimer != null) {
+            hedgeTimer.cancel(false);
+        }
+        //重试和兜底可能比较耗时，不在完成 stage 的线程执行
+        executeOrRun(execution, index, () -> {
+            long retryDelay = retryOrFallback(execution, index, currentRetry, t, startTime);
+            if(retryDelay >= 0) {
+                retry(execution, index, currentRetry + 1, startTime, retryDelay);
+            }
+        });
+    }
+
+    //超时后中断正在执行的调用，转交线程池执行兜底，兜底和正常返回先到先得
+    private static void scheduleTimeout(LoadExecution execution, int index, long startTime) {
+        long timeoutMillis = execution.plan.getDataLoader(index).timeoutMillis();
+        if(timeoutMillis <= 0) {
+            return;
+        }
+
+        execution.timeoutFutures[index] = LoadTimer.schedule(() -> {
+            //先抢到结果再中断，被中断的调用返回后不会再重试
+            if(! execution.tryComplete(index)) {
+                return;
+            }
+
+            execution.interrupt(index);
+
+            execution.plan.getLatencyStats(index).record(timeoutMillis);
+            CircuitBreaker circuitBreaker = execution.plan.getCircuitBreaker(index);
+            if(circuitBreaker != null) {
+                circuitBreaker.onError(timeoutMillis, execution.circuitListener);
+            }
+            TimeoutException timeoutException = new TimeoutException("DataLoader " + execution.plan.getName(index)
+                    + " timed out after " + timeoutMillis + " milliseconds");
+            try {
+                execution.executor(index).execute(() -> runFallback(execution, index, timeoutException, startTime));
+            } catch (RejectedExecutionException e) {
+                runFallback(execution, index, timeoutException, startTime);
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    //返回 true 代表命中缓存，节点已经完成
+    private static boolean loadFromCache(LoadExecution execution, int index, long startTime) {
+        CommonLoadContext loadContext = execution.loadContext;
+        DataLoader<?> dataLoader = execution.plan.getDataLoader(index);
+        CachePolicy cachePolicy = dataLoader.cachePolicy();
+        if(cachePolicy == null) {
+            return false;
+        }
+
+        Object cacheKey = dataLoader.cacheKey(loadContext);
+        if(cacheKey == null) {
+            return false;
+        }
+
+        LoaderCache<Object, Object> cache = LoaderCaches.getCache(dataLoader.name(), cachePolicy);
+        LoaderCache.Entry<Object, Object> entry = cache.getEntry(cacheKey);
+        if(entry == null) {
+            execution.cacheKeys[index] = cacheKey;
+            return false;
+        }
+
+        //过了刷新时间先返回旧值，同时在后台刷新
+        if(entry.needsRefresh()) {
+            long refreshTimeout = dataLoader.timeoutMillis() > 0 ? dataLoader.timeoutMillis() : cachePolicy.getRefreshAfterWriteMillis();
+            cache.refresh(cacheKey, entry, execution.executor, refreshTimeout, token -> refresh(execution, index, token, refreshTimeout));
+        }
+
+        if(! execution.tryComplete(index)) {
             return true;
         }
 
-        if(retryCommands.stream().anyMatch(retryCommand -> retryCommand == RetryCommand.GIVE_UP_FORCE)){
+        ExecResult execResult = loadContext.getDataLoadResult(index);
+        execResult.setResult(entry.getValue());
+        execResult.setStatus(ExecResult.STATUS_CACHED);
+        execResult.setSuccess(true);
+        finishTask(execution, index, startTime);
+        return true;
+    }
+
+    //后台刷新和正常调用一样占用隔离舱、并发上限和熔断的许可，拿不到就放弃这次刷新，继续使用旧值
+    private static CompletionStage<Object> refresh(LoadExecution execution, int index, CancellationToken token, long timeoutMillis) {
+        DataLoader<?> dataLoader = execution.plan.getDataLoader(index);
+        RefreshPermits permits = new RefreshPermits(execution, index);
+        if(! permits.acquire()) {
+            throw permits.rejection;
+        }
+
+        //超时后刷新被放弃，立即归还许可，不等卡住的调用返回
+        token.onCancel(permits::release);
+        CompletionStage<Object> stage;
+        try {
+            LoadContext refreshContext = new RefreshLoadContext(execution.loadContext, token, timeoutMillis);
+            if(dataLoader instanceof AsyncDataLoader) {
+                stage = (CompletionStage<Object>) ((AsyncDataLoader<?>) dataLoader).getDataAsync(refreshContext);
+            } else {
+                stage = CompletableFuture.completedFuture(dataLoader.getData(refreshContext));
+            }
+        } catch (Throwable t) {
+            permits.release(t);
+            throw t;
+        }
+        if(stage != null) {
+            stage.whenComplete((value, t) -> permits.release(t));
+        } else {
+            permits.release(new IllegalStateException("DataLoader " + execution.plan.getName(index) + " returned a null stage"));
+        }
+        return stage;
+    }
+
+    //返回 true 代表相同的调用正在其他请求中执行，等它完成后直接使用它的结果
+    private static boolean joinFlight(LoadExecution execution, int index, long startTime) {
+        DataLoader<?> dataLoader = execution.plan.getDataLoader(index);
+        Object coalesceKey = dataLoader.coalesceKey(execution.loadContext);
+        if(coalesceKey == null) {
+            return false;
+        }
+
+        CompletableFuture<ExecResult> future = new CompletableFuture<>();
+        CompletableFuture<ExecResult> existing = SingleFlight.join(dataLoader.name(), coalesceKey, future);
+        if(existing == null) {
+            execution.setFlight(index, new LoadExecution.Flight(coalesceKey, future));
             return false;
         }
 
-        if(retryCommands.stream().anyMatch(retryCommand -> retryCommand == RetryCommand.RETRY)){
+        //执行者的线程属于其他请求，回到当前请求的线程池继续
+        existing.whenComplete((shared, t) -> executeOrRun(execution, index, () -> {
+            //执行者被取消，自己重新执行
+            if(t != null) {
+                attempt(execution, index, 1, startTime);
+                return;
+            }
+
+            if(! execution.tryComplete(index)) {
+                return;
+            }
+
+            ExecResult execResult = execution.loadContext.getDataLoadResult(index);
+            execResult.setResult(shared.getResult());
+            execResult.setException(shared.getException());
+            execResult.setSuccess(shared.isSuccess());
+            execResult.setUseFallback(shared.isUseFallback());
+            execResult.setStatus(shared.getStatus());
+            execResult.setRetry(shared.getRetry());
+            execResult.setHedge(shared.getHedge());
+            if(shared.getStatus() == ExecResult.STATUS_ERROR) {
+                execution.fatal(shared.getException());
+            }
+            finishTask(execution, index, startTime);
+        }));
+        return true;
+    }
+
+    //返回重试前需要等待的毫秒数，小于0代表不重试，已经执行了兜底逻辑
+    private static long retryOrFallback(LoadExecution execution, int index, int currentRetry, Throwable t, long startTime) {
+        CommonLoadContext loadContext = execution.loadContext;
+        DataLoader<?> dataLoader = execution.plan.getDataLoader(index);
+        String name = execution.plan.getName(index);
+        if(execution.isCompleted(index)) {
+            return -1L;
+        }
+
+        CircuitBreaker circuitBreaker = execution.plan.getCircuitBreaker(index);
+        if(circuitBreaker != null) {
+            circuitBreaker.onError(System.currentTimeMillis() - startTime, execution.circuitListener);
+        }
+
+        Throwable error = t;
+        try{
+            for(LoaderHook hook : execution.hooks) {
+                hook.onEveryError(name, loadContext, t, LoaderHook.RunPoi.NORMAL);
+            }
+
+            //多个重试拦截器优先级RETRY_FORCE > GIVE_UP_FORCE > RETRY > GIVE_UP > KEEP
+            int maxRetry = dataLoader.maxRetry();
+            RetryCommand retryCommand = dataLoader.needRetry(loadContext, t);
+            for(LoaderHook hook : execution.reverseHooks) {
+                RetryCommand hookCommand = hook.onMaybeNeedRetry(name, t, currentRetry, maxRetry, loadContext);
+                if(priority(hookCommand) > priority(retryCommand)) {
+                    retryCommand = hookCommand;
+                }
+            }
+
+            //预算不足时不再重试，强制重试不受限制
+            RetryBudget retryBudget = execution.plan.getRetryBudget(index);
+            boolean retry = shouldRetry(retryCommand, currentRetry, maxRetry);
+            if(retry && retryBudget != null && retryCommand != RetryCommand.RETRY_FORCE) {
+                retry = retryBudget.tryAcquire();
+            }
+
+            //已经熔断，不再重试
+            if(retry && circuitBreaker != null && circuitBreaker.getState() == CircuitState.OPEN) {
+                retry = false;
+            }
+
+            if(retry){
+                RetryBackoff retryBackoff = dataLoader.retryBackoff();
+                long retryDelay = retryBackoff == null ? 0L : retryBackoff.delayMillis(currentRetry);
+                //等待后已经没有剩余时间，不再重试
+                if(retryDelay < loadContext.remainingBudget()) {
+                    return retryDelay;
+                }
+            }
+        }catch (Throwable e){
+            error = e;
+        }
+
+        fallback(execution, index, error, startTime);
+        return -1L;
+    }
+
+    private static void retry(LoadExecution execution, int index, int nextRetry, long startTime, long retryDelay) {
+        if(retryDelay <= 0) {
+            attempt(execution, index, nextRetry, startTime);
+            return;
+        }
+
+        //等待期间不占用线程，到时间后交回线程池执行
+        ScheduledFuture<?> retryFuture = LoadTimer.schedule(() -> {
+            try {
+                execution.executor(index).execute(() -> attempt(execution, index, nextRetry, startTime));
+            } catch (RejectedExecutionException e) {
+                fallback(execution, index, e, startTime);
+            }
+        }, retryDelay, TimeUnit.MILLISECONDS);
+        execution.setCanceller(index, () -> retryFuture.cancel(false));
+    }
+
+    private static void success(LoadExecution execution, int index, Object re, long startTime) {
+        if(! execution.tryComplete(index)) {
+            return;
+        }
+
+        long latency = System.currentTimeMillis() - startTime;
+        execution.plan.getLatencyStats(index).record(latency);
+        CircuitBreaker circuitBreaker = execution.plan.getCircuitBreaker(index);
+        if(circuitBreaker != null) {
+            circuitBreaker.onSuccess(latency, execution.circuitListener);
+        }
+        RetryBudget retryBudget = execution.plan.getRetryBudget(index);
+        if(retryBudget != null) {
+            retryBudget.recordSuccess();
+        }
+        ExecResult execResult = execution.loadContext.getDataLoadResult(index);
+        execResult.setResult(re);
+        execResult.setStatus(ExecResult.STATUS_SUCCESS);
+        execResult.setSuccess(true);
+        if(execution.cacheKeys != null && execution.cacheKeys[index] != null) {
+            DataLoader<?> dataLoader = execution.plan.getDataLoader(index);
+            LoaderCaches.getCache(dataLoader.name(), dataLoader.cachePolicy()).put(execution.cacheKeys[index], re);
+        }
+        finishTask(execution, index, startTime);
+    }
+
+    private static void fallback(LoadExecution execution, int index, Throwable e, long startTime) {
+        if(execution.tryComplete(index)) {
+            runFallback(execution, index, e, startTime);
+        }
+    }
+
+    //调用方已经抢到了写入结果的权利
+    private static void runFallback(LoadExecution execution, int index, Throwable e, long startTime) {
+        CommonLoadContext loadContext = execution.loadContext;
+        DataLoader<?> dataLoader = execution.plan.getDataLoader(index);
+        String name = execution.plan.getName(index);
+        ExecResult execResult = loadContext.getDataLoadResult(index);
+        execResult.setException(e);
+        execResult.setUseFallback(true);
+        //兜底的时间点只在采样的请求中记录
+        boolean timelineEnabled = loadContext.isTimelineEnabled();
+        if(timelineEnabled) {
+            execResult.setFallbackStartNanos(System.nanoTime());
+        }
+        try{
+            for(LoaderHook hook : execution.hooks) {
+                hook.beforeFallback(name, e, loadContext);
+            }
+
+            Object re = dataLoader.fallback(loadContext, e);
+
+            for(LoaderHook hook : execution.reverseHooks){
+                hook.afterFallback(name, e, loadContext, execResult);
+            }
+            execResult.setResult(re);
+            execResult.setStatus(ExecResult.STATUS_FALLBACK);
+        }catch (Throwable e1) {
+            execResult.setStatus(ExecResult.STATUS_ERROR);
+            for(LoaderHook hook : execution.hooks) {
+                hook.onEveryError(name, loadContext, e1, LoaderHook.RunPoi.FALLBACK);
+            }
+
+            execResult.setException(e1);
+            //兜底方法异常时代表发生致命错误，不再等待剩余任务
+            execution.fatal(e1);
+        }
+        if(timelineEnabled) {
+            execResult.setFallbackEndNanos(System.nanoTime());
+        }
+        finishTask(execution, index, startTime);
+    }
+
+    private static void finishTask(LoadExecution execution, int index, long startTime) {
+        CommonLoadContext loadContext = execution.loadContext;
+        ExecResult execResult = loadContext.getDataLoadResult(index);
+        long endTime = System.currentTimeMillis();
+        long endNanos = System.nanoTime();
+        execResult.setEndNanos(endNanos);
+        execResult.setCompleted(true);
+        execResult.setExecTime(endTime - startTime);
+        //真正开始执行过的节点才记录执行耗时，用来判断能否内联
+        if(execResult.getStartNanos() != 0) {
+            execution.plan.getLatencyStats(index).recordExecNanos(endNanos - execResult.getStartNanos());
+        }
+        //节点结束时归还隔离舱和自适应并发上限，超时兜底时等被中断的调用返回后再归还
+        execution.releasePermits(index);
+        if(execution.timeoutFutures != null && execution.timeoutFutures[index] != null) {
+            execution.timeoutFutures[index].cancel(false);
+        }
+        LoadExecution.Flight flight = execution.getFlight(index);
+        if(flight != null) {
+            SingleFlight.complete(execution.plan.getName(index), flight.key, flight.future, execResult);
+        }
+        execution.lazyDone(index);
+        try{
+            //钩子函数
+            for(LoaderHook hook : execution.reverseHooks) {
+                hook.afterExec(execution.plan.getName(index), loadContext, execResult);
+            }
+        }finally {
+            execution.taskDone();
+            //通知依赖这个任务的任务，足够快的节点直接在当前线程执行，避免线程切换
+            notifyDependents(execution, index, true);
+        }
+    }
+
+    //线程池拒绝时在当前线程执行，回调里抛出的异常没有人处理，会让节点一直没有结果
+    private static void executeOrRun(LoadExecution execution, int index, Runnable task) {
+        try {
+            execution.executor(index).execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
+        }
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    /**
+     * @param inline 是否允许在当前线程直接执行就绪的节点，请求线程提交根节点时不允许
+     */
+    private static void notifyDependents(LoadExecution execution, int index, boolean inline) {
+        int[] inlined = null;
+        int inlineCount = 0;
+        int[] reachedGroups = null;
+        int reachedCount = 0;
+        for(int dependent : execution.pathEstimate.getDependentsByPriority(index)){
+            int group = execution.plan.getQuorumGroup(dependent, index);
+            if(group >= 0) {
+                LoadExecution.QuorumState quorumState = execution.reportToQuorum(group, execution.loadContext.getDataLoadResult(index).isSuccess());
+                if(quorumState == LoadExecution.QuorumState.PENDING) {
+                    continue;
+                }
+                if(quorumState == LoadExecution.QuorumState.REACHED && execution.plan.isQuorumCancelRemaining(group)) {
+                    if(reachedGroups == null) {
+                        reachedGroups = new int[execution.plan.getDependents(index).length];
+                    }
+                    reachedGroups[reachedCount++] = group;
+                }
+            }
+
+            if(! execution.removeDependencyAndIsReady(dependent)) {
+                continue;
+            }
+
+            if(inline && canInline(execution, dependent)) {
+                if(inlined == null) {
+                    inlined = new int[execution.plan.getDependents(index).length];
+                }
+                inlined[inlineCount++] = dependent;
+            } else {
+                submitTask(execution, dependent);
+            }
+        }
+
+        //依赖组凑够后先让节点就绪，再取消组内剩余的依赖
+        for (int i = 0; i < reachedCount; i++) {
+            cancelQuorumSources(execution, reachedGroups[i]);
+        }
+
+        //先把其余节点提交出去并行执行，再在当前线程执行内联的节点
+        for (int i = 0; i < inlineCount; i++) {
+            submitTask(execution, inlined[i], true);
+        }
+    }
+
+    //凑够依赖组后取消组内还在执行或等待的依赖，被其他节点依赖的不取消
+    private static void cancelQuorumSources(LoadExecution execution, int group) {
+        CancellationException reason = null;
+        for(int source : execution.plan.getQuorumSources(group)) {
+            if(execution.plan.getDependents(source).length != 1 || ! execution.isActive(source) || execution.isCompleted(source)) {
+                continue;
+            }
+
+            if(reason == null) {
+                reason = new CancellationException("Quorum reached, DataLoader no longer needed");
+            }
+            if(execution.abandon(source, reason)) {
+                execution.lazyDone(source);
+                execution.taskDone();
+                notifyDependents(execution, source, false);
+            }
+        }
+    }
+
+    private static boolean shouldRetry(RetryCommand retryCommand, int currentRetry, int maxRetry){
+        if(retryCommand == RetryCommand.RETRY_FORCE || retryCommand == RetryCommand.RETRY){
             return true;
         }
 
-        if(retryCommands.stream().anyMatch(retryCommand -> retryCommand == RetryCommand.GIVE_UP)){
+        if(retryCommand == RetryCommand.GIVE_UP_FORCE || retryCommand == RetryCommand.GIVE_UP){
             return false;
         }
 
         return maxRetry > currentRetry;
     }
+
+    private static int priority(RetryCommand retryCommand) {
+        if(retryCommand == null) {
+            return 0;
+        }
+
+        switch (retryCommand) {
+            case RETRY_FORCE:
+                return 4;
+            case GIVE_UP_FORCE:
+                return 3;
+            case RETRY:
+                return 2;
+            case GIVE_UP:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+    /**
+     * 节点任务，支持优先级的线程池按最晚开始时间先执行关键路径上的节点
+     * 最晚开始时间是请求开始时间加上节点的松弛时间，越早开始的请求越优先，不会饿死
+     */
+    //后台刷新占用的许可，刷新完成和超时都会归还，只归还一次
+    private static final class RefreshPermits {
+
+        private final Bulkhead bulkhead;
+
+        private final AdaptiveLimiter limiter;
+
+        private final CircuitBreaker circuitBreaker;
+
+        private final CircuitBreaker.StateListener circuitListener;
+
+        private final String name;
+
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private RuntimeException rejection;
+
+        private long startNanos;
+
+        RefreshPermits(LoadExecution execution, int index) {
+            this.bulkhead = execution.plan.getBulkhead(index);
+            this.limiter = execution.plan.getLimiter(index);
+            this.circuitBreaker = execution.plan.getCircuitBreaker(index);
+            this.circuitListener = execution.circuitListener;
+            this.name = execution.plan.getName(index);
+        }
+
+        boolean acquire() {
+            if(bulkhead != null && ! bulkhead.tryAcquire()) {
+                bulkhead.recordRejected();
+                rejection = new BulkheadFullException(bulkhead.getName());
+                return false;
+            }
+            if(limiter != null && ! limiter.tryAcquire()) {
+                releaseBulkhead();
+                rejection = new LimitExceededException(name, limiter.getLimit());
+                return false;
+            }
+            if(circuitBreaker != null && ! circuitBreaker.tryAcquirePermission(circuitListener)) {
+                releaseBulkhead();
+                if(limiter != null) {
+                    limiter.release();
+                }
+                rejection = new CircuitBreakerOpenException(name);
+                return false;
+            }
+            startNanos = System.nanoTime();
+            return true;
+        }
+
+        void release(Throwable t) {
+            if(! released.compareAndSet(false, true)) {
+                return;
+            }
+
+            long rttNanos = System.nanoTime() - startNanos;
+            releaseBulkhead();
+            if(limiter != null) {
+                limiter.release(rttNanos, t != null);
+            }
+            if(circuitBreaker != null) {
+                long latency = TimeUnit.NANOSECONDS.toMillis(rttNanos);
+                if(t == null) {
+                    circuitBreaker.onSuccess(latency, circuitListener);
+                } else {
+                    circuitBreaker.onError(latency, circuitListener);
+                }
+            }
+        }
+
+        private void releaseBulkhead() {
+            if(bulkhead != null) {
+                bulkhead.release();
+            }
+        }
+    }
+
+    private static final class NodeTask implements Runnable, PrioritizedTask {
+
+        private final LoadExecution execution;
+
+        private final int index;
+
+        NodeTask(LoadExecution execution, int index) {
+            this.execution = execution;
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            runTask(execution, index);
+        }
+
+        @Override
+        public long latestStartMillis() {
+            return execution.startTime + execution.pathEstimate.getSlackMillis(index);
+        }
+    }
+
 }
@@ -0,0 +1,29 @@
+package com.oraen.box.loader.core;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 加载引擎共用的定时器，只负责到点触发，触发的任务必须足够轻量，耗时逻辑需要转交给线程池执行
+ */
+public class LoadTimer {
+
+    private static final AtomicInteger THREAD_INDEX = new AtomicInteger(0);
+
+    private static final ScheduledThreadPoolExecutor TIMER;
+
+    static {
+        TIMER = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "oraen-loader-timer-" + THREAD_INDEX.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        //取消的任务及时移出队列，避免大量超时任务堆积
+        TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    public static ScheduledFuture<?> schedule(Runnable runnable, long delay, TimeUnit unit) {
+        return TIMER.schedule(runnable, Math.max(delay, 0L), unit);
+    }
+
+}
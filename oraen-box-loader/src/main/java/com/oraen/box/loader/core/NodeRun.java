@@ -0,0 +1,45 @@
+package com.oraen.box.loader.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一次同步执行，记录执行线程，保证只中断仍在执行这次调用的线程，调用 run 即中断
+ */
+class NodeRun implements Runnable {
+
+    private static final int IDLE = 0;
+    private static final int RUNNING = 1;
+    private static final int INTERRUPTING = 2;
+    private static final int INTERRUPTED = 3;
+
+    private final Thread thread;
+
+    private final boolean interruptible;
+
+    private final AtomicInteger state = new AtomicInteger(RUNNING);
+
+    NodeRun(Thread thread, boolean interruptible) {
+        this.thread = thread;
+        this.interruptible = interruptible;
+    }
+
+    @Override
+    public void run() {
+        if(interruptible && state.compareAndSet(RUNNING, INTERRUPTING)) {
+            thread.interrupt();
+            state.set(INTERRUPTED);
+        }
+    }
+
+    //执行线程调用
+    void end() {
+        if(! state.compareAndSet(RUNNING, IDLE)) {
+            //取消线程正在中断当前线程，等它完成后清除中断标记，避免影响线程池中的下一个任务
+            while (state.get() == INTERRUPTING) {
+                Thread.yield();
+            }
+            Thread.interrupted();
+        }
+    }
+
+}
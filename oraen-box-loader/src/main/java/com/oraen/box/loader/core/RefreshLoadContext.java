@@ -0,0 +1,150 @@
+package com.oraen.box.loader.core;
+
+import com.oraen.box.loader.CancellationToken;
+import com.oraen.box.loader.DataLoader;
+import com.oraen.box.loader.ExecResult;
+import com.oraen.box.loader.LoadContext;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * 缓存后台刷新使用的上下文，数据读取委托给触发刷新的请求
+ * 刷新可能比请求活得久，取消标记和剩余时间换成刷新自己的，不受请求结束或取消影响
+ */
+final class RefreshLoadContext implements LoadContext {
+
+    private final LoadContext delegate;
+
+    private final CancellationToken cancellationToken;
+
+    private final long deadline;
+
+    RefreshLoadContext(LoadContext delegate, CancellationToken cancellationToken, long timeoutMillis) {
+        this.delegate = delegate;
+        this.cancellationToken = cancellationToken;
+        this.deadline = timeoutMillis > 0 ? System.currentTimeMillis() + timeoutMillis : Long.MAX_VALUE;
+    }
+
+    @Override
+    public long remainingBudget() {
+        return deadline == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(deadline - System.currentTimeMillis(), 0L);
+    }
+
+    @Override
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    @Override
+    public <T> DataLoader<T> getDataLoader(String name, Class<T> clazz) {
+        return delegate.getDataLoader(name, clazz);
+    }
+
+    @Override
+    public DataLoader<?> getDataLoader(String name) {
+        return delegate.getDataLoader(name);
+    }
+
+    @Override
+    public List<DataLoader<?>> getDataLoaders() {
+        return delegate.getDataLoaders();
+    }
+
+    @Override
+    public <T> T getDataLoadData(String name, Class<T> clazz) {
+        return delegate.getDataLoadData(name, clazz);
+    }
+
+    @Override
+    public <T> T getDataLoadData(String name) {
+        return delegate.getDataLoadData(name);
+    }
+
+    @Override
+    public ExecResult getDataLoadResult(String name) {
+        return delegate.getDataLoadResult(name);
+    }
+
+    @Override
+    public <T extends Throwable> T getDataLoadError(String name, Class<T> clazz) {
+        return delegate.getDataLoadError(name, clazz);
+    }
+
+    @Override
+    public LoadStatus getDataLoadStatus(String name) {
+        return delegate.getDataLoadStatus(name);
+    }
+
+    @Override
+    public <T> T getInitParam(Class<T> clazz) {
+        return delegate.getInitParam(clazz);
+    }
+
+    @Override
+    public <T> T getInitParam() {
+        return delegate.getInitParam();
+    }
+
+    @Override
+    public <T> T getResp(Class<T> clazz) {
+        return delegate.getResp(clazz);
+    }
+
+    @Override
+    public <T> T getResp() {
+        return delegate.getResp();
+    }
+
+    @Override
+    public <T> T getContextVariable(String key, Class<T> clazz) {
+        return delegate.getContextVariable(key, clazz);
+    }
+
+    @Override
+    public <T> T getContextVariable(String key) {
+        return delegate.getContextVariable(key);
+    }
+
+    @Override
+    public void setContextVariable(String key, Object value) {
+        delegate.setContextVariable(key, value);
+    }
+
+    @Override
+    public long getStartTime() {
+        return delegate.getStartTime();
+    }
+
+    @Override
+    public long getEndTime() {
+        return delegate.getEndTime();
+    }
+
+    @Override
+    public long getExeTime() {
+        return delegate.getExeTime();
+    }
+
+    @Override
+    public boolean isSuccess() {
+        return delegate.isSuccess();
+    }
+
+    @Override
+    public Throwable getThrowable() {
+        return delegate.getThrowable();
+    }
+
+    @Override
+    public Executor getExecutor() {
+        return delegate.getExecutor();
+    }
+
+    @Override
+    public void submitTask(Runnable runnable, boolean blockMain) {
+        //请求可能已经结束，不能再阻塞它
+        delegate.getExecutor().execute(runnable);
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.oraen.box.loader.executor;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 限制同时执行任务数的 Executor，超出上限的任务排队，不阻塞提交线程
+ * 一般用来包装每个任务一个线程的 Executor，比如虚拟线程，避免负载失控
+ */
+public class ConcurrencyLimitedExecutor implements Executor {
+
+    private final Executor delegate;
+
+    private final int maxConcurrency;
+
+    private final AtomicInteger runningCount = new AtomicInteger(0);
+
+    private final ConcurrentLinkedQueue<Runnable> waitingTasks = new ConcurrentLinkedQueue<>();
+
+    //队列长度单独计数，ConcurrentLinkedQueue.size() 需要遍历
+    private final AtomicInteger waitingCount = new AtomicInteger(0);
+
+    public ConcurrencyLimitedExecutor(Executor delegate, int maxConcurrency) {
+        if(maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive, but was " + maxConcurrency);
+        }
+        this.delegate = delegate;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        waitingTasks.offer(command);
+        waitingCount.incrementAndGet();
+        drain();
+    }
+
+    private void drain() {
+        while (true) {
+            int running = runningCount.get();
+            if(running >= maxConcurrency || waitingTasks.isEmpty()) {
+                return;
+            }
+
+            if(! runningCount.compareAndSet(running, running + 1)) {
+                continue;
+            }
+
+            Runnable task = waitingTasks.poll();
+            if(task == null) {
+                //被其他线程取走了，归还名额后重新检查
+                runningCount.decrementAndGet();
+                continue;
+            }
+
+            waitingCount.decrementAndGet();
+            try {
+                delegate.execute(() -> run(task));
+            } catch (RejectedExecutionException e) {
+                //取出的任务不一定是当前提交的任务，不能丢弃，和 CallerRunsPolicy 一样在当前线程执行，结束后继续检查队列
+                try {
+                    task.run();
+                } finally {
+                    runningCount.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } finally {
+            runningCount.decrementAndGet();
+            drain();
+        }
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getRunningCount() {
+        return runningCount.get();
+    }
+
+    public int getWaitingCount() {
+        return waitingCount.get();
+    }
+
+    public Executor getDelegate() {
+        return delegate;
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.oraen.box.loader.executor;
+
+import com.oraen.box.loader.LoadContext;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * 从多个线程池中选择执行任务的线程池
+ */
+public interface ExecutorSelector {
+
+    /**
+     * Select the executor running a request, or a single node when nodes of a request are spread across executors.
+     *
+     * @param executors candidate executors, never empty
+     * @param loadContext context of the request, null when selecting for a single node
+     * @return the selected executor
+     */
+    Executor select(List<Executor> executors, LoadContext loadContext);
+
+}
@@ -0,0 +1,53 @@
+package com.oraen.box.loader.executor;
+
+import com.oraen.box.loader.LoadContext;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 随机取两个线程池，选择排队任务少的一个（power of two choices）
+ * 不需要遍历所有线程池，也不会像总是选最空闲的那样让所有请求同时涌向同一个线程池
+ */
+public class LeastQueuedExecutorSelector implements ExecutorSelector {
+
+    @Override
+    public Executor select(List<Executor> executors, LoadContext loadContext) {
+        int size = executors.size();
+        if(size == 1) {
+            return executors.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        //第二个下标跳过第一个，保证取到两个不同的线程池
+        int second = (first + 1 + random.nextInt(size - 1)) % size;
+        Executor a = executors.get(first);
+        Executor b = executors.get(second);
+        return queueDepth(b) < queueDepth(a) ? b : a;
+    }
+
+    /**
+     * 线程池排队中的任务数，只读取不需要加锁的计数，不认识的线程池返回 0
+     */
+    public static long queueDepth(Executor executor) {
+        if(executor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executor).getQueue().size();
+        }
+
+        if(executor instanceof ConcurrencyLimitedExecutor) {
+            ConcurrencyLimitedExecutor limitedExecutor = (ConcurrencyLimitedExecutor) executor;
+            return limitedExecutor.getWaitingCount() + limitedExecutor.getRunningCount();
+        }
+
+        if(executor instanceof ForkJoinPool) {
+            return ((ForkJoinPool) executor).getQueuedSubmissionCount();
+        }
+
+        return 0L;
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.oraen.box.loader.executor;
+
+import java.lang.reflect.Method;
+import java.util.Comparator;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 加载引擎使用的 Executor 工厂
+ */
+public class LoaderExecutors {
+
+    //JDK 21 以上才有 Executors.newVirtualThreadPerTaskExecutor，编译目标是 Java 8，只能反射调用
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory();
+
+    private static volatile Boolean virtualThreadSupported = null;
+
+    //最晚开始时间早的先执行
+    private static final Comparator<Runnable> PRIORITY_ORDER = Comparator.comparingLong(LoaderExecutors::latestStartMillis);
+
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 当前 JVM 是否支持虚拟线程
+     */
+    public static boolean isVirtualThreadSupported() {
+        if(virtualThreadSupported == null) {
+            ExecutorService executor = newVirtualThreadPerTaskExecutor();
+            if(executor != null) {
+                executor.shutdown();
+            }
+            virtualThreadSupported = executor != null;
+        }
+        return virtualThreadSupported;
+    }
+
+    /**
+     * 虚拟线程模式，每个节点一个虚拟线程，同时执行的节点数不超过 maxConcurrency
+     * 不支持虚拟线程的 JVM 退化为所有调用共用的平台线程池
+     *
+     * @param maxConcurrency 同时执行的节点数上限
+     */
+    public static Executor virtualThreadExecutor(int maxConcurrency) {
+        Executor executor = newVirtualThreadPerTaskExecutor();
+        if(executor == null) {
+            executor = SharedPlatformExecutor.INSTANCE;
+        }
+
+        return new ConcurrencyLimitedExecutor(executor, maxConcurrency);
+    }
+
+    /**
+     * 默认的平台线程池，按 CPU 核数的 4 倍设置线程数，由调用方负责关闭
+     */
+    public static ThreadPoolExecutor platformExecutor() {
+        return platformExecutor(Executors.defaultThreadFactory());
+    }
+
+    private static ThreadPoolExecutor platformExecutor(ThreadFactory threadFactory) {
+        // 获取 CPU 核心数
+        int cpuCores = Runtime.getRuntime().availableProcessors();
+        int corePoolSize = cpuCores * 4;
+        int maximumPoolSize = cpuCores * 4;
+        return new ThreadPoolExecutor(
+                corePoolSize,
+                maximumPoolSize,
+                120L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                threadFactory,
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    //守护线程，不阻止 JVM 退出
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 优先级线程池，排队的节点按最晚开始时间执行，线程池繁忙时关键路径上的节点先执行
+     * 不是节点的任务（重试、异步回调等已经开始的节点的后续）排在所有节点前面
+     * 只能用 execute 提交，submit 会把任务包装成 FutureTask 丢失优先级
+     * 由调用方持有并负责关闭，关闭后提交的节点被拒绝，由引擎直接兜底，不会在提交线程上执行
+     *
+     * @param threads 线程数
+     */
+    public static ThreadPoolExecutor priorityExecutor(int threads) {
+        return new ThreadPoolExecutor(
+                threads,
+                threads,
+                120L,
+                TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(64, PRIORITY_ORDER),
+                Executors.defaultThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    /**
+     * 是否是按优先级排队的线程池
+     */
+    public static boolean isPriorityExecutor(Executor executor) {
+        return executor instanceof ThreadPoolExecutor && ((ThreadPoolExecutor) executor).getQueue() instanceof PriorityBlockingQueue;
+    }
+
+    private static long latestStartMillis(Runnable runnable) {
+        return runnable instanceof PrioritizedTask ? ((PrioritizedTask) runnable).latestStartMillis() : Long.MIN_VALUE;
+    }
+
+    //不支持虚拟线程时共用的平台线程池，第一次使用时才创建，空闲线程超时后回收
+    private static class SharedPlatformExecutor {
+
+        static final ThreadPoolExecutor INSTANCE = platformExecutor(daemonThreadFactory("oraen-loader-"));
+
+        static {
+            INSTANCE.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if(NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+            return null;
+        }
+
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch (Exception e) {
+            //JDK 19、20 未开启预览特性时会抛出 UnsupportedOperationException
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.oraen.box.loader.executor;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * 每次提交任务时重新选择线程池，让同一个请求的节点分散到多个线程池
+ * 只适合节点之间没有线程亲和性要求的场景，比如不依赖 ThreadLocal 传递数据
+ */
+public class NodeSpreadingExecutor implements Executor {
+
+    private final List<Executor> executors;
+
+    private final ExecutorSelector executorSelector;
+
+    //不复制 executors，每个请求都可能创建一次
+    public NodeSpreadingExecutor(List<Executor> executors, ExecutorSelector executorSelector) {
+        if(executors == null || executors.isEmpty()) {
+            throw new IllegalArgumentException("Executors must not be null or empty");
+        }
+        this.executors = executors;
+        this.executorSelector = executorSelector;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executorSelector.select(executors, null).execute(command);
+    }
+
+    public List<Executor> getExecutors() {
+        return executors;
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.oraen.box.loader.executor;
+
+/**
+ * 带优先级的任务，由 {@link LoaderExecutors#priorityExecutor(int)} 按最晚开始时间从早到晚执行
+ */
+public interface PrioritizedTask {
+
+    /**
+     * @return latest start time in epoch milliseconds that does not stretch the request, smaller runs first
+     */
+    long latestStartMillis();
+
+}
@@ -0,0 +1,22 @@
+package com.oraen.box.loader.executor;
+
+import com.oraen.box.loader.LoadContext;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 轮流选择线程池
+ */
+public class RoundRobinExecutorSelector implements ExecutorSelector {
+
+    private final AtomicInteger next = new AtomicInteger(0);
+
+    @Override
+    public Executor select(List<Executor> executors, LoadContext loadContext) {
+        //计数溢出后仍然得到非负的下标
+        return executors.get(Math.floorMod(next.getAndIncrement(), executors.size()));
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.oraen.box.loader.extend;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -7,14 +8,24 @@ import lombok.NoArgsConstructor;
 import com.oraen.box.common.function.QuadrupleFunction;
 import com.oraen.box.common.function.TripleFunction;
 import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.DependencyQuorum;
+import com.oraen.box.loader.InlineMode;
 import com.oraen.box.loader.RetryCommand;
+import com.oraen.box.loader.cache.CachePolicy;
+import com.oraen.box.loader.resilience.HedgePolicy;
+import com.oraen.box.loader.resilience.AdaptiveLimitPolicy;
+import com.oraen.box.loader.resilience.BulkheadPolicy;
+import com.oraen.box.loader.resilience.CircuitBreakerPolicy;
+import com.oraen.box.loader.resilience.RetryBackoff;
+import com.oraen.box.loader.resilience.RetryBudgetPolicy;
 
 import java.util.List;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 @Builder
 public class AssembleProcessNode<P, R> implements ProcessNode<P, R>{
     private String name;
@@ -31,12 +42,52 @@ public class AssembleProcessNode<P, R> implements ProcessNode<P, R>{
 
     private QuadrupleFunction<P, R, LoadContext, Throwable, RetryCommand> needRetry;
 
+    private RetryBackoff retryBackoff;
+
+    //为 null 时不限制重试，需要限制时可以使用 RetryBudgetPolicy.DEFAULT
+    private RetryBudgetPolicy retryBudgetPolicy;
+
+    private CircuitBreakerPolicy circuitBreakerPolicy;
+
+    private BulkheadPolicy bulkheadPolicy;
+
+    private AdaptiveLimitPolicy adaptiveLimitPolicy;
+
+    private InlineMode inlineMode;
+
+    private Boolean lazy;
+
+    private List<DependencyQuorum> dependencyQuorums;
+
+    private CachePolicy cachePolicy;
+
+    private Function<LoadContext, Object> cacheKey;
+
+    private Function<LoadContext, Object> coalesceKey;
+
+    private Long timeoutMillis;
+
+    private Boolean interruptible;
+
+    private HedgePolicy hedgePolicy;
+
     public AssembleProcessNode(String name, List<String> dependencies, TripleFunction<P, R, LoadContext, Object> process){
         this.name = name;
         this.dependencies = dependencies;
         this.process = process;
     }
 
+    //最初版本的全参构造器，之后新增的配置只能通过 builder 设置
+    public AssembleProcessNode(String name, List<String> dependencies, TripleFunction<P, R, LoadContext, Object> process,
+                               QuadrupleFunction<P, R, Throwable, LoadContext, Object> fallback, Predicate<LoadContext> needLoad,
+                               Integer maxRetry, QuadrupleFunction<P, R, LoadContext, Throwable, RetryCommand> needRetry){
+        this(name, dependencies, process);
+        this.fallback = fallback;
+        this.needLoad = needLoad;
+        this.maxRetry = maxRetry;
+        this.needRetry = needRetry;
+    }
+
     @Override
     public String name() {
         return name;
@@ -71,9 +122,79 @@ public class AssembleProcessNode<P, R> implements ProcessNode<P, R>{
         return maxRetry == null || maxRetry < 1 ? 1 : maxRetry;
     }
 
+    @Override
+    public RetryBackoff retryBackoff() {
+        return retryBackoff;
+    }
+
+    @Override
+    public RetryBudgetPolicy retryBudgetPolicy() {
+        return retryBudgetPolicy;
+    }
+
+    @Override
+    public CircuitBreakerPolicy circuitBreakerPolicy() {
+        return circuitBreakerPolicy;
+    }
+
+    @Override
+    public BulkheadPolicy bulkheadPolicy() {
+        return bulkheadPolicy;
+    }
+
+    @Override
+    public AdaptiveLimitPolicy adaptiveLimitPolicy() {
+        return adaptiveLimitPolicy;
+    }
+
+    @Override
+    public InlineMode inlineMode() {
+        return inlineMode == null ? InlineMode.AUTO : inlineMode;
+    }
+
+    @Override
+    public boolean lazy() {
+        return lazy != null && lazy;
+    }
+
+    @Override
+    public List<DependencyQuorum> dependencyQuorums() {
+        return dependencyQuorums;
+    }
+
     @Override
     public RetryCommand needRetry(P param, R resp, LoadContext context, Throwable e) {
         return needRetry == null ? RetryCommand.KEEP : needRetry.apply(param, resp, context, e);
     }
 
+    @Override
+    public CachePolicy cachePolicy() {
+        return cachePolicy;
+    }
+
+    @Override
+    public Object cacheKey(LoadContext context) {
+        return cacheKey == null ? null : cacheKey.apply(context);
+    }
+
+    @Override
+    public Object coalesceKey(LoadContext context) {
+        return coalesceKey == null ? null : coalesceKey.apply(context);
+    }
+
+    @Override
+    public long timeoutMillis() {
+        return timeoutMillis == null ? -1L : timeoutMillis;
+    }
+
+    @Override
+    public boolean interruptible() {
+        return interruptible == null || interruptible;
+    }
+
+    @Override
+    public HedgePolicy hedgePolicy() {
+        return hedgePolicy;
+    }
+
 }
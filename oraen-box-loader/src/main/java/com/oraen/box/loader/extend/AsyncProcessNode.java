@@ -0,0 +1,36 @@
+package com.oraen.box.loader.extend;
+
+import com.oraen.box.loader.AsyncDataLoader;
+import com.oraen.box.loader.LoadContext;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+@SuppressWarnings("unchecked")
+public interface AsyncProcessNode<P, R> extends ProcessNode<P, R>, AsyncDataLoader<Object> {
+
+    @Override
+    default CompletionStage<Object> getDataAsync(LoadContext context) {
+        P initParam = (P)context.getInitParam(Object.class);
+        R resp = (R)context.getResp(Object.class);
+        return processAsync(initParam, resp, context);
+    }
+
+    @Override
+    default Object getData(LoadContext context) {
+        return ProcessNode.super.getData(context);
+    }
+
+    @Override
+    default Object process(P param, R resp, LoadContext context) {
+        try {
+            return processAsync(param, resp, context).toCompletableFuture().join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException)cause : new RuntimeException(cause);
+        }
+    }
+
+    CompletionStage<Object> processAsync(P param, R resp, LoadContext context);
+
+}
@@ -7,10 +7,13 @@ import com.oraen.box.loader.DataLoader;
 import com.oraen.box.loader.LoadContext;
 import com.oraen.box.loader.LoaderHook;
 import com.oraen.box.loader.core.*;
+import com.oraen.box.loader.executor.ExecutorSelector;
+import com.oraen.box.loader.executor.LeastQueuedExecutorSelector;
+import com.oraen.box.loader.executor.LoaderExecutors;
+import com.oraen.box.loader.executor.NodeSpreadingExecutor;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 @SuppressWarnings("unchecked")
 public class ParallelDataBuilder<P, R> implements ProcessNode<P, R>{
@@ -23,10 +26,21 @@ public class ParallelDataBuilder<P, R> implements ProcessNode<P, R>{
 
     private List<Executor> executors;
 
+    private ExecutorSelector executorSelector = new LeastQueuedExecutorSelector();
+
+    //同一个请求的节点是否分散到多个线程池
+    private boolean spreadNodes = false;
+
+    //开启分散时复用，线程池配置变动后置空，下次请求重新创建
+    private volatile NodeSpreadingExecutor spreadingExecutor;
+
     private List<LoaderHook> hooks = new ArrayList<>();
 
     private String name;
 
+    //节点变动后需要重新编译
+    private volatile ExecutionPlan executionPlan;
+
 
     public static<P, R> ParallelDataBuilder<P, R> builder() {
         return new ParallelDataBuilder<>();
@@ -36,25 +50,12 @@ public class ParallelDataBuilder<P, R> implements ProcessNode<P, R>{
         if(defaultExecutors == null) {
             synchronized (ParallelDataBuilder.class) {
                 if(defaultExecutors == null) {
-                    defaultExecutors = new ArrayList<>();
+                    List<Executor> executors = new ArrayList<>();
                     int executorCount = 4; // 默认线程池数量
-                    // 获取 CPU 核心数
-                    int cpuCores = Runtime.getRuntime().availableProcessors();
-                    int corePoolSize = cpuCores * 4;
-                    int maximumPoolSize = cpuCores * 4;
-
                     for(int i = 0; i < executorCount; i++) {
-                        ThreadPoolExecutor executor = new ThreadPoolExecutor(
-                                corePoolSize,
-                                maximumPoolSize,
-                                120L,
-                                TimeUnit.SECONDS,
-                                new LinkedBlockingQueue<>(),
-                                Executors.defaultThreadFactory(),
-                                new ThreadPoolExecutor.CallerRunsPolicy()
-                        );
-                        defaultExecutors.add(executor);
+                        executors.add(LoaderExecutors.platformExecutor());
                     }
+                    defaultExecutors = executors;
                 }
             }
         }
@@ -74,6 +75,7 @@ public class ParallelDataBuilder<P, R> implements ProcessNode<P, R>{
 
     public ParallelDataBuilder<P, R> addNodes(Collection<ProcessNode<? super P, ? super R>> processNodes) {
         this.processNodes.addAll(processNodes);
+        this.executionPlan = null;
         return this;
     }
 
@@ -86,6 +88,7 @@ public class ParallelDataBuilder<P, R> implements ProcessNode<P, R>{
             ProcessNode<? super P, ? super R> processNode = SpringBeanUtil.getBean(beanName, ProcessNode.class);
             this.processNodes.add(processNode);
         }
+        this.executionPlan = null;
         return this;
     }
 
@@ -98,6 +101,7 @@ public class ParallelDataBuilder<P, R> implements ProcessNode<P, R>{
             ProcessNode<? super P, ? super R> processNode = SpringBeanUtil.getBean(clazz);
             this.processNodes.add(processNode);
         }
+        this.executionPlan = null;
         return this;
     }
 
@@ -108,17 +112,61 @@ public class ParallelDataBuilder<P, R> implements ProcessNode<P, R>{
 
     public ParallelDataBuilder<P, R> setExecutors(Collection<Executor> executors) {
         this.executors = new ArrayList<>(executors);
+        this.spreadingExecutor = null;
         return this;
     }
 
     public ParallelDataBuilder<P, R> addExecutors(Collection<Executor> executors) {
         this.executors.addAll(executors);
+        this.spreadingExecutor = null;
         return this;
     }
 
 
     public ParallelDataBuilder<P, R> addExecutors(Executor... executors) {
         this.executors.addAll(Arrays.asList(executors));
+        this.spreadingExecutor = null;
+        return this;
+    }
+
+    public ParallelDataBuilder<P, R> setExecutorSelector(ExecutorSelector executorSelector) {
+        this.executorSelector = executorSelector;
+        this.spreadingExecutor = null;
+        return this;
+    }
+
+    /**
+     * 同一个请求的节点是否分散到多个线程池，每个节点提交时重新选择线程池
+     * 默认整个请求使用同一个线程池，节点依赖 ThreadLocal 等线程亲和性时不要开启
+     */
+    public ParallelDataBuilder<P, R> setSpreadNodes(boolean spreadNodes) {
+        this.spreadNodes = spreadNodes;
+        this.spreadingExecutor = null;
+        return this;
+    }
+
+    /**
+     * 虚拟线程模式，JDK 21 以上每个节点一个虚拟线程，其他版本退化为平台线程池
+     *
+     * @param maxConcurrentNodes 同时执行的节点数上限
+     */
+    public ParallelDataBuilder<P, R> useVirtualThreads(int maxConcurrentNodes) {
+        this.executors = new ArrayList<>(Collections.singletonList(LoaderExecutors.virtualThreadExecutor(maxConcurrentNodes)));
+        this.spreadingExecutor = null;
+        return this;
+    }
+
+    /**
+     * 优先级调度模式，线程池繁忙时剩余路径长的节点先执行
+     *
+     * @param priorityExecutor 由 LoaderExecutors.priorityExecutor 创建的线程池，由调用方负责关闭
+     */
+    public ParallelDataBuilder<P, R> usePriorityScheduling(ThreadPoolExecutor priorityExecutor) {
+        if(! LoaderExecutors.isPriorityExecutor(priorityExecutor)) {
+            throw new IllegalArgumentException("priorityExecutor must be created by LoaderExecutors.priorityExecutor");
+        }
+        this.executors = new ArrayList<>(Collections.singletonList(priorityExecutor));
+        this.spreadingExecutor = null;
         return this;
     }
 
@@ -137,25 +185,21 @@ public class ParallelDataBuilder<P, R> implements ProcessNode<P, R>{
         return addHooks(Arrays.asList(executors));
     }
 
+    //编译执行计划，同时确保节点之间没出现循环依赖
     public ParallelDataBuilder<P, R> ensure(){
-        CommonMapDataLoaderContainer commonMapDataLoaderContainer = new CommonMapDataLoaderContainer();
-        commonMapDataLoaderContainer.addDataLoaders(processNodes);
-        AssembleDataLoader<Object> rootDataLoader = AssembleDataLoader.builder()
-                .dataFunction(loadContext -> null)
-                .name("_oraen_temp_root")
-                .dependencies(processNodes.stream().map(DataLoader::name).collect(Collectors.toList()))
-                .build();
-
-        commonMapDataLoaderContainer.addDataLoader(rootDataLoader);
-
-        String hasCircularDependency = LoadUtil.hasCircularDependency(rootDataLoader, commonMapDataLoaderContainer);
-        if(hasCircularDependency != null) {
-            throw new RuntimeException("DataLoader has circular dependency, on " + hasCircularDependency);
-        }
-
+        this.executionPlan = ExecutionPlan.compile(processNodes);
         return this;
     }
 
+    private ExecutionPlan getExecutionPlan() {
+        ExecutionPlan executionPlan = this.executionPlan;
+        if(executionPlan == null) {
+            executionPlan = ExecutionPlan.compile(processNodes);
+            this.executionPlan = executionPlan;
+        }
+        return executionPlan;
+    }
+
     public R buildResp(P initParam, R initResp) {
         CommonLoadContext commonLoadContext = buildRespWithDetail(initParam, initResp);
         if(commonLoadContext.getThrowable() != null) {
@@ -170,15 +214,51 @@ public class ParallelDataBuilder<P, R> implements ProcessNode<P, R>{
     }
 
     public CommonLoadContext buildRespWithDetail(P initParam, R initResp) {
-        CommonLoadContext loadContext = new CommonLoadContext(initParam, initResp, processNodes);
+        CommonLoadContext loadContext = new CommonLoadContext(getExecutionPlan(), initParam, initResp);
+        LoadLogic.exec(loadContext, selectExecutor(loadContext), execTimeout, hooks);
+        return loadContext;
+    }
+
+    /**
+     * 非阻塞构建，调用线程只负责提交任务，返回的 future 由最后完成的节点或者超时完成
+     */
+    public CompletableFuture<R> buildRespAsync(P initParam, R initResp) {
+        return buildRespWithDetailAsync(initParam, initResp).thenApply(commonLoadContext -> {
+            if(commonLoadContext.getThrowable() != null) {
+                throw new RuntimeException("Data loading failed", commonLoadContext.getThrowable());
+            }
+
+            return (R) commonLoadContext.getResp();
+        });
+    }
+
+    public CompletableFuture<R> buildRespAsync(Supplier<P> initParamSupplier, Supplier<R> initRespSupplier) {
+        return buildRespAsync(initParamSupplier.get(), initRespSupplier.get());
+    }
+
+    public CompletableFuture<CommonLoadContext> buildRespWithDetailAsync(P initParam, R initResp) {
+        CommonLoadContext loadContext = new CommonLoadContext(getExecutionPlan(), initParam, initResp);
+        return LoadLogic.execAsync(loadContext, selectExecutor(loadContext), execTimeout, hooks)
+                .thenApply(throwable -> loadContext);
+    }
+
+    private Executor selectExecutor(CommonLoadContext loadContext) {
+        NodeSpreadingExecutor spreadingExecutor = this.spreadingExecutor;
+        if(spreadingExecutor != null) {
+            return spreadingExecutor;
+        }
+
         List<Executor> executors = this.executors;
         if(CollectionUtil.isEmpty(executors)) {
             executors = getDefaultExecutors();
         }
 
-        Executor executor = executors.get(Math.abs(loadContext.hashCode() % executors.size()));
-        LoadLogic.exec(loadContext, executor, execTimeout, hooks);
-        return loadContext;
+        if(spreadNodes && executors.size() > 1) {
+            spreadingExecutor = new NodeSpreadingExecutor(executors, executorSelector);
+            this.spreadingExecutor = spreadingExecutor;
+            return spreadingExecutor;
+        }
+        return executorSelector.select(executors, loadContext);
     }
 
     public CommonLoadContext buildRespWithDetail(Supplier<P> initParamSupplier, Supplier<R> initRespSupplier) {
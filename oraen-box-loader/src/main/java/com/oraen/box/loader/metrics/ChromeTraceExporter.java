@@ -0,0 +1,130 @@
+package com.oraen.box.loader.metrics;
+
+import com.oraen.box.loader.ExecResult;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+
+/**
+ * 把一次请求的执行时间线导出为 Chrome Trace Event 格式的 JSON，可以直接用 chrome://tracing 或 Perfetto 打开
+ * 每个节点一行，依次是排队、执行、兜底三段，时间单位为微秒，以请求开始的时间为 0
+ */
+public class ChromeTraceExporter {
+
+    private static final int PID = 1;
+
+    public static String export(CommonLoadContext loadContext) {
+        StringBuilder sb = new StringBuilder(1024);
+        export(loadContext, sb);
+        return sb.toString();
+    }
+
+    public static void export(CommonLoadContext loadContext, StringBuilder sb) {
+        ExecutionPlan plan = loadContext.getExecutionPlan();
+        long origin = loadContext.getStartNanos();
+        sb.append("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+
+        //第 0 行是整个请求
+        threadName(sb, 0, "request");
+        long requestEnd = loadContext.getEndNanos();
+        if(requestEnd != 0) {
+            sb.append(',');
+            event(sb, plan.getPlanName(), "request", 0, 0, requestEnd - origin);
+            sb.append(",\"args\":{\"success\":").append(loadContext.getThrowable() == null).append("}}");
+        }
+
+        for (int i = 0; i < plan.size(); i++) {
+            int tid = i + 1;
+            ExecResult execResult = loadContext.getDataLoadResult(i);
+            sb.append(',');
+            threadName(sb, tid, plan.getName(i));
+            if(execResult == null) {
+                continue;
+            }
+
+            long submit = execResult.getSubmitNanos();
+            long start = execResult.getStartNanos();
+            long end = execResult.getEndNanos();
+            long fallbackStart = execResult.getFallbackStartNanos();
+            long fallbackEnd = execResult.getFallbackEndNanos();
+            if(submit != 0 && start != 0) {
+                sb.append(',');
+                event(sb, "queue", "queue", tid, submit - origin, start - submit);
+                sb.append('}');
+            }
+            if(start != 0 && end != 0) {
+                sb.append(',');
+                event(sb, plan.getName(i), "exec", tid, start - origin, end - start);
+                sb.append(",\"args\":{\"status\":").append(execResult.getStatus())
+                        .append(",\"retry\":").append(execResult.getRetry())
+                        .append(",\"hedge\":").append(execResult.getHedge());
+                if(execResult.getException() != null) {
+                    sb.append(",\"exception\":");
+                    string(sb, execResult.getException().toString());
+                }
+                sb.append("}}");
+            }
+            if(fallbackStart != 0 && fallbackEnd != 0) {
+                sb.append(',');
+                event(sb, "fallback", "fallback", tid, fallbackStart - origin, fallbackEnd - fallbackStart);
+                sb.append('}');
+            }
+        }
+        sb.append("]}");
+    }
+
+    //完整事件，没有闭合，调用方可以继续追加 args
+    private static void event(StringBuilder sb, String name, String category, int tid, long tsNanos, long durNanos) {
+        sb.append("{\"name\":");
+        string(sb, name);
+        sb.append(",\"cat\":\"").append(category)
+                .append("\",\"ph\":\"X\",\"pid\":").append(PID)
+                .append(",\"tid\":").append(tid)
+                .append(",\"ts\":").append(micros(tsNanos))
+                .append(",\"dur\":").append(micros(Math.max(durNanos, 0L)));
+    }
+
+    private static void threadName(StringBuilder sb, int tid, String name) {
+        sb.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":").append(PID)
+                .append(",\"tid\":").append(tid)
+                .append(",\"args\":{\"name\":");
+        string(sb, name);
+        sb.append("}}");
+    }
+
+    //保留三位小数，trace viewer 支持小数微秒
+    private static String micros(long nanos) {
+        return nanos / 1000 + "." + String.format("%03d", Math.abs(nanos % 1000));
+    }
+
+    private static void string(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if(c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.oraen.box.loader.metrics;
+
+import com.oraen.box.loader.ExecResult;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次请求的关键路径，决定了请求耗时的节点链
+ * 从最后完成的节点开始，每次回溯到提交前最后完成的依赖，这个依赖就是让当前节点开始执行的那个节点
+ * 依赖组凑够后才完成的依赖不会让节点开始执行，不算在关键路径上
+ * 每个节点的贡献是它自己的完成时间减去最后一个依赖的完成时间，包括排队和执行，所有贡献之和就是关键路径的长度
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CriticalPath {
+
+    //按执行顺序排列
+    private List<Segment> segments;
+
+    //从请求开始到关键路径最后一个节点完成的时间
+    private long totalNanos;
+
+    /**
+     * 根据执行完成的请求中每个节点的时间点计算关键路径，没有节点完成时返回空路径
+     */
+    public static CriticalPath analyze(CommonLoadContext loadContext) {
+        ExecutionPlan plan = loadContext.getExecutionPlan();
+        long origin = loadContext.getStartNanos();
+        int current = latest(loadContext, null, plan.size(), 0L);
+        if(current < 0) {
+            return new CriticalPath(Collections.emptyList(), 0L);
+        }
+
+        long total = endNanos(loadContext, current) - origin;
+        List<Segment> segments = new ArrayList<>();
+        while (current >= 0) {
+            int[] dependencies = plan.getDependencies(current);
+            ExecResult execResult = loadContext.getDataLoadResult(current);
+            int previous = latest(loadContext, dependencies, dependencies.length, execResult.getSubmitNanos());
+            long readyNanos = previous < 0 ? origin : endNanos(loadContext, previous);
+            long queueWait = execResult.getSubmitNanos() != 0 && execResult.getStartNanos() != 0
+                    ? execResult.getStartNanos() - execResult.getSubmitNanos() : 0L;
+            long exec = execResult.getStartNanos() != 0 ? execResult.getEndNanos() - execResult.getStartNanos() : 0L;
+            segments.add(new Segment(plan.getName(current), Math.max(execResult.getEndNanos() - readyNanos, 0L), queueWait, exec));
+            current = previous;
+        }
+        Collections.reverse(segments);
+        return new CriticalPath(segments, total);
+    }
+
+    /**
+     * 在 indexes 中找最后完成的节点，indexes 为空时在所有节点中找，没有完成的节点时返回 -1
+     *
+     * @param before 不为 0 时只找在这个时间之前完成的节点
+     */
+    private static int latest(CommonLoadContext loadContext, int[] indexes, int length, long before) {
+        int latest = -1;
+        long latestEnd = 0;
+        for (int i = 0; i < length; i++) {
+            int index = indexes == null ? i : indexes[i];
+            long end = endNanos(loadContext, index);
+            //nanoTime 只能比较差值
+            if(end != 0 && (before == 0 || before - end >= 0) && (latest < 0 || end - latestEnd > 0)) {
+                latest = index;
+                latestEnd = end;
+            }
+        }
+        return latest;
+    }
+
+    private static long endNanos(CommonLoadContext loadContext, int index) {
+        ExecResult execResult = loadContext.getDataLoadResult(index);
+        return execResult == null ? 0L : execResult.getEndNanos();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Segment {
+
+        private String name;
+
+        //从最后一个依赖完成到这个节点完成的时间
+        private long contributionNanos;
+
+        private long queueWaitNanos;
+
+        private long execNanos;
+
+    }
+
+}
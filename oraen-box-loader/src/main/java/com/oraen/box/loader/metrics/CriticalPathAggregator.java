@@ -0,0 +1,121 @@
+package com.oraen.box.loader.metrics;
+
+import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.LoaderHook;
+import com.oraen.box.loader.core.CommonLoadContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按执行计划汇总关键路径，统计每个 DataLoader 出现在关键路径上的次数和平均贡献
+ * 每个请求的分析需要遍历所有节点并创建路径对象，请求量大时可以设置采样率
+ */
+public class CriticalPathAggregator implements LoaderHook {
+
+    private final double sampleRate;
+
+    private final ConcurrentHashMap<String, PlanStats> planStats = new ConcurrentHashMap<>();
+
+    public CriticalPathAggregator() {
+        this(1.0);
+    }
+
+    /**
+     * @param sampleRate 采样率，0 到 1 之间
+     */
+    public CriticalPathAggregator(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public void afterLoad(LoadContext loadContext) {
+        if(! (loadContext instanceof CommonLoadContext)) {
+            return;
+        }
+        if(sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+
+        CommonLoadContext commonLoadContext = (CommonLoadContext) loadContext;
+        record(commonLoadContext.getExecutionPlan().getPlanName(), CriticalPath.analyze(commonLoadContext));
+    }
+
+    public void record(String planName, CriticalPath criticalPath) {
+        PlanStats stats = planStats.get(planName);
+        if(stats == null) {
+            stats = planStats.computeIfAbsent(planName, key -> new PlanStats());
+        }
+
+        stats.requestCount.increment();
+        stats.totalNanos.add(criticalPath.getTotalNanos());
+        for (CriticalPath.Segment segment : criticalPath.getSegments()) {
+            LoaderStats loaderStats = stats.loaderStats.get(segment.getName());
+            if(loaderStats == null) {
+                loaderStats = stats.loaderStats.computeIfAbsent(segment.getName(), key -> new LoaderStats());
+            }
+            loaderStats.onPathCount.increment();
+            loaderStats.contributionNanos.add(segment.getContributionNanos());
+        }
+    }
+
+    /**
+     * @return 执行计划中每个出现在关键路径上的 DataLoader 的统计，按总贡献从大到小排列
+     */
+    public List<CriticalPathStats> stats(String planName) {
+        PlanStats stats = planStats.get(planName);
+        if(stats == null) {
+            return Collections.emptyList();
+        }
+
+        long requestCount = stats.requestCount.sum();
+        long totalNanos = stats.totalNanos.sum();
+        List<CriticalPathStats> result = new ArrayList<>();
+        for (Map.Entry<String, LoaderStats> entry : stats.loaderStats.entrySet()) {
+            long onPathCount = entry.getValue().onPathCount.sum();
+            long contribution = entry.getValue().contributionNanos.sum();
+            result.add(CriticalPathStats.builder()
+                    .name(entry.getKey())
+                    .onPathCount(onPathCount)
+                    .requestCount(requestCount)
+                    .avgContributionNanos(onPathCount == 0 ? 0 : contribution / onPathCount)
+                    .share(totalNanos == 0 ? 0 : (double) contribution / totalNanos)
+                    .build());
+        }
+        result.sort(Comparator.comparingDouble(CriticalPathStats::getShare).reversed());
+        return result;
+    }
+
+    public Set<String> planNames() {
+        return new TreeSet<>(planStats.keySet());
+    }
+
+    public void reset() {
+        planStats.clear();
+    }
+
+    private static class PlanStats {
+
+        private final LongAdder requestCount = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final ConcurrentHashMap<String, LoaderStats> loaderStats = new ConcurrentHashMap<>();
+    }
+
+    private static class LoaderStats {
+
+        private final LongAdder onPathCount = new LongAdder();
+
+        private final LongAdder contributionNanos = new LongAdder();
+    }
+
+}
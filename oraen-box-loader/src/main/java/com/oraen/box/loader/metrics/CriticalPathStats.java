@@ -0,0 +1,32 @@
+package com.oraen.box.loader.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CriticalPathStats {
+
+    private String name;
+
+    //出现在关键路径上的请求数
+    private long onPathCount;
+
+    //统计的请求总数
+    private long requestCount;
+
+    //在关键路径上时的平均贡献
+    private long avgContributionNanos;
+
+    //在所有请求的关键路径总长度中所占的比例，越大说明优化这个节点对整体耗时的影响越大
+    private double share;
+
+    public double getOnPathRatio() {
+        return requestCount == 0 ? 0 : (double) onPathCount / requestCount;
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.oraen.box.loader.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的耗时直方图，分桶方式参考 HdrHistogram
+ * 按 2 的幂分组，每组再线性分成 32 个桶，任意数值的相对误差不超过 1/32，记录时不分配对象
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    //覆盖所有非负 long
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder sum = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong(0);
+
+    public void record(long value) {
+        if(value < 0) {
+            value = 0;
+        }
+
+        counts.incrementAndGet(bucketIndex(value));
+        sum.add(value);
+        long current;
+        while (value > (current = max.get()) && ! max.compareAndSet(current, value)) {
+            //其他线程更新了最大值，重新比较
+        }
+    }
+
+    public HistogramSnapshot snapshot() {
+        long[] snapshotCounts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshotCounts[i] = counts.get(i);
+            count += snapshotCounts[i];
+        }
+        return new HistogramSnapshot(snapshotCounts, count, sum.sum(), max.get());
+    }
+
+    static int bucketIndex(long value) {
+        if(value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+    }
+
+    //桶内的最大值
+    static long bucketUpperBound(int index) {
+        int group = index >>> SUB_BUCKET_BITS;
+        int subBucket = index & (SUB_BUCKET_COUNT - 1);
+        if(group == 0) {
+            return subBucket;
+        }
+
+        int shift = group - 1;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + subBucket) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    /**
+     * 直方图某一时刻的副本
+     */
+    public static class HistogramSnapshot {
+
+        private final long[] counts;
+
+        private final long count;
+
+        private final long sum;
+
+        private final long max;
+
+        HistogramSnapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * @param percentile 0 到 1 之间
+         * @return 对应分位的值，误差不超过 1/32，没有数据时返回 0
+         */
+        public long percentile(double percentile) {
+            if(count == 0) {
+                return 0L;
+            }
+
+            long target = Math.max((long) Math.ceil(percentile * count), 1L);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if(seen >= target) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+    }
+
+}
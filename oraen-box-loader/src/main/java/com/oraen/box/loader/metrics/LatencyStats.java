@@ -0,0 +1,109 @@
+package com.oraen.box.loader.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 单个 DataLoader 最近的耗时统计，保存最近固定数量的样本，用于估算预期耗时和分位数
+ * 分位数按样本快照计算，每新增一批样本才重新排序一次
+ */
+public class LatencyStats {
+
+    private static final int SAMPLE_SIZE = 256;
+
+    //样本太少时不给出估计值
+    private static final int MIN_SAMPLES = 10;
+
+    private static final int RESORT_INTERVAL = 32;
+
+    private final AtomicLongArray samples = new AtomicLongArray(SAMPLE_SIZE);
+
+    private final AtomicLong count = new AtomicLong(0);
+
+    private volatile Snapshot snapshot = new Snapshot(new long[0], 0);
+
+    //最近执行耗时的指数平均，单位纳秒，用来判断节点是否足够快，并发更新时丢失部分样本不影响判断
+    private volatile long recentExecNanos;
+
+    private volatile int execSamples;
+
+    public void record(long latencyMillis) {
+        long index = count.getAndIncrement();
+        samples.set((int) (index % SAMPLE_SIZE), Math.max(latencyMillis, 0L));
+    }
+
+    public void recordExecNanos(long execNanos) {
+        int samples = execSamples;
+        if(samples == 0) {
+            recentExecNanos = execNanos;
+        } else {
+            //权重 1/8，冷启动时的慢样本几十次后就会被冲淡
+            recentExecNanos += (execNanos - recentExecNanos) >> 3;
+        }
+        if(samples < MIN_SAMPLES) {
+            execSamples = samples + 1;
+        }
+    }
+
+    /**
+     * 最近的执行耗时是否低于 thresholdNanos，样本不足时返回 false
+     */
+    public boolean isCheap(long thresholdNanos) {
+        return execSamples >= MIN_SAMPLES && recentExecNanos < thresholdNanos;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @param percentile 0 到 1 之间
+     * @return 对应分位的耗时，样本不足时返回 -1
+     */
+    public long percentile(double percentile) {
+        long total = count.get();
+        if(total < MIN_SAMPLES) {
+            return -1L;
+        }
+
+        Snapshot current = snapshot;
+        if(total - current.count >= RESORT_INTERVAL || current.sorted.length == 0) {
+            current = takeSnapshot(total);
+        }
+
+        long[] sorted = current.sorted;
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.min(Math.max(index, 0), sorted.length - 1)];
+    }
+
+    //预期耗时，取中位数
+    public long expectedLatency() {
+        return percentile(0.5);
+    }
+
+    private Snapshot takeSnapshot(long total) {
+        int size = (int) Math.min(total, SAMPLE_SIZE);
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        Snapshot current = new Snapshot(sorted, total);
+        snapshot = current;
+        return current;
+    }
+
+    private static final class Snapshot {
+
+        private final long[] sorted;
+
+        private final long count;
+
+        private Snapshot(long[] sorted, long count) {
+            this.sorted = sorted;
+            this.count = count;
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.oraen.box.loader.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 DataLoader 名称记录耗时，同名 DataLoader 共用一份统计
+ */
+public class LoaderLatencies {
+
+    private static final ConcurrentHashMap<String, LatencyStats> STATS = new ConcurrentHashMap<>();
+
+    public static LatencyStats getStats(String name) {
+        LatencyStats stats = STATS.get(name);
+        if(stats != null) {
+            return stats;
+        }
+
+        return STATS.computeIfAbsent(name, key -> new LatencyStats());
+    }
+
+    public static Map<String, LatencyStats> stats() {
+        return new TreeMap<>(STATS);
+    }
+
+    public static void remove(String name) {
+        STATS.remove(name);
+    }
+
+}
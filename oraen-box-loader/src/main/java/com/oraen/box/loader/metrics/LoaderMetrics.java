@@ -0,0 +1,160 @@
+package com.oraen.box.loader.metrics;
+
+import com.oraen.box.loader.ExecResult;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个 DataLoader 的指标，计数使用 LongAdder 分段累加，耗时使用无锁直方图，单位为纳秒
+ */
+public class LoaderMetrics implements LoaderMetricsMXBean {
+
+    private static final double NANOS_PER_MILLI = 1000_000.0;
+
+    private final String name;
+
+    private final LongAdder callCount = new LongAdder();
+    private final LongAdder successCount = new LongAdder();
+    private final LongAdder cachedCount = new LongAdder();
+    private final LongAdder fallbackCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder abandonCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder retryCount = new LongAdder();
+
+    //从提交到线程池到开始执行
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+
+    //从开始执行到执行完成，包括重试和兜底
+    private final LatencyHistogram exec = new LatencyHistogram();
+
+    public LoaderMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 记录一个节点的最终执行结果
+     */
+    public void record(ExecResult execResult) {
+        callCount.increment();
+        switch (execResult.getStatus()) {
+            case ExecResult.STATUS_SUCCESS:
+                successCount.increment();
+                break;
+            case ExecResult.STATUS_CACHED:
+                cachedCount.increment();
+                break;
+            case ExecResult.STATUS_FALLBACK:
+                fallbackCount.increment();
+                break;
+            case ExecResult.STATUS_ERROR:
+                errorCount.increment();
+                break;
+            case ExecResult.STATUS_ABANDON:
+                abandonCount.increment();
+                break;
+            default:
+                break;
+        }
+
+        if(execResult.getException() instanceof TimeoutException) {
+            timeoutCount.increment();
+        }
+        if(execResult.getRetry() > 1) {
+            retryCount.add(execResult.getRetry() - 1);
+        }
+
+        long submitNanos = execResult.getSubmitNanos();
+        long startNanos = execResult.getStartNanos();
+        long endNanos = execResult.getEndNanos();
+        if(submitNanos != 0 && startNanos != 0) {
+            queueWait.record(startNanos - submitNanos);
+        }
+        if(startNanos != 0 && endNanos != 0) {
+            exec.record(endNanos - startNanos);
+        }
+    }
+
+    public LoaderMetricsSnapshot snapshot() {
+        return LoaderMetricsSnapshot.builder()
+                .name(name)
+                .callCount(callCount.sum())
+                .successCount(successCount.sum())
+                .cachedCount(cachedCount.sum())
+                .fallbackCount(fallbackCount.sum())
+                .errorCount(errorCount.sum())
+                .abandonCount(abandonCount.sum())
+                .timeoutCount(timeoutCount.sum())
+                .retryCount(retryCount.sum())
+                .queueWait(queueWait.snapshot())
+                .exec(exec.snapshot())
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCallCount() {
+        return callCount.sum();
+    }
+
+    @Override
+    public long getSuccessCount() {
+        return successCount.sum();
+    }
+
+    @Override
+    public long getCachedCount() {
+        return cachedCount.sum();
+    }
+
+    @Override
+    public long getFallbackCount() {
+        return fallbackCount.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    @Override
+    public long getAbandonCount() {
+        return abandonCount.sum();
+    }
+
+    @Override
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    @Override
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    @Override
+    public double getQueueWaitP99Millis() {
+        return queueWait.snapshot().percentile(0.99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getExecP50Millis() {
+        return exec.snapshot().percentile(0.5) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getExecP99Millis() {
+        return exec.snapshot().percentile(0.99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getExecMaxMillis() {
+        return exec.snapshot().getMax() / NANOS_PER_MILLI;
+    }
+
+}
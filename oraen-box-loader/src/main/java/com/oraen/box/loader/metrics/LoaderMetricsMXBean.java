@@ -0,0 +1,34 @@
+package com.oraen.box.loader.metrics;
+
+/**
+ * 单个 DataLoader 的 JMX 指标，耗时单位为毫秒
+ */
+public interface LoaderMetricsMXBean {
+
+    String getName();
+
+    long getCallCount();
+
+    long getSuccessCount();
+
+    long getCachedCount();
+
+    long getFallbackCount();
+
+    long getErrorCount();
+
+    long getAbandonCount();
+
+    long getTimeoutCount();
+
+    long getRetryCount();
+
+    double getQueueWaitP99Millis();
+
+    double getExecP50Millis();
+
+    double getExecP99Millis();
+
+    double getExecMaxMillis();
+
+}
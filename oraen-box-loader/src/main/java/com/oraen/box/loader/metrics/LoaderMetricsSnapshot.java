@@ -0,0 +1,40 @@
+package com.oraen.box.loader.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoaderMetricsSnapshot {
+
+    private String name;
+
+    //执行结束的节点数，包括兜底、失败和被放弃的节点
+    private long callCount;
+
+    private long successCount;
+
+    //命中跨请求缓存
+    private long cachedCount;
+
+    private long fallbackCount;
+
+    private long errorCount;
+
+    private long abandonCount;
+
+    private long timeoutCount;
+
+    //不包括第一次调用
+    private long retryCount;
+
+    //耗时单位为纳秒
+    private LatencyHistogram.HistogramSnapshot queueWait;
+
+    private LatencyHistogram.HistogramSnapshot exec;
+
+}
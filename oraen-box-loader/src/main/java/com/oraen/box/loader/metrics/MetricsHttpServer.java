@@ -0,0 +1,51 @@
+package com.oraen.box.loader.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 可选的 Prometheus 抓取端点，基于 JDK 自带的 com.sun.net.httpserver，不引入额外依赖
+ */
+public class MetricsHttpServer {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+
+    /**
+     * @param port 监听端口，0 代表随机端口
+     */
+    public MetricsHttpServer(MetricsLoaderHook metricsLoaderHook, int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/metrics", exchange -> {
+            try {
+                byte[] body = PrometheusExporter.export(metricsLoaderHook).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+    }
+
+    public MetricsHttpServer start() {
+        server.start();
+        return this;
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.oraen.box.loader.metrics;
+
+import com.oraen.box.loader.ExecResult;
+import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.LoaderHook;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内置的指标钩子，按 DataLoader 和执行计划统计调用结果、排队耗时、执行耗时、重试、兜底、放弃和超时
+ * 在整个请求结束时一次性记录所有节点的最终结果，被放弃的节点也能统计到，记录时不分配对象
+ * 指标可以通过 {@link #loaderSnapshots()} 读取，也可以注册到 JMX，或者用 {@link PrometheusExporter} 导出
+ */
+public class MetricsLoaderHook implements LoaderHook {
+
+    public static final String JMX_DOMAIN = "com.oraen.box.loader";
+
+    private final ConcurrentHashMap<String, LoaderMetrics> loaderMetrics = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, RequestMetrics> requestMetrics = new ConcurrentHashMap<>();
+
+    private volatile MBeanServer mBeanServer;
+
+    @Override
+    public void afterLoad(LoadContext loadContext) {
+        if(! (loadContext instanceof CommonLoadContext)) {
+            return;
+        }
+
+        CommonLoadContext commonLoadContext = (CommonLoadContext) loadContext;
+        ExecutionPlan plan = commonLoadContext.getExecutionPlan();
+        for (int i = 0; i < plan.size(); i++) {
+            ExecResult execResult = commonLoadContext.getDataLoadResult(i);
+            if(execResult != null) {
+                getLoaderMetrics(plan.getName(i)).record(execResult);
+            }
+        }
+
+        long latencyNanos = commonLoadContext.getEndNanos() - commonLoadContext.getStartNanos();
+        if(commonLoadContext.getEndNanos() == 0) {
+            latencyNanos = TimeUnit.MILLISECONDS.toNanos(commonLoadContext.getExeTime());
+        }
+        getRequestMetrics(plan.getPlanName()).record(latencyNanos, commonLoadContext.getThrowable() == null);
+    }
+
+    public LoaderMetrics getLoaderMetrics(String name) {
+        LoaderMetrics metrics = loaderMetrics.get(name);
+        if(metrics != null) {
+            return metrics;
+        }
+
+        return loaderMetrics.computeIfAbsent(name, key -> {
+            LoaderMetrics created = new LoaderMetrics(key);
+            register("LoaderMetrics", key, created);
+            return created;
+        });
+    }
+
+    public RequestMetrics getRequestMetrics(String name) {
+        RequestMetrics metrics = requestMetrics.get(name);
+        if(metrics != null) {
+            return metrics;
+        }
+
+        return requestMetrics.computeIfAbsent(name, key -> {
+            RequestMetrics created = new RequestMetrics(key);
+            register("RequestMetrics", key, created);
+            return created;
+        });
+    }
+
+    public Map<String, LoaderMetricsSnapshot> loaderSnapshots() {
+        Map<String, LoaderMetricsSnapshot> snapshots = new TreeMap<>();
+        for (LoaderMetrics metrics : loaderMetrics.values()) {
+            snapshots.put(metrics.getName(), metrics.snapshot());
+        }
+        return snapshots;
+    }
+
+    public Map<String, RequestMetricsSnapshot> requestSnapshots() {
+        Map<String, RequestMetricsSnapshot> snapshots = new TreeMap<>();
+        for (RequestMetrics metrics : requestMetrics.values()) {
+            snapshots.put(metrics.getName(), metrics.snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * 把已有和之后出现的指标注册到平台 MBeanServer，ObjectName 为 com.oraen.box.loader:type=LoaderMetrics,name=xxx
+     */
+    public synchronized void registerMBeans() {
+        registerMBeans(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public synchronized void registerMBeans(MBeanServer mBeanServer) {
+        this.mBeanServer = mBeanServer;
+        for (LoaderMetrics metrics : loaderMetrics.values()) {
+            register("LoaderMetrics", metrics.getName(), metrics);
+        }
+        for (RequestMetrics metrics : requestMetrics.values()) {
+            register("RequestMetrics", metrics.getName(), metrics);
+        }
+    }
+
+    public synchronized void unregisterMBeans() {
+        MBeanServer mBeanServer = this.mBeanServer;
+        if(mBeanServer == null) {
+            return;
+        }
+
+        this.mBeanServer = null;
+        try {
+            for (String name : loaderMetrics.keySet()) {
+                ObjectName objectName = objectName("LoaderMetrics", name);
+                if(mBeanServer.isRegistered(objectName)) {
+                    mBeanServer.unregisterMBean(objectName);
+                }
+            }
+            for (String name : requestMetrics.keySet()) {
+                ObjectName objectName = objectName("RequestMetrics", name);
+                if(mBeanServer.isRegistered(objectName)) {
+                    mBeanServer.unregisterMBean(objectName);
+                }
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister loader metrics MBeans", e);
+        }
+    }
+
+    public static ObjectName objectName(String type, String name) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+    }
+
+    private void register(String type, String name, Object mBean) {
+        MBeanServer mBeanServer = this.mBeanServer;
+        if(mBeanServer == null) {
+            return;
+        }
+
+        try {
+            ObjectName objectName = objectName(type, name);
+            if(! mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(mBean, objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register loader metrics MBean " + name, e);
+        }
+    }
+
+}
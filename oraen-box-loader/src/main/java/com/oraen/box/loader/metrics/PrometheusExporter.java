@@ -0,0 +1,93 @@
+package com.oraen.box.loader.metrics;
+
+import java.util.Map;
+
+/**
+ * 按 Prometheus 文本格式导出 MetricsLoaderHook 的指标，耗时单位为秒
+ */
+public class PrometheusExporter {
+
+    private static final double NANOS_PER_SECOND = 1000_000_000.0;
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    public static String export(MetricsLoaderHook metricsLoaderHook) {
+        StringBuilder sb = new StringBuilder(4096);
+        Map<String, LoaderMetricsSnapshot> loaders = metricsLoaderHook.loaderSnapshots();
+        Map<String, RequestMetricsSnapshot> requests = metricsLoaderHook.requestSnapshots();
+
+        type(sb, "oraen_loader_calls_total", "counter", "Finished DataLoader nodes by final status");
+        for (LoaderMetricsSnapshot snapshot : loaders.values()) {
+            String loader = escape(snapshot.getName());
+            counter(sb, "oraen_loader_calls_total", loader, "success", snapshot.getSuccessCount());
+            counter(sb, "oraen_loader_calls_total", loader, "cached", snapshot.getCachedCount());
+            counter(sb, "oraen_loader_calls_total", loader, "fallback", snapshot.getFallbackCount());
+            counter(sb, "oraen_loader_calls_total", loader, "error", snapshot.getErrorCount());
+            counter(sb, "oraen_loader_calls_total", loader, "abandon", snapshot.getAbandonCount());
+        }
+
+        type(sb, "oraen_loader_timeouts_total", "counter", "DataLoader nodes that fell back because of a timeout");
+        for (LoaderMetricsSnapshot snapshot : loaders.values()) {
+            sample(sb, "oraen_loader_timeouts_total", "loader=\"" + escape(snapshot.getName()) + "\"", snapshot.getTimeoutCount());
+        }
+
+        type(sb, "oraen_loader_retries_total", "counter", "DataLoader retries, first calls excluded");
+        for (LoaderMetricsSnapshot snapshot : loaders.values()) {
+            sample(sb, "oraen_loader_retries_total", "loader=\"" + escape(snapshot.getName()) + "\"", snapshot.getRetryCount());
+        }
+
+        type(sb, "oraen_loader_queue_wait_seconds", "summary", "Time from submitting a node to the executor until it starts");
+        for (LoaderMetricsSnapshot snapshot : loaders.values()) {
+            summary(sb, "oraen_loader_queue_wait_seconds", "loader=\"" + escape(snapshot.getName()) + "\"", snapshot.getQueueWait());
+        }
+
+        type(sb, "oraen_loader_exec_seconds", "summary", "Time from node start until its result is written, retries and fallback included");
+        for (LoaderMetricsSnapshot snapshot : loaders.values()) {
+            summary(sb, "oraen_loader_exec_seconds", "loader=\"" + escape(snapshot.getName()) + "\"", snapshot.getExec());
+        }
+
+        type(sb, "oraen_loader_requests_total", "counter", "Finished requests by execution plan");
+        for (RequestMetricsSnapshot snapshot : requests.values()) {
+            String plan = "plan=\"" + escape(snapshot.getName()) + "\"";
+            sample(sb, "oraen_loader_requests_total", plan + ",result=\"success\"", snapshot.getRequestCount() - snapshot.getFailureCount());
+            sample(sb, "oraen_loader_requests_total", plan + ",result=\"failure\"", snapshot.getFailureCount());
+        }
+
+        type(sb, "oraen_loader_request_seconds", "summary", "Request latency by execution plan");
+        for (RequestMetricsSnapshot snapshot : requests.values()) {
+            summary(sb, "oraen_loader_request_seconds", "plan=\"" + escape(snapshot.getName()) + "\"", snapshot.getLatency());
+        }
+        return sb.toString();
+    }
+
+    private static void type(StringBuilder sb, String metric, String type, String help) {
+        sb.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(metric).append(' ').append(type).append('\n');
+    }
+
+    private static void counter(StringBuilder sb, String metric, String loader, String status, long value) {
+        sample(sb, metric, "loader=\"" + loader + "\",status=\"" + status + "\"", value);
+    }
+
+    private static void sample(StringBuilder sb, String metric, String labels, double value) {
+        sb.append(metric).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String metric, String labels, long value) {
+        sb.append(metric).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static void summary(StringBuilder sb, String metric, String labels, LatencyHistogram.HistogramSnapshot histogram) {
+        for (double quantile : QUANTILES) {
+            sample(sb, metric, labels + ",quantile=\"" + quantile + "\"", histogram.percentile(quantile) / NANOS_PER_SECOND);
+        }
+        sample(sb, metric + "_sum", labels, histogram.getSum() / NANOS_PER_SECOND);
+        sample(sb, metric + "_count", labels, histogram.getCount());
+    }
+
+    //标签值需要转义反斜杠、双引号和换行
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+}
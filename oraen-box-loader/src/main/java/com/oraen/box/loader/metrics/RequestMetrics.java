@@ -0,0 +1,71 @@
+package com.oraen.box.loader.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个执行计划的请求级指标，耗时单位为纳秒
+ */
+public class RequestMetrics implements RequestMetricsMXBean {
+
+    private static final double NANOS_PER_MILLI = 1000_000.0;
+
+    private final String name;
+
+    private final LongAdder requestCount = new LongAdder();
+
+    private final LongAdder failureCount = new LongAdder();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public RequestMetrics(String name) {
+        this.name = name;
+    }
+
+    public void record(long latencyNanos, boolean success) {
+        requestCount.increment();
+        if(! success) {
+            failureCount.increment();
+        }
+        latency.record(latencyNanos);
+    }
+
+    public RequestMetricsSnapshot snapshot() {
+        return RequestMetricsSnapshot.builder()
+                .name(name)
+                .requestCount(requestCount.sum())
+                .failureCount(failureCount.sum())
+                .latency(latency.snapshot())
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    @Override
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    @Override
+    public double getLatencyP50Millis() {
+        return latency.snapshot().percentile(0.5) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getLatencyP99Millis() {
+        return latency.snapshot().percentile(0.99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getLatencyMaxMillis() {
+        return latency.snapshot().getMax() / NANOS_PER_MILLI;
+    }
+
+}
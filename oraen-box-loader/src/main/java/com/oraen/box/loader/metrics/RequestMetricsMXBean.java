@@ -0,0 +1,20 @@
+package com.oraen.box.loader.metrics;
+
+/**
+ * 单个执行计划的 JMX 指标，耗时单位为毫秒
+ */
+public interface RequestMetricsMXBean {
+
+    String getName();
+
+    long getRequestCount();
+
+    long getFailureCount();
+
+    double getLatencyP50Millis();
+
+    double getLatencyP99Millis();
+
+    double getLatencyMaxMillis();
+
+}
@@ -0,0 +1,25 @@
+package com.oraen.box.loader.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RequestMetricsSnapshot {
+
+    //执行计划名称，一般是根 DataLoader 的名称
+    private String name;
+
+    private long requestCount;
+
+    //整个请求返回异常的次数
+    private long failureCount;
+
+    //耗时单位为纳秒
+    private LatencyHistogram.HistogramSnapshot latency;
+
+}
@@ -0,0 +1,56 @@
+package com.oraen.box.loader.metrics;
+
+import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.LoaderHook;
+import com.oraen.box.loader.core.CommonLoadContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 按采样率记录请求的执行时间线，请求结束后导出为 Chrome Trace Event JSON 交给 sink
+ * 没有被采样的请求只在耗时超过 slowThresholdMillis 时导出，此时缺少兜底的时间点
+ * 采样率为 0 且不设置慢请求阈值时不产生任何额外开销
+ */
+public class TimelineLoaderHook implements LoaderHook {
+
+    private final double sampleRate;
+
+    private final long slowThresholdNanos;
+
+    private final Consumer<String> sink;
+
+    /**
+     * @param sampleRate 采样率，0 到 1 之间
+     * @param slowThresholdMillis 耗时超过这个值的请求总是导出，不大于 0 代表不按耗时导出
+     * @param sink 接收导出的 JSON，比如写入日志或者文件
+     */
+    public TimelineLoaderHook(double sampleRate, long slowThresholdMillis, Consumer<String> sink) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThresholdMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis) : Long.MAX_VALUE;
+        this.sink = sink;
+    }
+
+    @Override
+    public void beforeLoad(LoadContext loadContext) {
+        if(sampleRate > 0 && loadContext instanceof CommonLoadContext
+                && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            ((CommonLoadContext) loadContext).setTimelineEnabled(true);
+        }
+    }
+
+    @Override
+    public void afterLoad(LoadContext loadContext) {
+        if(! (loadContext instanceof CommonLoadContext)) {
+            return;
+        }
+
+        CommonLoadContext commonLoadContext = (CommonLoadContext) loadContext;
+        if(commonLoadContext.isTimelineEnabled()
+                || commonLoadContext.getEndNanos() - commonLoadContext.getStartNanos() >= slowThresholdNanos) {
+            sink.accept(ChromeTraceExporter.export(commonLoadContext));
+        }
+    }
+
+}
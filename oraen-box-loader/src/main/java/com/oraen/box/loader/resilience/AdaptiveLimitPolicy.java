@@ -0,0 +1,44 @@
+package com.oraen.box.loader.resilience;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AdaptiveLimitPolicy {
+
+    //初始并发上限
+    @Builder.Default
+    private int initialLimit = 20;
+
+    @Builder.Default
+    private int minLimit = 1;
+
+    @Builder.Default
+    private int maxLimit = 200;
+
+    //短期耗时超过长期耗时的多少倍才开始降低并发上限
+    @Builder.Default
+    private double rttTolerance = 1.5;
+
+    //新计算的并发上限所占的权重，越大调整越快
+    @Builder.Default
+    private double smoothing = 0.2;
+
+    //长期耗时按多少个样本做指数平均，代表下游无负载时的耗时
+    @Builder.Default
+    private int longWindow = 600;
+
+    //调用失败时并发上限乘以的比例
+    @Builder.Default
+    private double backoffRatio = 0.9;
+
+    //超过并发上限时最多等待的时间，不大于 0 时直接兜底
+    @Builder.Default
+    private long maxWaitMillis = 0L;
+
+}
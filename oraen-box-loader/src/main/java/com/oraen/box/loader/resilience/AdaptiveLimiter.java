@@ -0,0 +1,216 @@
+package com.oraen.box.loader.resilience;
+
+import com.oraen.box.loader.core.LoadTimer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个 DataLoader 的自适应并发上限，参考 Netflix concurrency-limits 的 Gradient2 算法
+ * 长期耗时的指数平均代表下游无负载时的耗时，短期耗时明显变长说明下游开始排队，按两者的比例降低并发上限，
+ * 耗时正常且并发数接近上限时每次增加 sqrt(上限) 的排队余量，调用失败时按比例快速降低
+ */
+public class AdaptiveLimiter {
+
+    //长期耗时前多少个样本直接取平均
+    private static final int WARMUP_SAMPLES = 10;
+
+    private final String name;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double rttTolerance;
+
+    private final double smoothing;
+
+    private final double longWindowFactor;
+
+    private final double backoffRatio;
+
+    private final AtomicInteger inflight = new AtomicInteger(0);
+
+    private final Queue<Waiter> waiting = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private volatile int limit;
+
+    //以下字段由 this 保护
+    private double estimatedLimit;
+
+    private double longRtt;
+
+    private long sampleCount;
+
+    public AdaptiveLimiter(String name, AdaptiveLimitPolicy adaptiveLimitPolicy) {
+        this.name = name;
+        this.minLimit = Math.max(adaptiveLimitPolicy.getMinLimit(), 1);
+        this.maxLimit = Math.max(adaptiveLimitPolicy.getMaxLimit(), minLimit);
+        this.rttTolerance = Math.max(adaptiveLimitPolicy.getRttTolerance(), 1.0);
+        this.smoothing = Math.min(Math.max(adaptiveLimitPolicy.getSmoothing(), 0.01), 1.0);
+        this.longWindowFactor = 2.0 / (Math.max(adaptiveLimitPolicy.getLongWindow(), 1) + 1);
+        this.backoffRatio = Math.min(Math.max(adaptiveLimitPolicy.getBackoffRatio(), 0.1), 1.0);
+        this.estimatedLimit = Math.min(Math.max(adaptiveLimitPolicy.getInitialLimit(), minLimit), maxLimit);
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * 尝试占用一个并发数，成功后必须调用 release
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if(current >= limit) {
+                return false;
+            }
+            if(inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 占用一个并发数，超过上限时最多等待 maxWaitMillis，等待期间不占用线程
+     *
+     * @param onAcquired 拿到并发数后调用，可能在归还并发数的线程上调用，需要足够轻量
+     * @param onRejected 等待超时后调用，可能在定时器线程上调用，需要足够轻量
+     */
+    public void acquire(long maxWaitMillis, Runnable onAcquired, Runnable onRejected) {
+        if(tryAcquire()) {
+            onAcquired.run();
+            return;
+        }
+
+        if(maxWaitMillis <= 0) {
+            rejectedCount.increment();
+            onRejected.run();
+            return;
+        }
+
+        Waiter waiter = new Waiter(onAcquired);
+        waiting.offer(waiter);
+        waiter.timeout = LoadTimer.schedule(() -> {
+            if(waiter.claim()) {
+                waiting.remove(waiter);
+                rejectedCount.increment();
+                onRejected.run();
+            }
+        }, maxWaitMillis, TimeUnit.MILLISECONDS);
+        //入队前可能已经有并发数被释放
+        drain();
+    }
+
+    /**
+     * 归还并发数并记录这次调用的耗时
+     *
+     * @param rttNanos 从拿到并发数到调用结束的耗时
+     * @param dropped 调用是否失败，失败时快速降低并发上限
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int current = inflight.get();
+        update(rttNanos, current, dropped);
+        inflight.decrementAndGet();
+        drain();
+    }
+
+    //归还并发数，不记录耗时，用于调用被取消的情况
+    public void release() {
+        inflight.decrementAndGet();
+        drain();
+    }
+
+    private synchronized void update(long rttNanos, int currentInflight, boolean dropped) {
+        if(dropped) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * backoffRatio);
+            limit = (int) estimatedLimit;
+            return;
+        }
+
+        double rtt = Math.max(rttNanos, 1L);
+        sampleCount ++;
+        if(sampleCount <= WARMUP_SAMPLES) {
+            longRtt += (rtt - longRtt) / sampleCount;
+            return;
+        }
+
+        longRtt = longRtt * (1 - longWindowFactor) + rtt * longWindowFactor;
+        //长期耗时被持续的慢调用拉高后，短期耗时恢复时让长期耗时更快回落
+        if(longRtt / rtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        //并发数远没有达到上限时，耗时不能说明上限是否合适
+        if(currentInflight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / rtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    private void drain() {
+        while (! waiting.isEmpty() && tryAcquire()) {
+            Waiter waiter = waiting.poll();
+            if(waiter == null || ! waiter.claim()) {
+                //被其他线程取走或者已经等待超时
+                inflight.decrementAndGet();
+                continue;
+            }
+
+            ScheduledFuture<?> timeout = waiter.timeout;
+            if(timeout != null) {
+                timeout.cancel(false);
+            }
+            waiter.onAcquired.run();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public synchronized double getLongRttMillis() {
+        return longRtt / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private static final class Waiter {
+
+        private final Runnable onAcquired;
+
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+        private volatile ScheduledFuture<?> timeout;
+
+        Waiter(Runnable onAcquired) {
+            this.onAcquired = onAcquired;
+        }
+
+        //拿到并发数和等待超时只有一个生效
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.oraen.box.loader.resilience;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 DataLoader 名称管理自适应并发上限，同名 DataLoader 共用一个上限，在第一次使用时按当时的策略创建
+ */
+public class AdaptiveLimiters {
+
+    private static final ConcurrentHashMap<String, AdaptiveLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    public static AdaptiveLimiter getLimiter(String name, AdaptiveLimitPolicy adaptiveLimitPolicy) {
+        AdaptiveLimiter limiter = LIMITERS.get(name);
+        if(limiter != null) {
+            return limiter;
+        }
+
+        return LIMITERS.computeIfAbsent(name, key -> new AdaptiveLimiter(key, adaptiveLimitPolicy));
+    }
+
+    /**
+     * @return 对应的并发上限，还没有使用过时返回 null
+     */
+    public static AdaptiveLimiter getLimiter(String name) {
+        return LIMITERS.get(name);
+    }
+
+    public static Map<String, AdaptiveLimiter> limiters() {
+        return new TreeMap<>(LIMITERS);
+    }
+
+    public static void remove(String name) {
+        LIMITERS.remove(name);
+    }
+
+}
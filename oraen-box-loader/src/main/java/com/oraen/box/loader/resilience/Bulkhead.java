@@ -0,0 +1,110 @@
+package com.oraen.box.loader.resilience;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 隔离舱，限制同一组 DataLoader 同时执行的节点数，避免一个慢的下游占满共用的线程池
+ * 没有空闲并发数时按 OverflowPolicy 排队、兜底或者失败，排队的任务在有节点释放并发数时按先后顺序执行
+ */
+public class Bulkhead {
+
+    private final String name;
+
+    private final int maxConcurrentCalls;
+
+    private final int maxQueueSize;
+
+    private final AtomicInteger activeCalls = new AtomicInteger(0);
+
+    private final AtomicInteger queueSize = new AtomicInteger(0);
+
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    public Bulkhead(String name, BulkheadPolicy bulkheadPolicy) {
+        this.name = name;
+        this.maxConcurrentCalls = Math.max(bulkheadPolicy.getMaxConcurrentCalls(), 1);
+        this.maxQueueSize = Math.max(bulkheadPolicy.getMaxQueueSize(), 0);
+    }
+
+    /**
+     * 尝试占用一个并发数，成功后必须调用 {@link #release()}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int active = activeCalls.get();
+            if(active >= maxConcurrentCalls) {
+                return false;
+            }
+            if(activeCalls.compareAndSet(active, active + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 排队等待并发数，拿到并发数后在释放并发数的线程上执行 task，task 需要足够轻量
+     *
+     * @return 队列已满时返回 false
+     */
+    public boolean enqueue(Runnable task) {
+        if(queueSize.incrementAndGet() > maxQueueSize) {
+            queueSize.decrementAndGet();
+            rejectedCount.increment();
+            return false;
+        }
+
+        waiting.offer(task);
+        //入队前可能已经有并发数被释放
+        drain();
+        return true;
+    }
+
+    public void release() {
+        activeCalls.decrementAndGet();
+        drain();
+    }
+
+    public void recordRejected() {
+        rejectedCount.increment();
+    }
+
+    private void drain() {
+        while (! waiting.isEmpty() && tryAcquire()) {
+            Runnable task = waiting.poll();
+            if(task == null) {
+                //被其他线程取走了
+                activeCalls.decrementAndGet();
+                continue;
+            }
+
+            queueSize.decrementAndGet();
+            task.run();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getActiveCalls() {
+        return activeCalls.get();
+    }
+
+    public int getQueueSize() {
+        return queueSize.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.oraen.box.loader.resilience;
+
+/**
+ * 隔离舱没有空闲并发数且不能排队时的异常
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BulkheadFullException(String name) {
+        super("Bulkhead " + name + " is full");
+    }
+
+    //隔离舱满时会频繁创建，不需要堆栈
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.oraen.box.loader.resilience;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.concurrent.Executor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkheadPolicy {
+
+    //隔离舱名称，同名的 DataLoader 共用并发数，为空时使用 DataLoader 的名称
+    private String name;
+
+    //同时执行的最大节点数，异步节点在 future 完成前一直占用
+    @Builder.Default
+    private int maxConcurrentCalls = 10;
+
+    //排队的最大节点数，只在 OverflowPolicy.QUEUE 时生效
+    @Builder.Default
+    private int maxQueueSize = 100;
+
+    @Builder.Default
+    private OverflowPolicy overflowPolicy = OverflowPolicy.QUEUE;
+
+    //隔离舱专用的线程池，为空时使用请求的线程池
+    private Executor executor;
+
+}
@@ -0,0 +1,38 @@
+package com.oraen.box.loader.resilience;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按隔离舱名称管理隔离舱，同名的隔离舱共用并发数，隔离舱在第一次使用时按当时的策略创建
+ */
+public class Bulkheads {
+
+    private static final ConcurrentHashMap<String, Bulkhead> BULKHEADS = new ConcurrentHashMap<>();
+
+    public static Bulkhead getBulkhead(String name, BulkheadPolicy bulkheadPolicy) {
+        Bulkhead bulkhead = BULKHEADS.get(name);
+        if(bulkhead != null) {
+            return bulkhead;
+        }
+
+        return BULKHEADS.computeIfAbsent(name, key -> new Bulkhead(key, bulkheadPolicy));
+    }
+
+    /**
+     * @return 对应的隔离舱，还没有使用过时返回 null
+     */
+    public static Bulkhead getBulkhead(String name) {
+        return BULKHEADS.get(name);
+    }
+
+    public static Map<String, Bulkhead> bulkheads() {
+        return new TreeMap<>(BULKHEADS);
+    }
+
+    public static void remove(String name) {
+        BULKHEADS.remove(name);
+    }
+
+}
@@ -0,0 +1,228 @@
+package com.oraen.box.loader.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 单个 DataLoader 的熔断器，按时间分桶的滑动窗口统计失败率和慢调用率，全程无锁
+ * 窗口统计是近似值，桶切换时的并发写入可能丢失少量计数
+ */
+public class CircuitBreaker {
+
+    private final String name;
+
+    private final CircuitBreakerPolicy policy;
+
+    private final long bucketMillis;
+
+    private final Bucket[] buckets;
+
+    private final AtomicReference<CircuitState> state = new AtomicReference<>(CircuitState.CLOSED);
+
+    //进入当前状态的时间
+    private volatile long stateTime = System.currentTimeMillis();
+
+    //半开状态已经放行的调用数和成功数
+    private final AtomicInteger halfOpenPermits = new AtomicInteger(0);
+
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger(0);
+
+    //熔断期间直接拒绝的调用数
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+
+    public CircuitBreaker(String name, CircuitBreakerPolicy policy) {
+        this.name = name;
+        this.policy = policy;
+        int bucketCount = Math.max(policy.getBucketCount(), 1);
+        this.bucketMillis = Math.max(policy.getWindowMillis() / bucketCount, 1L);
+        this.buckets = new Bucket[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    /**
+     * 调用前检查是否放行
+     *
+     * @param listener 状态变化时回调
+     * @return 熔断时返回 false
+     */
+    public boolean tryAcquirePermission(StateListener listener) {
+        CircuitState current = state.get();
+        if(current == CircuitState.CLOSED) {
+            return true;
+        }
+
+        long now = System.currentTimeMillis();
+        if(current == CircuitState.OPEN) {
+            if(now - stateTime < policy.getOpenDurationMillis() || ! transition(CircuitState.OPEN, CircuitState.HALF_OPEN, listener)) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+        } else if(now - stateTime >= policy.getOpenDurationMillis()) {
+            //半开状态放行的调用一直没有结果，比如被取消，重新开始试探
+            halfOpenPermits.set(0);
+            halfOpenSuccesses.set(0);
+            stateTime = now;
+        }
+
+        if(halfOpenPermits.getAndIncrement() < policy.getHalfOpenCalls()) {
+            return true;
+        }
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    public void onSuccess(long durationMillis, StateListener listener) {
+        boolean slow = durationMillis >= policy.getSlowCallDurationMillis();
+        CircuitState current = state.get();
+        if(current == CircuitState.HALF_OPEN) {
+            if(slow && policy.getSlowCallRateThreshold() <= 1) {
+                transition(CircuitState.HALF_OPEN, CircuitState.OPEN, listener);
+            } else if(halfOpenSuccesses.incrementAndGet() >= policy.getHalfOpenCalls()) {
+                transition(CircuitState.HALF_OPEN, CircuitState.CLOSED, listener);
+            }
+            return;
+        }
+
+        if(current == CircuitState.CLOSED) {
+            record(false, slow, listener);
+        }
+    }
+
+    public void onError(long durationMillis, StateListener listener) {
+        CircuitState current = state.get();
+        if(current == CircuitState.HALF_OPEN) {
+            transition(CircuitState.HALF_OPEN, CircuitState.OPEN, listener);
+            return;
+        }
+
+        if(current == CircuitState.CLOSED) {
+            record(true, durationMillis >= policy.getSlowCallDurationMillis(), listener);
+        }
+    }
+
+    public CircuitState getState() {
+        return state.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    //窗口内的失败率，调用数不足时返回 -1
+    public double getFailureRate() {
+        long[] counts = windowCounts(System.currentTimeMillis());
+        return counts[0] < policy.getMinimumCalls() ? -1 : (double) counts[1] / counts[0];
+    }
+
+    /**
+     * 手动恢复为关闭状态并清空统计
+     */
+    public void reset() {
+        state.set(CircuitState.CLOSED);
+        stateTime = System.currentTimeMillis();
+        for (Bucket bucket : buckets) {
+            bucket.reset(-1L);
+        }
+    }
+
+    private void record(boolean failure, boolean slow, StateListener listener) {
+        long now = System.currentTimeMillis();
+        Bucket bucket = currentBucket(now);
+        bucket.calls.incrementAndGet();
+        if(failure) {
+            bucket.failures.incrementAndGet();
+        }
+        if(slow) {
+            bucket.slowCalls.incrementAndGet();
+        }
+
+        long[] counts = windowCounts(now);
+        if(counts[0] < policy.getMinimumCalls()) {
+            return;
+        }
+
+        if((double) counts[1] / counts[0] >= policy.getFailureRateThreshold()
+                || (double) counts[2] / counts[0] >= policy.getSlowCallRateThreshold()) {
+            transition(CircuitState.CLOSED, CircuitState.OPEN, listener);
+        }
+    }
+
+    private Bucket currentBucket(long now) {
+        long bucketStart = now - now % bucketMillis;
+        Bucket bucket = buckets[(int) ((now / bucketMillis) % buckets.length)];
+        long start = bucket.start.get();
+        //桶已经过期，抢到的线程负责清零
+        if(start != bucketStart && bucket.start.compareAndSet(start, bucketStart)) {
+            bucket.reset(bucketStart);
+        }
+        return bucket;
+    }
+
+    //返回窗口内的调用数、失败数、慢调用数
+    private long[] windowCounts(long now) {
+        long windowStart = now - bucketMillis * buckets.length;
+        long calls = 0;
+        long failures = 0;
+        long slowCalls = 0;
+        for (Bucket bucket : buckets) {
+            if(bucket.start.get() > windowStart) {
+                calls += bucket.calls.get();
+                failures += bucket.failures.get();
+                slowCalls += bucket.slowCalls.get();
+            }
+        }
+        return new long[]{calls, failures, slowCalls};
+    }
+
+    private boolean transition(CircuitState from, CircuitState to, StateListener listener) {
+        if(! state.compareAndSet(from, to)) {
+            return false;
+        }
+
+        stateTime = System.currentTimeMillis();
+        if(to == CircuitState.HALF_OPEN) {
+            halfOpenPermits.set(0);
+            halfOpenSuccesses.set(0);
+        } else if(to == CircuitState.CLOSED) {
+            for (Bucket bucket : buckets) {
+                bucket.reset(-1L);
+            }
+        }
+
+        if(listener != null) {
+            listener.onStateChange(name, from, to);
+        }
+        return true;
+    }
+
+    public interface StateListener {
+
+        void onStateChange(String name, CircuitState from, CircuitState to);
+    }
+
+    private static final class Bucket {
+
+        private final AtomicLong start = new AtomicLong(-1L);
+
+        private final AtomicLong calls = new AtomicLong(0);
+
+        private final AtomicLong failures = new AtomicLong(0);
+
+        private final AtomicLong slowCalls = new AtomicLong(0);
+
+        private void reset(long bucketStart) {
+            calls.set(0);
+            failures.set(0);
+            slowCalls.set(0);
+            start.set(bucketStart);
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.oraen.box.loader.resilience;
+
+/**
+ * 熔断状态下没有真正调用 DataLoader，直接传给兜底逻辑的异常
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CircuitBreakerOpenException(String name) {
+        super("Circuit breaker of DataLoader " + name + " is open");
+    }
+
+    //每次熔断都会创建，不需要堆栈
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+}
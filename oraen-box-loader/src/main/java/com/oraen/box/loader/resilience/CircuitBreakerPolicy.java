@@ -0,0 +1,46 @@
+package com.oraen.box.loader.resilience;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CircuitBreakerPolicy {
+
+    //失败率达到多少时熔断，0 到 1 之间
+    @Builder.Default
+    private double failureRateThreshold = 0.5;
+
+    //慢调用率达到多少时熔断，0 到 1 之间，大于 1 代表不按慢调用熔断
+    @Builder.Default
+    private double slowCallRateThreshold = 1.1;
+
+    //耗时超过多少算慢调用
+    @Builder.Default
+    private long slowCallDurationMillis = 1000L;
+
+    //统计窗口长度
+    @Builder.Default
+    private long windowMillis = 10000L;
+
+    //统计窗口分成多少个桶，过期的桶整体丢弃
+    @Builder.Default
+    private int bucketCount = 10;
+
+    //窗口内调用数达到多少才开始判断是否熔断
+    @Builder.Default
+    private int minimumCalls = 20;
+
+    //熔断持续时间，之后进入半开状态
+    @Builder.Default
+    private long openDurationMillis = 5000L;
+
+    //半开状态放行的调用数，全部成功后恢复，任意一次失败重新熔断
+    @Builder.Default
+    private int halfOpenCalls = 3;
+
+}
@@ -0,0 +1,40 @@
+package com.oraen.box.loader.resilience;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 DataLoader 名称管理熔断器，同名 DataLoader 共用一个熔断器，熔断器在第一次使用时按当时的策略创建
+ */
+public class CircuitBreakers {
+
+    private static final ConcurrentHashMap<String, CircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+
+    public static CircuitBreaker getCircuitBreaker(String name, CircuitBreakerPolicy circuitBreakerPolicy) {
+        CircuitBreaker circuitBreaker = BREAKERS.get(name);
+        if(circuitBreaker != null) {
+            return circuitBreaker;
+        }
+
+        return BREAKERS.computeIfAbsent(name, key -> new CircuitBreaker(key, circuitBreakerPolicy));
+    }
+
+    /**
+     * @return 对应的熔断器，还没有使用过时返回 null
+     */
+    public static CircuitBreaker getCircuitBreaker(String name) {
+        return BREAKERS.get(name);
+    }
+
+    public static Map<String, CircuitState> states() {
+        Map<String, CircuitState> re = new TreeMap<>();
+        BREAKERS.forEach((name, circuitBreaker) -> re.put(name, circuitBreaker.getState()));
+        return re;
+    }
+
+    public static void remove(String name) {
+        BREAKERS.remove(name);
+    }
+
+}
@@ -0,0 +1,10 @@
+package com.oraen.box.loader.resilience;
+
+public enum CircuitState {
+    //正常调用，统计失败率和慢调用率
+    CLOSED,
+    //熔断，直接执行兜底逻辑
+    OPEN,
+    //熔断时间结束后放行少量调用试探下游是否恢复
+    HALF_OPEN,
+}
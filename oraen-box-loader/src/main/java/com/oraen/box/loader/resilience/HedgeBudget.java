@@ -0,0 +1,75 @@
+package com.oraen.box.loader.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 全局对冲预算，限制对冲带来的额外调用量
+ * 每次开启对冲的调用存入 ratio 个令牌，每次对冲消耗一个令牌，令牌数有上限，
+ * 长期来看对冲调用数不超过普通调用数的 ratio 倍
+ */
+public class HedgeBudget {
+
+    //令牌按千分之一存储，避免浮点数的并发更新
+    private static final long UNIT = 1000L;
+
+    private static volatile long depositPerCall = 100L;
+
+    private static volatile long maxTokens = 10 * UNIT;
+
+    private static final AtomicLong TOKENS = new AtomicLong(maxTokens);
+
+    private static final LongAdder HEDGE_COUNT = new LongAdder();
+
+    private static final LongAdder REJECTED_COUNT = new LongAdder();
+
+    /**
+     * @param ratio 对冲调用数与普通调用数的比例上限
+     * @param maxBurst 最多可以连续发起的对冲调用次数
+     */
+    public static void configure(double ratio, int maxBurst) {
+        depositPerCall = (long) (Math.max(ratio, 0) * UNIT);
+        maxTokens = Math.max(maxBurst, 0) * UNIT;
+        TOKENS.set(maxTokens);
+    }
+
+    //开启对冲的节点每次调用时存入令牌
+    public static void recordCall() {
+        long deposit = depositPerCall;
+        long max = maxTokens;
+        long current;
+        do {
+            current = TOKENS.get();
+            if(current >= max) {
+                return;
+            }
+        } while (! TOKENS.compareAndSet(current, Math.min(current + deposit, max)));
+    }
+
+    public static boolean tryAcquire() {
+        long current;
+        do {
+            current = TOKENS.get();
+            if(current < UNIT) {
+                REJECTED_COUNT.increment();
+                return false;
+            }
+        } while (! TOKENS.compareAndSet(current, current - UNIT));
+        HEDGE_COUNT.increment();
+        return true;
+    }
+
+    public static double availableTokens() {
+        return (double) TOKENS.get() / UNIT;
+    }
+
+    public static long hedgeCount() {
+        return HEDGE_COUNT.sum();
+    }
+
+    //预算不足没有发起的对冲次数
+    public static long rejectedCount() {
+        return REJECTED_COUNT.sum();
+    }
+
+}
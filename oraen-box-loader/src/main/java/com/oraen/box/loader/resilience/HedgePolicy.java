@@ -0,0 +1,25 @@
+package com.oraen.box.loader.resilience;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HedgePolicy {
+
+    //第一次调用超过多久没有返回就发起对冲调用，小于等于0代表按历史耗时的分位数计算
+    private long delayMillis;
+
+    //按历史耗时计算对冲延迟时使用的分位数，样本不足时不对冲
+    @Builder.Default
+    private double percentile = 0.95;
+
+    //每次重试最多发起的对冲调用次数
+    @Builder.Default
+    private int maxHedges = 1;
+
+}
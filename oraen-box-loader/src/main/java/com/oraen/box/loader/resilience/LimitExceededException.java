@@ -0,0 +1,20 @@
+package com.oraen.box.loader.resilience;
+
+/**
+ * 超过自适应并发上限，没有真正调用 DataLoader，直接传给兜底逻辑的异常
+ */
+public class LimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public LimitExceededException(String name, int limit) {
+        super("DataLoader " + name + " exceeds concurrency limit " + limit);
+    }
+
+    //下游变慢时会频繁创建，不需要堆栈
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.oraen.box.loader.resilience;
+
+/**
+ * 隔离舱没有空闲并发数时的处理方式
+ */
+public enum OverflowPolicy {
+    //排队等待，队列满时兜底
+    QUEUE,
+    //直接兜底
+    FALLBACK,
+    //直接失败，整个请求返回异常
+    REJECT
+}
@@ -0,0 +1,47 @@
+package com.oraen.box.loader.resilience;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 指数退避，每次重试前的等待时间按倍数增长，并加上随机抖动避免大量请求同时重试
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RetryBackoff {
+
+    //第一次重试前的等待时间
+    @Builder.Default
+    private long initialDelayMillis = 50L;
+
+    //每次重试等待时间的增长倍数
+    @Builder.Default
+    private double multiplier = 2.0;
+
+    //单次等待时间上限
+    @Builder.Default
+    private long maxDelayMillis = 1000L;
+
+    //随机抖动比例，0 到 1 之间，实际等待时间在 [计算值 * (1 - jitter), 计算值] 之间
+    @Builder.Default
+    private double jitter = 0.5;
+
+    /**
+     * @param retry 刚失败的是第几次尝试，从 1 开始
+     * @return 下一次重试前需要等待的毫秒数
+     */
+    public long delayMillis(int retry) {
+        double delay = initialDelayMillis * Math.pow(Math.max(multiplier, 1.0), Math.max(retry - 1, 0));
+        delay = Math.min(delay, maxDelayMillis);
+        double jitterRatio = Math.min(Math.max(jitter, 0.0), 1.0);
+        delay -= delay * jitterRatio * ThreadLocalRandom.current().nextDouble();
+        return Math.max((long) delay, 0L);
+    }
+
+}
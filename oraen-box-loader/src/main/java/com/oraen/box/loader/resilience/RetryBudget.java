@@ -0,0 +1,70 @@
+package com.oraen.box.loader.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个 DataLoader 的重试预算，无锁令牌桶
+ * 每次成功调用按比例存入令牌，每次重试消耗一个令牌，令牌不足时不再重试，防止下游故障时重试放大流量
+ */
+public class RetryBudget {
+
+    //令牌按千分之一存储，避免浮点数的并发更新
+    private static final long UNIT = 1000L;
+
+    private final long depositPerSuccess;
+
+    private final long maxTokens;
+
+    private final AtomicLong tokens;
+
+    private final LongAdder retryCount = new LongAdder();
+
+    private final LongAdder deniedCount = new LongAdder();
+
+    public RetryBudget(RetryBudgetPolicy retryBudgetPolicy) {
+        this.depositPerSuccess = (long) (Math.max(retryBudgetPolicy.getRatio(), 0) * UNIT);
+        this.maxTokens = Math.max(retryBudgetPolicy.getMaxTokens(), 0) * UNIT;
+        this.tokens = new AtomicLong(maxTokens);
+    }
+
+    public void recordSuccess() {
+        long current;
+        do {
+            current = tokens.get();
+            if(current >= maxTokens) {
+                return;
+            }
+        } while (! tokens.compareAndSet(current, Math.min(current + depositPerSuccess, maxTokens)));
+    }
+
+    /**
+     * @return 是否还可以重试，可以时消耗一个令牌
+     */
+    public boolean tryAcquire() {
+        long current;
+        do {
+            current = tokens.get();
+            if(current < UNIT) {
+                deniedCount.increment();
+                return false;
+            }
+        } while (! tokens.compareAndSet(current, current - UNIT));
+        retryCount.increment();
+        return true;
+    }
+
+    public double getAvailableTokens() {
+        return (double) tokens.get() / UNIT;
+    }
+
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    //预算不足被拒绝的重试次数
+    public long getDeniedCount() {
+        return deniedCount.sum();
+    }
+
+}
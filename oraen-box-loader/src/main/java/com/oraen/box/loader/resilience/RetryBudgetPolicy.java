@@ -0,0 +1,42 @@
+package com.oraen.box.loader.resilience;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RetryBudgetPolicy {
+
+    //推荐的预算配置，不可修改，需要调整时用 builder 创建新的配置
+    public static final RetryBudgetPolicy DEFAULT = new Unmodifiable(RetryBudgetPolicy.builder().build());
+
+    //每次成功调用存入的令牌数，长期来看重试次数不超过成功次数的 ratio 倍
+    @Builder.Default
+    private double ratio = 0.1;
+
+    //令牌上限，也是空闲后最多可以连续重试的次数
+    @Builder.Default
+    private int maxTokens = 10;
+
+    private static class Unmodifiable extends RetryBudgetPolicy {
+
+        Unmodifiable(RetryBudgetPolicy policy) {
+            super(policy.getRatio(), policy.getMaxTokens());
+        }
+
+        @Override
+        public void setRatio(double ratio) {
+            throw new UnsupportedOperationException("RetryBudgetPolicy.DEFAULT is unmodifiable");
+        }
+
+        @Override
+        public void setMaxTokens(int maxTokens) {
+            throw new UnsupportedOperationException("RetryBudgetPolicy.DEFAULT is unmodifiable");
+        }
+    }
+
+}
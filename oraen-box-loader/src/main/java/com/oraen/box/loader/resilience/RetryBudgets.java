@@ -0,0 +1,38 @@
+package com.oraen.box.loader.resilience;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 DataLoader 名称管理重试预算，同名 DataLoader 共用一个预算，预算在第一次使用时按当时的策略创建
+ */
+public class RetryBudgets {
+
+    private static final ConcurrentHashMap<String, RetryBudget> BUDGETS = new ConcurrentHashMap<>();
+
+    public static RetryBudget getBudget(String name, RetryBudgetPolicy retryBudgetPolicy) {
+        RetryBudget budget = BUDGETS.get(name);
+        if(budget != null) {
+            return budget;
+        }
+
+        return BUDGETS.computeIfAbsent(name, key -> new RetryBudget(retryBudgetPolicy));
+    }
+
+    /**
+     * @return 对应的重试预算，还没有使用过时返回 null
+     */
+    public static RetryBudget getBudget(String name) {
+        return BUDGETS.get(name);
+    }
+
+    public static Map<String, RetryBudget> budgets() {
+        return new TreeMap<>(BUDGETS);
+    }
+
+    public static void remove(String name) {
+        BUDGETS.remove(name);
+    }
+
+}
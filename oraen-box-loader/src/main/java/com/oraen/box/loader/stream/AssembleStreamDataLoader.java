@@ -0,0 +1,76 @@
+package com.oraen.box.loader.stream;
+
+import com.oraen.box.loader.InlineMode;
+import com.oraen.box.loader.LoadContext;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Builder
+public class AssembleStreamDataLoader<T> implements StreamDataLoader<T> {
+
+    private String name;
+
+    private List<String> dependencies;
+
+    private BiConsumer<LoadContext, StreamSink<T>> producer;
+
+    private Predicate<LoadContext> needLoad;
+
+    private Integer bufferSize;
+
+    private InlineMode inlineMode;
+
+    private Boolean lazy;
+
+    public AssembleStreamDataLoader(String name, List<String> dependencies, BiConsumer<LoadContext, StreamSink<T>> producer){
+        this.name = name;
+        this.dependencies = dependencies;
+        this.producer = producer;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public List<String> dependencies() {
+        return dependencies;
+    }
+
+    @Override
+    public void produce(LoadContext context, StreamSink<T> sink) {
+        producer.accept(context, sink);
+    }
+
+    @Override
+    public boolean needLoad(LoadContext context) {
+        return needLoad == null || needLoad.test(context);
+    }
+
+    @Override
+    public int bufferSize() {
+        return bufferSize == null ? StreamDataLoader.super.bufferSize() : bufferSize;
+    }
+
+    @Override
+    public InlineMode inlineMode() {
+        return inlineMode == null ? InlineMode.AUTO : inlineMode;
+    }
+
+    @Override
+    public boolean lazy() {
+        return lazy != null && lazy;
+    }
+
+}
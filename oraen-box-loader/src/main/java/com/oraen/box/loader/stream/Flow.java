@@ -0,0 +1,45 @@
+package com.oraen.box.loader.stream;
+
+/**
+ * 和 JDK 9 的 java.util.concurrent.Flow 相同的响应式流接口，项目仍然支持 Java 8，所以在这里定义一份
+ * 语义按 Reactive Streams 规范，升级 JDK 后可以直接和 Flow 互相适配
+ */
+public final class Flow {
+
+    private Flow() {
+    }
+
+    public interface Publisher<T> {
+
+        /**
+         * Add a subscriber, {@link Subscriber#onSubscribe} is called before any other signal.
+         *
+         * @param subscriber the subscriber
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    public interface Subscriber<T> {
+
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    public interface Subscription {
+
+        /**
+         * Request up to n more items, signals are never sent beyond the requested amount.
+         *
+         * @param n the number of items, must be positive
+         */
+        void request(long n);
+
+        void cancel();
+    }
+
+}
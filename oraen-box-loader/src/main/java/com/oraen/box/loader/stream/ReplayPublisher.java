@@ -0,0 +1,310 @@
+package com.oraen.box.loader.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 保留所有数据的多播 Publisher，后订阅的订阅者从头接收
+ * 每个订阅者按自己请求的数量接收，所有订阅者都落后 bufferSize 条时生产者阻塞，没有订阅者时不阻塞
+ * 和 SubmissionPublisher 一样，每个订阅者在 executor 上依次接收数据，生产和处理可以同时进行
+ */
+public class ReplayPublisher<T> implements Flow.Publisher<T>, StreamSink<T> {
+
+    private final int bufferSize;
+
+    //发送数据给订阅者的线程池
+    private final Executor executor;
+
+    //只在持有 this 锁时追加和读取
+    private final List<T> items = new ArrayList<>();
+
+    //已经发布的数据条数，订阅者只读取这之前的数据
+    private volatile int size;
+
+    private volatile boolean done;
+
+    private volatile Throwable error;
+
+    //生产者是否在等待订阅者追上，避免每发一条数据都唤醒
+    private volatile boolean producerWaiting;
+
+    private final CopyOnWriteArrayList<ReplaySubscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * 在调用 emit 或 request 的线程上直接发送，生产者要等订阅者处理完才能继续生产
+     */
+    public ReplayPublisher(int bufferSize) {
+        this(bufferSize, Runnable::run);
+    }
+
+    /**
+     * @param executor 发送数据给订阅者的线程池，拒绝时在当前线程发送
+     */
+    public ReplayPublisher(int bufferSize, Executor executor) {
+        this.bufferSize = Math.max(bufferSize, 1);
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if(subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+
+        ReplaySubscription subscription = new ReplaySubscription(subscriber);
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+        subscription.drain();
+    }
+
+    @Override
+    public boolean emit(T item) {
+        if(item == null) {
+            throw new NullPointerException("item");
+        }
+
+        InterruptedException interrupted = null;
+        boolean added = false;
+        try {
+            while (true) {
+                synchronized (this) {
+                    //先标记再检查，和订阅者先更新进度再检查标记配合，不会错过唤醒
+                    producerWaiting = true;
+                    if(done) {
+                        break;
+                    }
+                    if(! isLagging()) {
+                        items.add(item);
+                        size = items.size();
+                        added = true;
+                        break;
+                    }
+                    if(! hasIdleDelivery()) {
+                        wait();
+                        continue;
+                    }
+                }
+                //发送任务可能排在当前线程后面，在同一个线程池里互相等待，由生产者在当前线程代为发送
+                for (ReplaySubscription subscription : subscriptions) {
+                    subscription.deliver();
+                }
+            }
+        } catch (InterruptedException e) {
+            interrupted = e;
+        } finally {
+            producerWaiting = false;
+        }
+
+        if(interrupted != null) {
+            Thread.currentThread().interrupt();
+            terminate(interrupted);
+        }
+        if(added) {
+            drainAll();
+        }
+        return added;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return done;
+    }
+
+    public void complete() {
+        terminate(null);
+    }
+
+    //已经结束时忽略
+    public void error(Throwable throwable) {
+        terminate(throwable);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    private void terminate(Throwable throwable) {
+        synchronized (this) {
+            if(done) {
+                return;
+            }
+            error = throwable;
+            done = true;
+            notifyAll();
+        }
+        drainAll();
+    }
+
+    //持有锁时调用，最快的订阅者也落后 bufferSize 条
+    private boolean isLagging() {
+        if(subscriptions.isEmpty()) {
+            return false;
+        }
+
+        long fastest = 0;
+        for (ReplaySubscription subscription : subscriptions) {
+            fastest = Math.max(fastest, subscription.delivered);
+        }
+        return size - fastest >= bufferSize;
+    }
+
+    //持有锁时调用，是否有订阅者等着发送，但是还没有线程在发送
+    private boolean hasIdleDelivery() {
+        for (ReplaySubscription subscription : subscriptions) {
+            if(subscription.isIdle()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void drainAll() {
+        for (ReplaySubscription subscription : subscriptions) {
+            subscription.drain();
+        }
+    }
+
+    private void wakeProducer() {
+        if(producerWaiting) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    private final class ReplaySubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+
+        private final AtomicLong requested = new AtomicLong(0);
+
+        //还没有处理的发送请求数，从 0 变成 1 的线程提交发送任务，其他线程只增加计数，由发送中的线程继续处理
+        private final AtomicInteger wip = new AtomicInteger(0);
+
+        //同一时间只有一个线程在发送，发送任务和代为发送的生产者都要先抢到它
+        private final AtomicBoolean delivering = new AtomicBoolean(false);
+
+        //已经发送的条数，只由发送中的线程写
+        private volatile long delivered;
+
+        private volatile boolean cancelled;
+
+        private boolean terminated;
+
+        ReplaySubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if(n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Non-positive request: " + n));
+                return;
+            }
+
+            long current;
+            do {
+                current = requested.get();
+                if(current == Long.MAX_VALUE) {
+                    break;
+                }
+            } while (! requested.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            wakeProducer();
+        }
+
+        void drain() {
+            if(wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            try {
+                executor.execute(this::deliver);
+            } catch (RejectedExecutionException e) {
+                deliver();
+            }
+            //生产者可能占着发送任务需要的线程在等待，唤醒它代为发送
+            wakeProducer();
+        }
+
+        boolean isIdle() {
+            return wip.get() != 0 && ! delivering.get();
+        }
+
+        //发送任务执行时可能已经被生产者代为发送完了，这时直接返回
+        void deliver() {
+            while (wip.get() != 0 && delivering.compareAndSet(false, true)) {
+                try {
+                    deliverPending();
+                } finally {
+                    delivering.set(false);
+                }
+                //释放前到达的请求已经被处理，释放后到达的请求由上面的循环重新检查
+            }
+        }
+
+        private void deliverPending() {
+            int missed = wip.get();
+            do {
+                long emitted = 0;
+                long demand = requested.get();
+                long position = delivered;
+                while (! cancelled && ! terminated) {
+                    int available = size;
+                    if(position < available && emitted < demand) {
+                        int end = (int) Math.min(available, position + (demand - emitted));
+                        List<T> batch;
+                        synchronized (ReplayPublisher.this) {
+                            batch = new ArrayList<>(items.subList((int) position, end));
+                        }
+                        for (T item : batch) {
+                            if(cancelled) {
+                                break;
+                            }
+                            subscriber.onNext(item);
+                            position++;
+                            emitted++;
+                            delivered = position;
+                        }
+                        wakeProducer();
+                        continue;
+                    }
+
+                    if(done && position == size) {
+                        terminated = true;
+                        subscriptions.remove(this);
+                        if(error == null) {
+                            subscriber.onComplete();
+                        } else {
+                            subscriber.onError(error);
+                        }
+                    }
+                    break;
+                }
+
+                if(emitted > 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.oraen.box.loader.stream;
+
+import com.oraen.box.loader.DataLoader;
+import com.oraen.box.loader.LoadContext;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 流式 DataLoader，节点一开始执行就以 Publisher 作为结果完成，依赖它的节点可以立即订阅，边生产边处理
+ * 生产过程作为阻塞主流程的额外任务在线程池上执行，整个加载等待生产结束，超时或者取消时以错误结束流
+ * 已经发出的数据会保留，任何时候订阅都能收到完整的流，每个订阅者按自己请求的数量接收
+ */
+public interface StreamDataLoader<T> extends DataLoader<Flow.Publisher<T>> {
+
+    /**
+     * Produce the items of the stream, the stream completes when this method returns
+     * and fails when it throws.
+     *
+     * @param context the context containing necessary information for loading data
+     * @param sink where the items are published
+     */
+    void produce(LoadContext context, StreamSink<T> sink) throws Exception;
+
+    //所有订阅者都落后这么多条时暂停生产
+    default int bufferSize() {
+        return 256;
+    }
+
+    @Override
+    default Flow.Publisher<T> getData(LoadContext context) {
+        //在线程池上发送数据，订阅者的处理不占用生产线程
+        Executor executor = context.getExecutor();
+        ReplayPublisher<T> publisher = executor == null ? new ReplayPublisher<>(bufferSize()) : new ReplayPublisher<>(bufferSize(), executor);
+        context.getCancellationToken().onCancel(publisher::error);
+        context.submitTask(() -> {
+            try {
+                produce(context, publisher);
+                publisher.complete();
+            } catch (Throwable e) {
+                publisher.error(e);
+            }
+        }, true);
+        return publisher;
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.oraen.box.loader.stream;
+
+/**
+ * 流式节点写出数据的入口，由引擎创建并传给 StreamDataLoader
+ */
+public interface StreamSink<T> {
+
+    /**
+     * Publish one item, blocks while every subscriber is more than the buffer size behind.
+     *
+     * @param item the item, must not be null
+     * @return false if the stream is closed because of cancellation, the producer should stop
+     */
+    boolean emit(T item);
+
+    boolean isClosed();
+
+}
@@ -0,0 +1,64 @@
+package com.oraen.box.loader.stream;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * 常用的订阅方式，依赖流式节点的异步节点可以直接返回这里的 future
+ */
+public class StreamSubscribers {
+
+    /**
+     * 逐条处理流中的数据，每处理完一批再请求下一批
+     *
+     * @param batchSize 每次请求的条数
+     * @return 流结束时完成，流出错或者 consumer 抛出异常时以异常完成
+     */
+    public static <T> CompletableFuture<Void> forEach(Flow.Publisher<T> publisher, int batchSize, Consumer<? super T> consumer) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        int batch = Math.max(batchSize, 1);
+        publisher.subscribe(new Flow.Subscriber<T>() {
+
+            private Flow.Subscription subscription;
+
+            private int received;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(batch);
+            }
+
+            @Override
+            public void onNext(T item) {
+                if(future.isDone()) {
+                    return;
+                }
+
+                try {
+                    consumer.accept(item);
+                } catch (Throwable e) {
+                    subscription.cancel();
+                    future.completeExceptionally(e);
+                    return;
+                }
+                if(++received == batch) {
+                    received = 0;
+                    subscription.request(batch);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                future.complete(null);
+            }
+        });
+        return future;
+    }
+
+}
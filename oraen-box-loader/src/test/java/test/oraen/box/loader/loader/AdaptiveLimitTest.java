@@ -0,0 +1,109 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.common.util.ThreadUtil;
+import com.oraen.box.loader.ExecResult;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import com.oraen.box.loader.resilience.AdaptiveLimitPolicy;
+import com.oraen.box.loader.resilience.AdaptiveLimiter;
+import com.oraen.box.loader.resilience.AdaptiveLimiters;
+import com.oraen.box.loader.resilience.LimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveLimitTest {
+
+    //占满当前上限后全部按相同耗时归还
+    private static void round(AdaptiveLimiter limiter, long rttMillis) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired ++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), false);
+        }
+    }
+
+    @Test
+    public void testLimitFollowsLatency() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("limit", AdaptiveLimitPolicy.builder()
+                .initialLimit(10)
+                .maxLimit(100)
+                .build());
+        for (int i = 0; i < 20; i++) {
+            round(limiter, 10);
+        }
+        //耗时稳定时上限逐步增加
+        int grown = limiter.getLimit();
+        assertTrue(grown > 10);
+
+        //下游变慢后上限降低
+        for (int i = 0; i < 20; i++) {
+            round(limiter, 100);
+        }
+        assertTrue(limiter.getLimit() < grown);
+
+        //失败时快速降低
+        int beforeDrop = limiter.getLimit();
+        assertTrue(limiter.tryAcquire());
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true);
+        assertTrue(limiter.getLimit() < beforeDrop);
+        assertEquals(0, limiter.getInflight());
+    }
+
+    private static AssembleDataLoader<Integer> slowLoader(String name, AdaptiveLimitPolicy adaptiveLimitPolicy) {
+        return AssembleDataLoader.<Integer>builder()
+                .name(name)
+                .dataFunction(context -> {
+                    ThreadUtil.sleep(100);
+                    return 1;
+                })
+                .fallback((context, e) -> -1)
+                .adaptiveLimitPolicy(adaptiveLimitPolicy)
+                .build();
+    }
+
+    @Test
+    public void testOverLimit() {
+        AdaptiveLimiters.remove("limited");
+        AdaptiveLimitPolicy fallbackPolicy = AdaptiveLimitPolicy.builder().initialLimit(1).maxLimit(1).build();
+        AssembleDataLoader<Integer> limited = slowLoader("limited", fallbackPolicy);
+        ExecutionPlan plan = ExecutionPlan.compile(ListUtil.of(limited));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CommonLoadContext first = new CommonLoadContext(plan, null, (Object) null);
+            CommonLoadContext second = new CommonLoadContext(plan, null, (Object) null);
+            LoadLogic.execAsync(first, executor, 1000L, null);
+            ThreadUtil.sleep(20);
+            //超过并发上限直接兜底
+            assertNull(LoadLogic.exec(second, executor, 1000L, null));
+            ExecResult execResult = second.getDataLoadResult("limited");
+            assertTrue(execResult.isUseFallback());
+            assertInstanceOf(LimitExceededException.class, execResult.getException());
+            assertEquals(1, AdaptiveLimiters.getLimiter("limited").getRejectedCount());
+
+            AdaptiveLimiters.remove("waiting");
+            AdaptiveLimitPolicy waitPolicy = AdaptiveLimitPolicy.builder().initialLimit(1).maxLimit(1).maxWaitMillis(500L).build();
+            plan = ExecutionPlan.compile(ListUtil.of(slowLoader("waiting", waitPolicy)));
+            first = new CommonLoadContext(plan, null, (Object) null);
+            second = new CommonLoadContext(plan, null, (Object) null);
+            LoadLogic.execAsync(first, executor, 1000L, null);
+            ThreadUtil.sleep(20);
+            //等到前一个调用结束后执行
+            assertNull(LoadLogic.exec(second, executor, 1000L, null));
+            assertEquals(1, second.<Integer>getDataLoadData("waiting"));
+            assertEquals(0, AdaptiveLimiters.getLimiter("waiting").getInflight());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
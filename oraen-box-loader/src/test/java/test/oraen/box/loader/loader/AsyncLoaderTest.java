@@ -0,0 +1,173 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.common.util.ThreadUtil;
+import com.oraen.box.loader.ExecLog;
+import com.oraen.box.loader.ExecResult;
+import com.oraen.box.loader.AsyncDataLoader;
+import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.CommonLoaderHandler;
+import com.oraen.box.loader.core.CommonMapDataLoaderContainer;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import com.oraen.box.loader.extend.AssembleProcessNode;
+import com.oraen.box.loader.extend.AsyncProcessNode;
+import com.oraen.box.loader.extend.ParallelDataBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncLoaderTest {
+
+    @Test
+    public void testBuildRespAsync() throws Exception {
+        ParallelDataBuilder<Integer, Map<String, Integer>> builder = ParallelDataBuilder.<Integer, Map<String, Integer>>builder()
+                .addNodes(new AssembleProcessNode<>("a", null, (param, resp, context) -> {
+                            ThreadUtil.sleep(50);
+                            return param + 1;
+                        }),
+                        new AssembleProcessNode<>("b", ListUtil.of("a"), (param, resp, context) -> {
+                            resp.put("b", context.<Integer>getDataLoadData("a") * 2);
+                            return null;
+                        }))
+                .setExecTimeout(1000L)
+                .ensure();
+
+        CompletableFuture<Map<String, Integer>> future = builder.buildRespAsync(1, new HashMap<>());
+        //调用线程没有被阻塞
+        assertFalse(future.isDone());
+        assertEquals(4, future.get(1, TimeUnit.SECONDS).get("b"));
+    }
+
+    @Test
+    public void testExecDataLoadAsyncTimeout() throws Exception {
+        AssembleDataLoader<Integer> slow = new AssembleDataLoader<>("slow", null, context -> {
+            ThreadUtil.sleep(500);
+            return 1;
+        });
+        AssembleDataLoader<Integer> main = new AssembleDataLoader<>("main", ListUtil.of("slow"), context -> 2);
+        CommonMapDataLoaderContainer container = new CommonMapDataLoaderContainer().addDataLoaders(main, slow);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CommonLoaderHandler handler = new CommonLoaderHandler(container, Collections.singletonList(executor), 100L);
+            long start = System.currentTimeMillis();
+            ExecLog execLog = handler.execDataLoadAsync(main, null, null).get(1, TimeUnit.SECONDS);
+            assertTrue(System.currentTimeMillis() - start < 400);
+            assertInstanceOf(TimeoutException.class, execLog.getContext().getThrowable());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAsyncProcessNode() throws Exception {
+        ScheduledExecutorService remote = Executors.newSingleThreadScheduledExecutor();
+        //单线程池，异步节点等待期间不占用这个线程
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicInteger calls = new AtomicInteger(0);
+        try {
+            AsyncProcessNode<Integer, Map<String, Integer>> remoteNode = new AsyncProcessNode<Integer, Map<String, Integer>>() {
+                @Override
+                public CompletionStage<Object> processAsync(Integer param, Map<String, Integer> resp, LoadContext context) {
+                    CompletableFuture<Object> future = new CompletableFuture<>();
+                    int call = calls.incrementAndGet();
+                    remote.schedule(() -> {
+                        if(call == 1) {
+                            future.completeExceptionally(new IllegalStateException("first call failed"));
+                        } else {
+                            future.complete(param * 10);
+                        }
+                    }, 50, TimeUnit.MILLISECONDS);
+                    return future;
+                }
+
+                @Override
+                public int maxRetry() {
+                    return 2;
+                }
+
+                @Override
+                public String name() {
+                    return "remote";
+                }
+
+                @Override
+                public List<String> dependencies() {
+                    return null;
+                }
+            };
+
+            ParallelDataBuilder<Integer, Map<String, Integer>> builder = ParallelDataBuilder.<Integer, Map<String, Integer>>builder()
+                    .addNodes(remoteNode,
+                            new AssembleProcessNode<>("local", null, (param, resp, context) -> param + 1),
+                            new AssembleProcessNode<>("sum", ListUtil.of("remote", "local"), (param, resp, context) -> {
+                                resp.put("sum", context.<Integer>getDataLoadData("remote") + context.<Integer>getDataLoadData("local"));
+                                return null;
+                            }))
+                    .setExecutors(Collections.singletonList(executor))
+                    .setExecTimeout(1000L)
+                    .ensure();
+
+            CommonLoadContext loadContext = builder.buildRespWithDetailAsync(3, new HashMap<>()).get(1, TimeUnit.SECONDS);
+            assertNull(loadContext.getThrowable());
+            assertEquals(34, loadContext.<Map<String, Integer>>getResp().get("sum"));
+            ExecResult remoteResult = loadContext.getDataLoadResult("remote");
+            assertEquals(ExecResult.STATUS_SUCCESS, remoteResult.getStatus());
+            assertEquals(2, remoteResult.getRetry());
+        } finally {
+            remote.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRejectedContinuation() throws Exception {
+        ScheduledExecutorService remote = Executors.newSingleThreadScheduledExecutor();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AsyncDataLoader<Integer> failing = new AsyncDataLoader<Integer>() {
+                @Override
+                public String name() {
+                    return "rejectedContinuation";
+                }
+
+                @Override
+                public List<String> dependencies() {
+                    return null;
+                }
+
+                @Override
+                public CompletionStage<Integer> getDataAsync(LoadContext context) {
+                    CompletableFuture<Integer> future = new CompletableFuture<>();
+                    remote.schedule(() -> future.completeExceptionally(new IllegalStateException("remote failed")), 100, TimeUnit.MILLISECONDS);
+                    return future;
+                }
+
+                @Override
+                public Integer fallback(LoadContext context, Throwable e) {
+                    return -1;
+                }
+            };
+
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(failing)), null, (Object) null);
+            CompletableFuture<Throwable> future = LoadLogic.execAsync(loadContext, executor, 1000L, null);
+            //stage 失败时线程池已经关闭，兜底在完成 stage 的线程上执行，请求不会一直挂起
+            executor.shutdown();
+            assertNull(future.get(500, TimeUnit.MILLISECONDS));
+            assertEquals(-1, (int) loadContext.<Integer>getDataLoadData("rejectedContinuation"));
+            assertEquals(ExecResult.STATUS_FALLBACK, loadContext.getDataLoadResult("rejectedContinuation").getStatus());
+        } finally {
+            executor.shutdownNow();
+            remote.shutdownNow();
+        }
+    }
+}
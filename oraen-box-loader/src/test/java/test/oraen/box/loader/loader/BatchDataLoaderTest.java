@@ -0,0 +1,128 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.loader.ExecLog;
+import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.batch.AssembleBatchDataLoader;
+import com.oraen.box.loader.batch.KeyBatcher;
+import com.oraen.box.loader.batch.KeyBatchers;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoaderHandler;
+import com.oraen.box.loader.core.CommonMapDataLoaderContainer;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchDataLoaderTest {
+
+    @Test
+    public void testBatchWindow() throws Exception {
+        KeyBatchers.remove("item");
+        List<Set<Integer>> calls = Collections.synchronizedList(new ArrayList<>());
+        AssembleBatchDataLoader<Integer, String> item = AssembleBatchDataLoader.<Integer, String>builder()
+                .name("item")
+                .batchKey(LoadContext::getInitParam)
+                .multiGet(keys -> {
+                    calls.add(new HashSet<>(keys));
+                    Map<Integer, String> re = new HashMap<>();
+                    keys.forEach(key -> re.put(key, "item-" + key));
+                    return re;
+                })
+                .batchWindowMillis(100L)
+                .build();
+
+        //同一个 key 在一个批次中只加载一次
+        List<ExecLog> execLogs = execConcurrently(item, ListUtil.of(1, 2, 3, 2, 4));
+        assertEquals(1, calls.size());
+        assertEquals(new HashSet<>(ListUtil.of(1, 2, 3, 4)), calls.get(0));
+        for (ExecLog execLog : execLogs) {
+            LoadContext context = execLog.getContext();
+            assertEquals("item-" + context.<Integer>getInitParam() + "!", context.getDataLoadData("main"));
+        }
+    }
+
+    @Test
+    public void testMaxBatchSize() throws Exception {
+        KeyBatchers.remove("shop");
+        AssembleBatchDataLoader<Integer, String> shop = AssembleBatchDataLoader.<Integer, String>builder()
+                .name("shop")
+                .batchKey(LoadContext::getInitParam)
+                .multiGet(keys -> {
+                    Map<Integer, String> re = new HashMap<>();
+                    keys.forEach(key -> re.put(key, "shop-" + key));
+                    return re;
+                })
+                //窗口足够长，只能靠数量触发
+                .batchWindowMillis(10000L)
+                .maxBatchSize(3)
+                .build();
+
+        List<ExecLog> execLogs = execConcurrently(shop, ListUtil.of(1, 2, 3, 4, 5, 6));
+        KeyBatcher<Integer, String> batcher = KeyBatchers.getBatcher("shop");
+        assertEquals(2, batcher.getBatchCount());
+        assertEquals(6, batcher.getKeyCount());
+        for (ExecLog execLog : execLogs) {
+            assertNull(execLog.getContext().getThrowable());
+        }
+    }
+
+    @Test
+    public void testSameNameInstances() throws Exception {
+        KeyBatchers.remove("twin");
+        AssembleBatchDataLoader<Integer, String> first = twinLoader("first");
+        AssembleBatchDataLoader<Integer, String> second = twinLoader("second");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            KeyBatcher<Integer, String> batcher = KeyBatchers.getBatcher(first);
+            assertSame(batcher, KeyBatchers.getBatcher(second));
+            CompletableFuture<String> fromFirst = batcher.load(first, 1, executor);
+            CompletableFuture<String> fromSecond = batcher.load(second, 1, executor);
+
+            //同名的不同实例在同一个窗口里也各自调用自己的 multiGet
+            assertEquals("first-1", fromFirst.get(1, TimeUnit.SECONDS));
+            assertEquals("second-1", fromSecond.get(1, TimeUnit.SECONDS));
+            assertEquals(2, batcher.getBatchCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private AssembleBatchDataLoader<Integer, String> twinLoader(String prefix) {
+        return AssembleBatchDataLoader.<Integer, String>builder()
+                .name("twin")
+                .batchKey(LoadContext::getInitParam)
+                .multiGet(keys -> {
+                    Map<Integer, String> re = new HashMap<>();
+                    keys.forEach(key -> re.put(key, prefix + "-" + key));
+                    return re;
+                })
+                .batchWindowMillis(50L)
+                .build();
+    }
+
+    private List<ExecLog> execConcurrently(AssembleBatchDataLoader<Integer, String> batchLoader, List<Integer> params) throws Exception {
+        Function<LoadContext, String> mainFunction = context -> context.getDataLoadData(batchLoader.name()) + "!";
+        AssembleDataLoader<String> main = new AssembleDataLoader<>("main", ListUtil.of(batchLoader.name()), mainFunction);
+        CommonMapDataLoaderContainer container = new CommonMapDataLoaderContainer().addDataLoaders(main, batchLoader);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CommonLoaderHandler handler = new CommonLoaderHandler(container, Collections.singletonList(executor), 1000L);
+            List<CompletableFuture<ExecLog>> futures = new ArrayList<>();
+            for (Integer param : params) {
+                futures.add(handler.execDataLoadAsync(main, param, null));
+            }
+
+            List<ExecLog> execLogs = new ArrayList<>();
+            for (CompletableFuture<ExecLog> future : futures) {
+                execLogs.add(future.get(1, TimeUnit.SECONDS));
+            }
+            return execLogs;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
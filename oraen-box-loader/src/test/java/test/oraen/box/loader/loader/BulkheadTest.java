@@ -0,0 +1,121 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.common.util.ThreadUtil;
+import com.oraen.box.loader.ExecResult;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import com.oraen.box.loader.resilience.BulkheadFullException;
+import com.oraen.box.loader.resilience.BulkheadPolicy;
+import com.oraen.box.loader.resilience.Bulkheads;
+import com.oraen.box.loader.resilience.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkheadTest {
+
+    private static AssembleDataLoader<Integer> slowLoader(String name, BulkheadPolicy bulkheadPolicy, AtomicInteger active, AtomicInteger maxActive) {
+        return AssembleDataLoader.<Integer>builder()
+                .name(name)
+                .dataFunction(context -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    ThreadUtil.sleep(100);
+                    active.decrementAndGet();
+                    return 1;
+                })
+                .fallback((context, e) -> -1)
+                .bulkheadPolicy(bulkheadPolicy)
+                .build();
+    }
+
+    @Test
+    public void testQueue() {
+        Bulkheads.remove("queue");
+        BulkheadPolicy bulkheadPolicy = BulkheadPolicy.builder().name("queue").maxConcurrentCalls(1).build();
+        AtomicInteger active = new AtomicInteger(0);
+        AtomicInteger maxActive = new AtomicInteger(0);
+        AssembleDataLoader<Integer> a = slowLoader("a", bulkheadPolicy, active, maxActive);
+        AssembleDataLoader<Integer> b = slowLoader("b", bulkheadPolicy, active, maxActive);
+        AssembleDataLoader<Integer> c = slowLoader("c", bulkheadPolicy, active, maxActive);
+        AssembleDataLoader<Integer> other = new AssembleDataLoader<>("other", null, context -> 2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(a, b, c, other)), null, (Object) null);
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, null));
+            //同一个隔离舱的节点依次执行
+            assertEquals(1, maxActive.get());
+            for (String name : ListUtil.of("a", "b", "c")) {
+                assertEquals(1, loadContext.<Integer>getDataLoadData(name));
+            }
+            assertEquals(2, loadContext.<Integer>getDataLoadData("other"));
+            assertEquals(0, Bulkheads.getBulkhead("queue").getActiveCalls());
+            assertEquals(0, Bulkheads.getBulkhead("queue").getQueueSize());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFallbackAndReject() {
+        Bulkheads.remove("fallback");
+        Bulkheads.remove("reject");
+        AtomicInteger active = new AtomicInteger(0);
+        AtomicInteger maxActive = new AtomicInteger(0);
+        BulkheadPolicy fallbackPolicy = BulkheadPolicy.builder().name("fallback").maxConcurrentCalls(1)
+                .overflowPolicy(OverflowPolicy.FALLBACK).build();
+        AssembleDataLoader<Integer> a = slowLoader("a", fallbackPolicy, active, maxActive);
+        AssembleDataLoader<Integer> b = slowLoader("b", fallbackPolicy, active, maxActive);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(a, b)), null, (Object) null);
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, null));
+            ExecResult resultA = loadContext.getDataLoadResult("a");
+            ExecResult resultB = loadContext.getDataLoadResult("b");
+            ExecResult rejected = resultA.isUseFallback() ? resultA : resultB;
+            assertTrue(resultA.isUseFallback() ^ resultB.isUseFallback());
+            assertInstanceOf(BulkheadFullException.class, rejected.getException());
+            assertEquals(-1, (int) rejected.getResult());
+            assertEquals(1, Bulkheads.getBulkhead("fallback").getRejectedCount());
+
+            BulkheadPolicy rejectPolicy = BulkheadPolicy.builder().name("reject").maxConcurrentCalls(1)
+                    .overflowPolicy(OverflowPolicy.REJECT).build();
+            AssembleDataLoader<Integer> c = slowLoader("c", rejectPolicy, active, maxActive);
+            AssembleDataLoader<Integer> d = slowLoader("d", rejectPolicy, active, maxActive);
+            loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(c, d)), null, (Object) null);
+            assertInstanceOf(BulkheadFullException.class, LoadLogic.exec(loadContext, executor, 1000L, null));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDedicatedExecutor() {
+        Bulkheads.remove("dedicated");
+        ExecutorService dedicated = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "dedicated-pool"));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            AssembleDataLoader<String> isolated = AssembleDataLoader.<String>builder()
+                    .name("isolated")
+                    .dataFunction(context -> Thread.currentThread().getName())
+                    .bulkheadPolicy(BulkheadPolicy.builder().name("dedicated").executor(dedicated).build())
+                    .build();
+            AssembleDataLoader<String> shared = new AssembleDataLoader<>("shared", null, context -> Thread.currentThread().getName());
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(isolated, shared)), null, (Object) null);
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, null));
+            assertEquals("dedicated-pool", loadContext.getDataLoadData("isolated"));
+            assertNotEquals("dedicated-pool", loadContext.getDataLoadData("shared"));
+        } finally {
+            dedicated.shutdown();
+            executor.shutdown();
+        }
+    }
+}
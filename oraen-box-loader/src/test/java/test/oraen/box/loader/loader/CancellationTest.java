@@ -0,0 +1,95 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.loader.AsyncDataLoader;
+import com.oraen.box.loader.ExecResult;
+import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CancellationTest {
+
+    @Test
+    public void testCancelOnTimeout() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicBoolean dependentExecuted = new AtomicBoolean(false);
+        AssembleDataLoader<Integer> slow = new AssembleDataLoader<>("slow", null, context -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return 1;
+        });
+        AssembleDataLoader<Integer> dependent = new AssembleDataLoader<>("dependent", ListUtil.of("slow"), context -> {
+            dependentExecuted.set(true);
+            return 2;
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(null, null, slow, dependent);
+            Throwable throwable = LoadLogic.exec(loadContext, executor, 100L, null);
+            assertInstanceOf(TimeoutException.class, throwable);
+            assertTrue(loadContext.getCancellationToken().isCancelled());
+            //正在执行的节点被中断
+            assertTrue(interrupted.await(500, TimeUnit.MILLISECONDS));
+            assertEquals(ExecResult.STATUS_ABANDON, loadContext.getDataLoadResult("slow").getStatus());
+            assertEquals(ExecResult.STATUS_ABANDON, loadContext.getDataLoadResult("dependent").getStatus());
+            assertFalse(dependentExecuted.get());
+
+            //中断标记不会影响线程池的下一个任务
+            assertFalse(executor.submit(() -> Thread.currentThread().isInterrupted()).get(1, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCancelAsyncNode() throws Exception {
+        CompletableFuture<Integer> remote = new CompletableFuture<>();
+        CountDownLatch started = new CountDownLatch(1);
+        AsyncDataLoader<Integer> async = new AsyncDataLoader<Integer>() {
+            @Override
+            public CompletionStage<Integer> getDataAsync(LoadContext context) {
+                started.countDown();
+                return remote;
+            }
+
+            @Override
+            public String name() {
+                return "async";
+            }
+
+            @Override
+            public List<String> dependencies() {
+                return null;
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(async)), null, (Object) null);
+            CompletableFuture<Throwable> future = LoadLogic.execAsync(loadContext, executor, 5000L, null);
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+            CancellationException reason = new CancellationException("cancelled by caller");
+            loadContext.getCancellationToken().cancel(reason);
+
+            assertSame(reason, future.get(1, TimeUnit.SECONDS));
+            //取消时节点线程可能还没有注册 future 的取消动作，注册时发现已经取消会立即取消，所以等待而不是直接检查
+            assertThrows(CancellationException.class, () -> remote.get(1, TimeUnit.SECONDS));
+            assertEquals(ExecResult.STATUS_ABANDON, loadContext.getDataLoadResult("async").getStatus());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
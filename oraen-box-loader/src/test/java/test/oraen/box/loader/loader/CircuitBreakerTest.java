@@ -0,0 +1,85 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.common.util.ThreadUtil;
+import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.LoaderHook;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import com.oraen.box.loader.resilience.CircuitBreakerOpenException;
+import com.oraen.box.loader.resilience.CircuitBreakerPolicy;
+import com.oraen.box.loader.resilience.CircuitBreakers;
+import com.oraen.box.loader.resilience.CircuitState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void testOpenAndRecover() {
+        CircuitBreakers.remove("down");
+        AtomicInteger calls = new AtomicInteger(0);
+        AtomicBoolean healthy = new AtomicBoolean(false);
+        AssembleDataLoader<Integer> down = AssembleDataLoader.<Integer>builder()
+                .name("down")
+                .dataFunction(context -> {
+                    calls.incrementAndGet();
+                    if(! healthy.get()) {
+                        throw new IllegalStateException("downstream down");
+                    }
+                    return 1;
+                })
+                .fallback((context, e) -> -1)
+                .circuitBreakerPolicy(CircuitBreakerPolicy.builder()
+                        .minimumCalls(4)
+                        .openDurationMillis(200)
+                        .halfOpenCalls(1)
+                        .build())
+                .build();
+
+        List<String> transitions = Collections.synchronizedList(new ArrayList<>());
+        LoaderHook hook = new LoaderHook() {
+            @Override
+            public void onCircuitStateChange(String name, CircuitState from, CircuitState to, LoadContext loadContext) {
+                transitions.add(from + "->" + to);
+            }
+        };
+
+        ExecutionPlan plan = ExecutionPlan.compile(ListUtil.of(down));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int i = 0; i < 10; i++) {
+                CommonLoadContext loadContext = new CommonLoadContext(plan, null, (Object) null);
+                assertNull(LoadLogic.exec(loadContext, executor, 1000L, ListUtil.of(hook)));
+                if(i >= 4) {
+                    assertInstanceOf(CircuitBreakerOpenException.class, loadContext.getDataLoadResult("down").getException());
+                }
+            }
+            //熔断后不再调用下游
+            assertEquals(4, calls.get());
+            assertEquals(CircuitState.OPEN, CircuitBreakers.getCircuitBreaker("down").getState());
+            assertEquals(6, CircuitBreakers.getCircuitBreaker("down").getRejectedCount());
+
+            healthy.set(true);
+            ThreadUtil.sleep(250);
+            CommonLoadContext loadContext = new CommonLoadContext(plan, null, (Object) null);
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, ListUtil.of(hook)));
+            assertEquals(1, loadContext.<Integer>getDataLoadData("down"));
+            assertEquals(CircuitState.CLOSED, CircuitBreakers.getCircuitBreaker("down").getState());
+            assertEquals(ListUtil.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
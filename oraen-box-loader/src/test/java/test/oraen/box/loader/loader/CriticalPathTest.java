@@ -0,0 +1,66 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.common.util.ThreadUtil;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import com.oraen.box.loader.metrics.CriticalPath;
+import com.oraen.box.loader.metrics.CriticalPathAggregator;
+import com.oraen.box.loader.metrics.CriticalPathStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CriticalPathTest {
+
+    private static AssembleDataLoader<Integer> sleeping(String name, long millis, String... dependencies) {
+        return new AssembleDataLoader<>(name, ListUtil.of(dependencies), context -> {
+            ThreadUtil.sleep(millis);
+            return 1;
+        });
+    }
+
+    @Test
+    public void testCriticalPath() {
+        ExecutionPlan plan = ExecutionPlan.compile(ListUtil.of(
+                sleeping("profile", 10),
+                sleeping("orders", 60),
+                sleeping("merge", 10, "profile", "orders"),
+                sleeping("render", 10, "merge")));
+        assertEquals("render", plan.getPlanName());
+
+        CriticalPathAggregator aggregator = new CriticalPathAggregator();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CommonLoadContext loadContext = null;
+            for (int i = 0; i < 3; i++) {
+                loadContext = new CommonLoadContext(plan, null, (Object) null);
+                assertNull(LoadLogic.exec(loadContext, executor, 1000L, ListUtil.of(aggregator)));
+            }
+
+            CriticalPath criticalPath = CriticalPath.analyze(loadContext);
+            assertEquals(ListUtil.of("orders", "merge", "render"),
+                    criticalPath.getSegments().stream().map(CriticalPath.Segment::getName).collect(Collectors.toList()));
+            long contribution = criticalPath.getSegments().stream().mapToLong(CriticalPath.Segment::getContributionNanos).sum();
+            assertEquals(criticalPath.getTotalNanos(), contribution);
+            assertTrue(criticalPath.getSegments().get(0).getContributionNanos() >= TimeUnit.MILLISECONDS.toNanos(60));
+        } finally {
+            executor.shutdown();
+        }
+
+        List<CriticalPathStats> stats = aggregator.stats("render");
+        assertEquals(3, stats.size());
+        //贡献最大的是耗时最长的依赖
+        assertEquals("orders", stats.get(0).getName());
+        assertEquals(1.0, stats.get(0).getOnPathRatio());
+        assertTrue(stats.stream().noneMatch(s -> s.getName().equals("profile")));
+    }
+}
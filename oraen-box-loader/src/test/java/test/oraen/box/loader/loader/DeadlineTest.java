@@ -0,0 +1,137 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.common.util.ThreadUtil;
+import com.oraen.box.loader.ExecResult;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import com.oraen.box.loader.extend.AssembleProcessNode;
+import com.oraen.box.loader.extend.ParallelDataBuilder;
+import com.oraen.box.loader.metrics.LatencyStats;
+import com.oraen.box.loader.metrics.LoaderLatencies;
+import com.oraen.box.loader.resilience.BulkheadPolicy;
+import com.oraen.box.loader.resilience.Bulkheads;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeadlineTest {
+
+    @Test
+    public void testNodeTimeout() {
+        ParallelDataBuilder<Integer, Map<String, Object>> builder = ParallelDataBuilder.<Integer, Map<String, Object>>builder()
+                .addNodes(AssembleProcessNode.<Integer, Map<String, Object>>builder()
+                                .name("optional")
+                                .process((param, resp, context) -> {
+                                    ThreadUtil.sleep(500);
+                                    return 1;
+                                })
+                                .fallback((param, resp, e, context) -> -1)
+                                .timeoutMillis(100L)
+                                .build(),
+                        new AssembleProcessNode<>("budget", null, (param, resp, context) -> context.remainingBudget()),
+                        new AssembleProcessNode<>("out", ListUtil.of("optional", "budget"), (param, resp, context) -> {
+                            resp.put("optional", context.getDataLoadData("optional"));
+                            return null;
+                        }))
+                .setExecTimeout(1000L)
+                .ensure();
+
+        long start = System.currentTimeMillis();
+        CommonLoadContext loadContext = builder.buildRespWithDetail(1, new HashMap<>());
+        assertTrue(System.currentTimeMillis() - start < 400);
+        assertNull(loadContext.getThrowable());
+        assertEquals(-1, loadContext.<Map<String, Object>>getResp().get("optional"));
+        ExecResult execResult = loadContext.getDataLoadResult("optional");
+        assertEquals(ExecResult.STATUS_FALLBACK, execResult.getStatus());
+        assertInstanceOf(TimeoutException.class, execResult.getException());
+
+        long budget = loadContext.getDataLoadData("budget");
+        assertTrue(budget > 0 && budget <= 1000);
+    }
+
+    @Test
+    public void testSkipOverBudget() {
+        LoaderLatencies.remove("heavy");
+        LatencyStats stats = LoaderLatencies.getStats("heavy");
+        for (int i = 0; i < 20; i++) {
+            stats.record(5000);
+        }
+
+        AtomicBoolean executed = new AtomicBoolean(false);
+        ParallelDataBuilder<Integer, Map<String, Object>> builder = ParallelDataBuilder.<Integer, Map<String, Object>>builder()
+                .addNodes(AssembleProcessNode.<Integer, Map<String, Object>>builder()
+                        .name("heavy")
+                        .process((param, resp, context) -> {
+                            executed.set(true);
+                            return 1;
+                        })
+                        .fallback((param, resp, e, context) -> 0)
+                        .build())
+                .setExecTimeout(1000L)
+                .ensure();
+
+        CommonLoadContext loadContext = builder.buildRespWithDetail(1, new HashMap<>());
+        assertFalse(executed.get());
+        assertEquals(ExecResult.STATUS_FALLBACK, loadContext.getDataLoadResult("heavy").getStatus());
+        assertInstanceOf(TimeoutException.class, loadContext.getDataLoadResult("heavy").getException());
+    }
+
+    @Test
+    public void testNodeTimeoutInterrupts() throws Exception {
+        Bulkheads.remove("timeoutInterrupt");
+        BulkheadPolicy bulkheadPolicy = BulkheadPolicy.builder().name("timeoutInterrupt").maxConcurrentCalls(1).build();
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicInteger activeWhenInterrupted = new AtomicInteger(-1);
+        AssembleDataLoader<Integer> sleeping = AssembleDataLoader.<Integer>builder()
+                .name("timeoutInterrupt")
+                .dataFunction(context -> {
+                    try {
+                        Thread.sleep(2000);
+                        return 1;
+                    } catch (InterruptedException e) {
+                        //调用还没有返回，隔离舱的并发数不能被归还
+                        activeWhenInterrupted.set(Bulkheads.getBulkhead("timeoutInterrupt").getActiveCalls());
+                        interrupted.countDown();
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .fallback((context, e) -> -1)
+                .bulkheadPolicy(bulkheadPolicy)
+                .timeoutMillis(100L)
+                .build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            long start = System.currentTimeMillis();
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(sleeping)), null, (Object) null);
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, null));
+            assertEquals(-1, (int) loadContext.<Integer>getDataLoadData("timeoutInterrupt"));
+            assertInstanceOf(TimeoutException.class, loadContext.getDataLoadResult("timeoutInterrupt").getException());
+
+            //超时后执行线程被中断，而不是一直睡到结束
+            assertTrue(interrupted.await(500, TimeUnit.MILLISECONDS));
+            assertTrue(System.currentTimeMillis() - start < 1000);
+            assertEquals(1, activeWhenInterrupted.get());
+            long deadline = System.currentTimeMillis() + 500;
+            while (Bulkheads.getBulkhead("timeoutInterrupt").getActiveCalls() != 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(0, Bulkheads.getBulkhead("timeoutInterrupt").getActiveCalls());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
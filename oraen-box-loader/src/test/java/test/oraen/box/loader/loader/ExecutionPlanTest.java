@@ -0,0 +1,71 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.CommonMapDataLoaderContainer;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutionPlanTest {
+
+    @Test
+    public void testCompile() {
+        AssembleDataLoader<Integer> b = new AssembleDataLoader<>("b", null, context -> 1);
+        AssembleDataLoader<Integer> c = new AssembleDataLoader<>("c", null, context -> 2);
+        AssembleDataLoader<Integer> d = new AssembleDataLoader<>("d", ListUtil.of("b", "c", "b"),
+                context -> context.<Integer>getDataLoadData("b") + context.<Integer>getDataLoadData("c"));
+        AssembleDataLoader<Integer> main = new AssembleDataLoader<>("main", ListUtil.of("d", "c"),
+                context -> context.<Integer>getDataLoadData("d") * 10);
+
+        CommonMapDataLoaderContainer container = new CommonMapDataLoaderContainer().addDataLoaders(main, b, c, d);
+        ExecutionPlan plan = ExecutionPlan.compile(main, container);
+
+        assertEquals(4, plan.size());
+        assertEquals(2, plan.getRoots().length);
+        //重复声明的依赖只算一次
+        assertEquals(2, plan.getDependencyCount(plan.indexOf("d")));
+        int[] order = plan.getTopologicalOrder();
+        int[] position = new int[plan.size()];
+        for (int i = 0; i < order.length; i++) {
+            position[order[i]] = i;
+        }
+        for (int i = 0; i < plan.size(); i++) {
+            for (int dependency : plan.getDependencies(i)) {
+                assertTrue(position[dependency] < position[i]);
+            }
+        }
+
+        //同一个执行计划可以被多次请求复用
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 3; i++) {
+                CommonLoadContext loadContext = new CommonLoadContext(plan, null, (Object) null);
+                assertNull(LoadLogic.exec(loadContext, executor, 1000L, null));
+                assertEquals(30, loadContext.<Integer>getDataLoadData("main"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testIllegalGraph() {
+        AssembleDataLoader<Integer> a = new AssembleDataLoader<>("a", ListUtil.of("b"), context -> 1);
+        AssembleDataLoader<Integer> b = new AssembleDataLoader<>("b", ListUtil.of("a"), context -> 1);
+        assertThrows(RuntimeException.class, () -> ExecutionPlan.compile(ListUtil.of(a, b)));
+
+        AssembleDataLoader<Integer> c = new AssembleDataLoader<>("c", ListUtil.of("x"), context -> 1);
+        assertThrows(IllegalStateException.class, () -> ExecutionPlan.compile(ListUtil.of(c)));
+
+        AssembleDataLoader<Integer> d1 = new AssembleDataLoader<>("d", null, context -> 1);
+        AssembleDataLoader<Integer> d2 = new AssembleDataLoader<>("d", null, context -> 2);
+        assertThrows(IllegalStateException.class, () -> ExecutionPlan.compile(ListUtil.of(d1, d2)));
+    }
+}
@@ -0,0 +1,95 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.common.util.ThreadUtil;
+import com.oraen.box.loader.ExecLog;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoaderHandler;
+import com.oraen.box.loader.core.CommonMapDataLoaderContainer;
+import com.oraen.box.loader.executor.LeastQueuedExecutorSelector;
+import com.oraen.box.loader.executor.RoundRobinExecutorSelector;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutorSelectorTest {
+
+    @Test
+    public void testSelect() throws Exception {
+        ThreadPoolExecutor busy = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        ThreadPoolExecutor idle = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            List<Executor> executors = ListUtil.of(busy, idle);
+            RoundRobinExecutorSelector roundRobin = new RoundRobinExecutorSelector();
+            assertSame(busy, roundRobin.select(executors, null));
+            assertSame(idle, roundRobin.select(executors, null));
+            assertSame(busy, roundRobin.select(executors, null));
+
+            //占住线程后再排队几个任务
+            for (int i = 0; i < 5; i++) {
+                busy.execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            LeastQueuedExecutorSelector leastQueued = new LeastQueuedExecutorSelector();
+            assertEquals(4, LeastQueuedExecutorSelector.queueDepth(busy));
+            for (int i = 0; i < 20; i++) {
+                assertSame(idle, leastQueued.select(executors, null));
+            }
+        } finally {
+            release.countDown();
+            busy.shutdown();
+            idle.shutdown();
+        }
+    }
+
+    @Test
+    public void testSpreadNodes() {
+        ExecutorService first = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "first-pool"));
+        ExecutorService second = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "second-pool"));
+        try {
+            Set<String> threads = new HashSet<>();
+            CommonMapDataLoaderContainer container = new CommonMapDataLoaderContainer();
+            for (String name : ListUtil.of("a", "b", "c", "d")) {
+                container.addDataLoaders(new AssembleDataLoader<>(name, null, context -> {
+                    ThreadUtil.sleep(20);
+                    return Thread.currentThread().getName();
+                }));
+            }
+            AssembleDataLoader<Integer> main = new AssembleDataLoader<>("main", ListUtil.of("a", "b", "c", "d"), context -> {
+                for (String name : ListUtil.of("a", "b", "c", "d")) {
+                    threads.add(context.getDataLoadData(name));
+                }
+                return threads.size();
+            });
+            container.addDataLoaders(main);
+
+            CommonLoaderHandler handler = new CommonLoaderHandler(container, ListUtil.of(first, second), 1000L);
+            handler.setExecutorSelector(new RoundRobinExecutorSelector());
+            handler.setSpreadNodes(true);
+            ExecLog execLog = handler.execDataLoadWithLog(main, null, null);
+            assertNull(execLog.getContext().getThrowable());
+            //同一个请求的节点用到了两个线程池
+            assertEquals(2, (int) execLog.getData());
+        } finally {
+            first.shutdown();
+            second.shutdown();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.loader.AsyncDataLoader;
+import com.oraen.box.loader.ExecResult;
+import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import com.oraen.box.loader.resilience.HedgeBudget;
+import com.oraen.box.loader.resilience.HedgePolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HedgeTest {
+
+    @AfterEach
+    public void resetBudget() {
+        HedgeBudget.configure(0.1, 10);
+    }
+
+    @Test
+    public void testHedgeWins() throws Exception {
+        HedgeBudget.configure(0.1, 10);
+        CountDownLatch loserInterrupted = new CountDownLatch(1);
+        AssembleDataLoader<Integer> tail = createTailLoader(1000, loserInterrupted);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(tail)), null, (Object) null);
+            long start = System.currentTimeMillis();
+            assertNull(LoadLogic.exec(loadContext, executor, 2000L, null));
+            assertTrue(System.currentTimeMillis() - start < 500);
+
+            ExecResult execResult = loadContext.getDataLoadResult("tail");
+            assertEquals(2, execResult.<Integer>getResult());
+            assertEquals(1, execResult.getHedge());
+            assertEquals(1, execResult.getRetry());
+            //输掉的调用被取消
+            assertTrue(loserInterrupted.await(500, TimeUnit.MILLISECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testHedgeBudgetExhausted() {
+        HedgeBudget.configure(0, 0);
+        AssembleDataLoader<Integer> tail = createTailLoader(200, new CountDownLatch(1));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(tail)), null, (Object) null);
+            assertNull(LoadLogic.exec(loadContext, executor, 2000L, null));
+            ExecResult execResult = loadContext.getDataLoadResult("tail");
+            assertEquals(1, execResult.<Integer>getResult());
+            assertEquals(0, execResult.getHedge());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testNullStage() {
+        HedgeBudget.configure(0.1, 10);
+        AsyncDataLoader<Integer> broken = new AsyncDataLoader<Integer>() {
+            @Override
+            public CompletionStage<Integer> getDataAsync(LoadContext context) {
+                return null;
+            }
+
+            @Override
+            public String name() {
+                return "hNullStage";
+            }
+
+            @Override
+            public List<String> dependencies() {
+                return null;
+            }
+
+            @Override
+            public Integer fallback(LoadContext context, Throwable e) {
+                return -1;
+            }
+
+            @Override
+            public HedgePolicy hedgePolicy() {
+                return HedgePolicy.builder().delayMillis(50).build();
+            }
+        };
+        AssembleDataLoader<Integer> dependent = new AssembleDataLoader<>("hNullDependent", ListUtil.of("hNullStage"),
+                context -> context.<Integer>getDataLoadData("hNullStage") + 1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(broken, dependent)), null, (Object) null);
+            long start = System.currentTimeMillis();
+            assertNull(LoadLogic.exec(loadContext, executor, 2000L, null));
+            //直接兜底，依赖它的节点不用等到整个请求超时
+            assertTrue(System.currentTimeMillis() - start < 500);
+            ExecResult execResult = loadContext.getDataLoadResult("hNullStage");
+            assertEquals(ExecResult.STATUS_FALLBACK, execResult.getStatus());
+            assertInstanceOf(IllegalStateException.class, execResult.getException());
+            assertEquals(0, (int) loadContext.<Integer>getDataLoadData("hNullDependent"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    //第一次调用很慢，之后的调用很快
+    private AssembleDataLoader<Integer> createTailLoader(long slowMillis, CountDownLatch interrupted) {
+        AtomicInteger calls = new AtomicInteger(0);
+        return AssembleDataLoader.<Integer>builder()
+                .name("tail")
+                .dataFunction(context -> {
+                    int call = calls.incrementAndGet();
+                    if(call == 1) {
+                        try {
+                            Thread.sleep(slowMillis);
+                        } catch (InterruptedException e) {
+                            interrupted.countDown();
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                    return call;
+                })
+                .hedgePolicy(HedgePolicy.builder().delayMillis(50).build())
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.loader.InlineMode;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import com.oraen.box.loader.metrics.LoaderLatencies;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InlineExecutionTest {
+
+    private static AssembleDataLoader<Integer> loader(String name, String dependency, InlineMode inlineMode, Map<String, Thread> threads) {
+        return AssembleDataLoader.<Integer>builder()
+                .name(name)
+                .dependencies(dependency == null ? null : ListUtil.of(dependency))
+                .dataFunction(context -> {
+                    threads.put(name, Thread.currentThread());
+                    return 1;
+                })
+                .inlineMode(inlineMode)
+                .build();
+    }
+
+    @Test
+    public void testAlwaysAndNever() {
+        Map<String, Thread> threads = new ConcurrentHashMap<>();
+        AssembleDataLoader<Integer> root = loader("iRoot", null, InlineMode.NEVER, threads);
+        AssembleDataLoader<Integer> always = loader("iAlways", "iRoot", InlineMode.ALWAYS, threads);
+        AssembleDataLoader<Integer> never = loader("iNever", "iRoot", InlineMode.NEVER, threads);
+        AssembleDataLoader<Integer> chained = loader("iChained", "iAlways", InlineMode.ALWAYS, threads);
+
+        //空闲线程被占用时会创建新线程，提交到线程池的节点一定不在完成依赖的线程上执行
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(root, always, never, chained)), null, (Object) null);
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, null));
+            assertSame(threads.get("iRoot"), threads.get("iAlways"));
+            assertSame(threads.get("iRoot"), threads.get("iChained"));
+            assertNotSame(threads.get("iRoot"), threads.get("iNever"));
+            assertEquals(1, loadContext.<Integer>getDataLoadData("iChained"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testAuto() {
+        LoaderLatencies.remove("iAuto");
+        Map<String, Thread> threads = new ConcurrentHashMap<>();
+        AssembleDataLoader<Integer> root = loader("iAutoRoot", null, InlineMode.NEVER, threads);
+        AssembleDataLoader<Integer> auto = loader("iAuto", "iAutoRoot", InlineMode.AUTO, threads);
+        ExecutionPlan plan = ExecutionPlan.compile(ListUtil.of(root, auto));
+
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            //没有执行耗时样本时提交到线程池
+            CommonLoadContext loadContext = new CommonLoadContext(plan, null, (Object) null);
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, null));
+            assertNotSame(threads.get("iAutoRoot"), threads.get("iAuto"));
+
+            for (int i = 0; i < 100; i++) {
+                LoaderLatencies.getStats("iAuto").recordExecNanos(100);
+            }
+            assertTrue(LoaderLatencies.getStats("iAuto").isCheap(1000));
+
+            loadContext = new CommonLoadContext(plan, null, (Object) null);
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, null));
+            assertSame(threads.get("iAutoRoot"), threads.get("iAuto"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.common.util.ThreadUtil;
+import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LazyLoaderTest {
+
+    private static AssembleDataLoader<Integer> lazyLoader(String name, List<String> dependencies, int value, AtomicInteger calls) {
+        return AssembleDataLoader.<Integer>builder()
+                .name(name)
+                .dependencies(dependencies)
+                .dataFunction(context -> {
+                    calls.incrementAndGet();
+                    ThreadUtil.sleep(20);
+                    return value;
+                })
+                .lazy(true)
+                .build();
+    }
+
+    @Test
+    public void testOnDemand() {
+        AtomicInteger usedCalls = new AtomicInteger(0);
+        AtomicInteger unusedCalls = new AtomicInteger(0);
+        AtomicInteger sharedCalls = new AtomicInteger(0);
+        AssembleDataLoader<Integer> used = lazyLoader("lzUsed", null, 1, usedCalls);
+        AssembleDataLoader<Integer> unused = lazyLoader("lzUnused", null, 2, unusedCalls);
+        //被非惰性节点依赖的惰性节点照常执行
+        AssembleDataLoader<Integer> shared = lazyLoader("lzShared", null, 3, sharedCalls);
+        AssembleDataLoader<Integer> root = new AssembleDataLoader<>("lzRoot", ListUtil.of("lzShared"), context -> {
+            boolean useFirst = context.getInitParam();
+            int re = context.<Integer>getDataLoadData("lzShared");
+            return re + (useFirst ? context.<Integer>getDataLoadData("lzUsed") : context.<Integer>getDataLoadData("lzUnused"));
+        });
+        ExecutionPlan plan = ExecutionPlan.compile(ListUtil.of(used, unused, shared, root));
+        assertTrue(plan.isDormant(plan.indexOf("lzUsed")));
+        assertFalse(plan.isDormant(plan.indexOf("lzShared")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(plan, true, (Object) null);
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, null));
+            assertEquals(4, loadContext.<Integer>getDataLoadData("lzRoot"));
+            assertEquals(1, usedCalls.get());
+            assertEquals(0, unusedCalls.get());
+            assertEquals(1, sharedCalls.get());
+            assertEquals(LoadContext.LoadStatus.ABANDON, loadContext.getDataLoadStatus("lzUnused"));
+
+            loadContext = new CommonLoadContext(plan, false, (Object) null);
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, null));
+            assertEquals(5, loadContext.<Integer>getDataLoadData("lzRoot"));
+            assertEquals(1, usedCalls.get());
+            assertEquals(1, unusedCalls.get());
+            assertEquals(LoadContext.LoadStatus.ABANDON, loadContext.getDataLoadStatus("lzUsed"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPrefetchWithLazyDependency() {
+        AtomicInteger calls = new AtomicInteger(0);
+        AssembleDataLoader<Integer> base = lazyLoader("lzBase", null, 1, calls);
+        AssembleDataLoader<Integer> derived = AssembleDataLoader.<Integer>builder()
+                .name("lzDerived")
+                .dependencies(ListUtil.of("lzBase"))
+                .dataFunction(context -> context.<Integer>getDataLoadData("lzBase") + 10)
+                .lazy(true)
+                .build();
+        AssembleDataLoader<Integer> other = lazyLoader("lzOther", null, 100, calls);
+        AssembleDataLoader<Integer> root = new AssembleDataLoader<>("lzPrefetchRoot", null, context -> {
+            //两个惰性节点同时开始执行
+            context.prefetch("lzDerived");
+            context.prefetch("lzOther");
+            return context.<Integer>getDataLoadData("lzDerived") + context.<Integer>getDataLoadData("lzOther");
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(base, derived, other, root)), null, (Object) null);
+            long start = System.currentTimeMillis();
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, null));
+            assertEquals(111, loadContext.<Integer>getDataLoadData("lzPrefetchRoot"));
+            assertEquals(2, calls.get());
+            assertTrue(System.currentTimeMillis() - start < 300);
+            assertEquals(LoadContext.LoadStatus.SUCCESS, loadContext.getDataLoadStatus("lzBase"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
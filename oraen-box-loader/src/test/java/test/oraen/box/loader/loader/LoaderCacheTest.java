@@ -0,0 +1,158 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.loader.CancellationToken;
+import com.oraen.box.loader.DataLoader;
+import com.oraen.box.loader.ExecResult;
+import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.cache.CachePolicy;
+import com.oraen.box.loader.cache.CacheStats;
+import com.oraen.box.loader.cache.CachingDataLoader;
+import com.oraen.box.loader.cache.LoaderCache;
+import com.oraen.box.loader.cache.LoaderCaches;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoaderHandler;
+import com.oraen.box.loader.core.CommonMapDataLoaderContainer;
+import com.oraen.box.loader.resilience.BulkheadPolicy;
+import com.oraen.box.loader.resilience.Bulkheads;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoaderCacheTest {
+
+    @Test
+    public void testCacheAcrossRequests() {
+        LoaderCaches.remove("cachedUser");
+        AtomicInteger calls = new AtomicInteger(0);
+        AssembleDataLoader<Integer> user = new AssembleDataLoader<>("cachedUser", null, context -> {
+            calls.incrementAndGet();
+            return context.<Integer>getInitParam() * 100;
+        });
+
+        CachingDataLoader<Integer> cachedUser = CachingDataLoader.of(user, CachePolicy.builder().maximumSize(100).build(), LoadContext::getInitParam);
+        AssembleDataLoader<Integer> main = new AssembleDataLoader<>("main", ListUtil.of("cachedUser"),
+                context -> context.<Integer>getDataLoadData("cachedUser") + 1);
+        CommonMapDataLoaderContainer container = new CommonMapDataLoaderContainer().addDataLoaders(main, cachedUser);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CommonLoaderHandler handler = new CommonLoaderHandler(container, Collections.singletonList(executor), 1000L);
+            LoadContext first = handler.execDataLoadWithLog(main, 1, null).getContext();
+            assertEquals(ExecResult.STATUS_SUCCESS, first.getDataLoadResult("cachedUser").getStatus());
+
+            LoadContext second = handler.execDataLoadWithLog(main, 1, null).getContext();
+            assertEquals(101, second.<Integer>getDataLoadData("main"));
+            assertEquals(ExecResult.STATUS_CACHED, second.getDataLoadResult("cachedUser").getStatus());
+            assertEquals(LoadContext.LoadStatus.SUCCESS, second.getDataLoadStatus("cachedUser"));
+
+            handler.execDataLoadWithLog(main, 2, null);
+            assertEquals(2, calls.get());
+        } finally {
+            executor.shutdown();
+        }
+
+        CacheStats stats = LoaderCaches.stats().get("cachedUser");
+        assertEquals(1, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(2, stats.getSize());
+    }
+
+    @Test
+    public void testHungRefresh() throws Exception {
+        LoaderCaches.remove("staleUser");
+        Bulkheads.remove("staleUser");
+        AtomicInteger calls = new AtomicInteger(0);
+        CountDownLatch hang = new CountDownLatch(1);
+        List<CancellationToken> refreshTokens = new CopyOnWriteArrayList<>();
+        AssembleDataLoader<Integer> staleUser = AssembleDataLoader.<Integer>builder()
+                .name("staleUser")
+                .dataFunction(context -> {
+                    //第一次正常加载，之后的刷新一直卡住
+                    if(calls.incrementAndGet() == 1) {
+                        return 1;
+                    }
+                    refreshTokens.add(context.getCancellationToken());
+                    try {
+                        hang.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return calls.get();
+                })
+                .cachePolicy(CachePolicy.builder().maximumSize(100).refreshAfterWriteMillis(50).build())
+                .cacheKey(context -> "key")
+                .bulkheadPolicy(BulkheadPolicy.builder().name("staleUser").maxConcurrentCalls(2).build())
+                .build();
+        CommonMapDataLoaderContainer container = new CommonMapDataLoaderContainer().addDataLoaders(staleUser);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CommonLoaderHandler handler = new CommonLoaderHandler(container, Collections.singletonList(executor), 1000L);
+            handler.execDataLoadWithLog(staleUser, null, null);
+            Thread.sleep(80);
+
+            //过了刷新时间返回旧值，后台刷新卡住
+            LoadContext stale = handler.execDataLoadWithLog(staleUser, null, null).getContext();
+            assertEquals(ExecResult.STATUS_CACHED, stale.getDataLoadResult("staleUser").getStatus());
+            Thread.sleep(30);
+            assertEquals(1, refreshTokens.size());
+            assertNotSame(stale.getCancellationToken(), refreshTokens.get(0));
+            assertEquals(1, Bulkheads.getBulkhead("staleUser").getActiveCalls());
+
+            //刷新超时后归还许可，下一次过期命中可以重新刷新
+            Thread.sleep(100);
+            assertTrue(refreshTokens.get(0).isCancelled());
+            assertEquals(0, Bulkheads.getBulkhead("staleUser").getActiveCalls());
+            assertEquals(1, LoaderCaches.stats().get("staleUser").getRefreshFailureCount());
+            handler.execDataLoadWithLog(staleUser, null, null);
+            Thread.sleep(30);
+            assertEquals(2, refreshTokens.size());
+        } finally {
+            hang.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testEviction() {
+        LoaderCache<Object, Object> cache = new LoaderCache<>(CachePolicy.builder().maximumSize(10).build());
+        //热点数据被多次访问
+        for (int i = 0; i < 5; i++) {
+            cache.put(i, i);
+            for (int j = 0; j < 5; j++) {
+                cache.getIfPresent(i);
+            }
+        }
+        for (int i = 5; i < 100; i++) {
+            cache.put(i, i);
+        }
+
+        assertEquals(10, cache.size());
+        assertEquals(90, cache.stats().getEvictionCount());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, cache.getIfPresent(i));
+        }
+    }
+
+    @Test
+    public void testDelegatesAllDefaults() throws Exception {
+        //DataLoader 新增默认方法时，CachingDataLoader 也要委托，否则包装后的节点会悄悄丢掉原来的配置
+        for (Method method : DataLoader.class.getMethods()) {
+            if(! method.isDefault()) {
+                continue;
+            }
+
+            Method override = CachingDataLoader.class.getMethod(method.getName(), method.getParameterTypes());
+            assertEquals(CachingDataLoader.class, override.getDeclaringClass(), "CachingDataLoader does not override " + method.getName());
+        }
+    }
+}
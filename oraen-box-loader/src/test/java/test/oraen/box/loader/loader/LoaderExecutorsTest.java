@@ -0,0 +1,97 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.common.util.ThreadUtil;
+import com.oraen.box.loader.executor.ConcurrencyLimitedExecutor;
+import com.oraen.box.loader.executor.LoaderExecutors;
+import com.oraen.box.loader.extend.AssembleProcessNode;
+import com.oraen.box.loader.extend.ParallelDataBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoaderExecutorsTest {
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            ConcurrencyLimitedExecutor executor = new ConcurrencyLimitedExecutor(pool, 3);
+            AtomicInteger running = new AtomicInteger(0);
+            AtomicInteger maxRunning = new AtomicInteger(0);
+            CountDownLatch latch = new CountDownLatch(20);
+            for (int i = 0; i < 20; i++) {
+                executor.execute(() -> {
+                    int current = running.incrementAndGet();
+                    maxRunning.accumulateAndGet(current, Math::max);
+                    ThreadUtil.sleep(10);
+                    running.decrementAndGet();
+                    latch.countDown();
+                });
+            }
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertTrue(maxRunning.get() <= 3);
+            assertEquals(0, executor.getWaitingCount());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testVirtualThreads() {
+        ParallelDataBuilder<Integer, Map<String, Integer>> builder = ParallelDataBuilder.<Integer, Map<String, Integer>>builder()
+                .addNodes(new AssembleProcessNode<>("a", null, (param, resp, context) -> param + 1),
+                        new AssembleProcessNode<>("b", ListUtil.of("a"), (param, resp, context) -> resp.put("b", context.<Integer>getDataLoadData("a"))))
+                .useVirtualThreads(64)
+                .ensure();
+
+        assertEquals(2, builder.buildResp(1, new HashMap<>()).get("b"));
+    }
+
+    @Test
+    public void testRejectedDelegate() {
+        ConcurrencyLimitedExecutor executor = new ConcurrencyLimitedExecutor(command -> {
+            throw new RejectedExecutionException();
+        }, 2);
+        AtomicInteger executed = new AtomicInteger(0);
+        for (int i = 0; i < 5; i++) {
+            executor.execute(executed::incrementAndGet);
+        }
+
+        //被拒绝的任务在提交线程上执行，不会丢失，也不会一直占着名额
+        assertEquals(5, executed.get());
+        assertEquals(0, executor.getRunningCount());
+        assertEquals(0, executor.getWaitingCount());
+    }
+
+    @Test
+    public void testSharedPlatformFallback() throws Exception {
+        if(LoaderExecutors.isVirtualThreadSupported()) {
+            return;
+        }
+
+        ConcurrencyLimitedExecutor first = (ConcurrencyLimitedExecutor) LoaderExecutors.virtualThreadExecutor(4);
+        ConcurrencyLimitedExecutor second = (ConcurrencyLimitedExecutor) LoaderExecutors.virtualThreadExecutor(8);
+        //不支持虚拟线程时共用同一个线程池，而不是每次创建一个
+        assertSame(first.getDelegate(), second.getDelegate());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger daemon = new AtomicInteger(0);
+        first.execute(() -> {
+            daemon.set(Thread.currentThread().isDaemon() ? 1 : 0);
+            latch.countDown();
+        });
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        assertEquals(1, daemon.get());
+    }
+}
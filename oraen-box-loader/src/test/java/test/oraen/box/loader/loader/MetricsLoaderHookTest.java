@@ -0,0 +1,132 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.common.util.ThreadUtil;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import com.oraen.box.loader.metrics.LatencyHistogram;
+import com.oraen.box.loader.metrics.LoaderMetricsSnapshot;
+import com.oraen.box.loader.metrics.MetricsHttpServer;
+import com.oraen.box.loader.metrics.MetricsLoaderHook;
+import com.oraen.box.loader.metrics.PrometheusExporter;
+import com.oraen.box.loader.metrics.RequestMetricsSnapshot;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsLoaderHookTest {
+
+    @Test
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        LatencyHistogram.HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(10000, snapshot.getCount());
+        //误差不超过 1/32
+        long p50 = snapshot.percentile(0.5);
+        assertTrue(Math.abs(p50 - TimeUnit.MICROSECONDS.toNanos(5000)) <= TimeUnit.MICROSECONDS.toNanos(5000) / 32);
+        long p99 = snapshot.percentile(0.99);
+        assertTrue(Math.abs(p99 - TimeUnit.MICROSECONDS.toNanos(9900)) <= TimeUnit.MICROSECONDS.toNanos(9900) / 32);
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(10000), snapshot.getMax());
+    }
+
+    @Test
+    public void testRecordAndExport() throws Exception {
+        AssembleDataLoader<Integer> ok = new AssembleDataLoader<>("fast", null, context -> {
+            ThreadUtil.sleep(10);
+            return 1;
+        });
+        AssembleDataLoader<Integer> flaky = AssembleDataLoader.<Integer>builder()
+                .name("unstable")
+                .dataFunction(context -> {
+                    throw new IllegalStateException("always fails");
+                })
+                .maxRetry(2)
+                .fallback((context, e) -> -1)
+                .build();
+        AssembleDataLoader<Integer> slow = AssembleDataLoader.<Integer>builder()
+                .name("sluggish")
+                .dataFunction(context -> {
+                    ThreadUtil.sleep(300);
+                    return 1;
+                })
+                .timeoutMillis(50L)
+                .fallback((context, e) -> -1)
+                .build();
+        AssembleDataLoader<Integer> skipped = AssembleDataLoader.<Integer>builder()
+                .name("skipped")
+                .dataFunction(context -> 1)
+                .needLoad(context -> false)
+                .build();
+        AssembleDataLoader<Integer> root = new AssembleDataLoader<>("report", ListUtil.of("fast", "unstable", "sluggish", "skipped"), context -> 0);
+
+        MetricsLoaderHook hook = new MetricsLoaderHook();
+        MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+        hook.registerMBeans(mBeanServer);
+        ExecutionPlan plan = ExecutionPlan.compile(ListUtil.of(ok, flaky, slow, skipped, root));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 3; i++) {
+                CommonLoadContext loadContext = new CommonLoadContext(plan, null, (Object) null);
+                assertNull(LoadLogic.exec(loadContext, executor, 1000L, ListUtil.of(hook)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, LoaderMetricsSnapshot> loaders = hook.loaderSnapshots();
+        assertEquals(3, loaders.get("fast").getSuccessCount());
+        assertTrue(loaders.get("fast").getExec().percentile(0.5) >= TimeUnit.MILLISECONDS.toNanos(10));
+        assertEquals(3, loaders.get("fast").getQueueWait().getCount());
+        assertEquals(3, loaders.get("unstable").getFallbackCount());
+        assertEquals(3, loaders.get("unstable").getRetryCount());
+        assertEquals(3, loaders.get("sluggish").getTimeoutCount());
+        assertEquals(3, loaders.get("skipped").getAbandonCount());
+        RequestMetricsSnapshot request = hook.requestSnapshots().get("report");
+        assertEquals(3, request.getRequestCount());
+        assertEquals(0, request.getFailureCount());
+
+        assertEquals(3L, mBeanServer.getAttribute(MetricsLoaderHook.objectName("LoaderMetrics", "unstable"), "FallbackCount"));
+        assertEquals(3L, mBeanServer.getAttribute(MetricsLoaderHook.objectName("RequestMetrics", "report"), "RequestCount"));
+        hook.unregisterMBeans();
+        assertFalse(mBeanServer.isRegistered(MetricsLoaderHook.objectName("LoaderMetrics", "unstable")));
+
+        String text = PrometheusExporter.export(hook);
+        assertTrue(text.contains("oraen_loader_calls_total{loader=\"fast\",status=\"success\"} 3\n"));
+        assertTrue(text.contains("oraen_loader_retries_total{loader=\"unstable\"} 3\n"));
+        assertTrue(text.contains("oraen_loader_request_seconds_count{plan=\"report\"} 3\n"));
+
+        MetricsHttpServer server = new MetricsHttpServer(hook, 0).start();
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + "/metrics").openConnection();
+            assertEquals(200, connection.getResponseCode());
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (InputStream inputStream = connection.getInputStream()) {
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = inputStream.read(buffer)) > 0) {
+                    body.write(buffer, 0, read);
+                }
+            }
+            assertTrue(new String(body.toByteArray(), StandardCharsets.UTF_8).contains("oraen_loader_timeouts_total{loader=\"sluggish\"} 3"));
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.common.util.ThreadUtil;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import com.oraen.box.loader.executor.LoaderExecutors;
+import com.oraen.box.loader.extend.AssembleProcessNode;
+import com.oraen.box.loader.extend.ParallelDataBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrioritySchedulingTest {
+
+    @Test
+    public void testLongestPathFirst() {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<AssembleDataLoader<Integer>> loaders = new ArrayList<>();
+        loaders.add(new AssembleDataLoader<>("pGate", null, context -> 0));
+        //短的叶子节点排在前面，按 FIFO 会先执行
+        for (String leaf : ListUtil.of("pLeaf1", "pLeaf2", "pLeaf3")) {
+            loaders.add(new AssembleDataLoader<>(leaf, ListUtil.of("pGate"), context -> {
+                order.add(leaf);
+                return 1;
+            }));
+        }
+        loaders.add(new AssembleDataLoader<>("pChain1", ListUtil.of("pGate"), context -> {
+            order.add("pChain1");
+            ThreadUtil.sleep(5);
+            return 1;
+        }));
+        loaders.add(new AssembleDataLoader<>("pChain2", ListUtil.of("pChain1"), context -> 1));
+        loaders.add(new AssembleDataLoader<>("pChain3", ListUtil.of("pChain2"), context -> 1));
+        loaders.add(new AssembleDataLoader<>("pEnd", ListUtil.of("pLeaf1", "pLeaf2", "pLeaf3", "pChain3"), context -> 1));
+        ExecutionPlan plan = ExecutionPlan.compile(loaders);
+
+        ExecutionPlan.PathEstimate estimate = plan.refreshPathEstimate();
+        assertEquals(0, estimate.getSlackMillis(plan.indexOf("pGate")));
+        assertTrue(estimate.getSlackMillis(plan.indexOf("pLeaf1")) > estimate.getSlackMillis(plan.indexOf("pChain1")));
+        assertEquals(plan.indexOf("pChain1"), estimate.getDependentsByPriority(plan.indexOf("pGate"))[0]);
+
+        ThreadPoolExecutor executor = LoaderExecutors.priorityExecutor(1);
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(plan, null, (Object) null);
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, null));
+            //关键路径上的节点先执行
+            assertEquals("pChain1", order.get(0));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCallerOwnedExecutor() {
+        ThreadPoolExecutor fifo = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+        ThreadPoolExecutor executor = LoaderExecutors.priorityExecutor(2);
+        try {
+            ParallelDataBuilder<Integer, Map<String, Integer>> builder = ParallelDataBuilder.<Integer, Map<String, Integer>>builder();
+            //普通线程池没有优先级，不能用来做优先级调度
+            assertThrows(IllegalArgumentException.class, () -> builder.usePriorityScheduling(fifo));
+
+            builder.addNodes(new AssembleProcessNode<>("pOwned", null, (param, resp, context) -> resp.put("pOwned", param + 1)))
+                    .usePriorityScheduling(executor)
+                    .ensure();
+            assertEquals(2, builder.buildResp(1, new HashMap<>()).get("pOwned"));
+        } finally {
+            //线程池由调用方关闭
+            executor.shutdown();
+            fifo.shutdown();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.common.util.ThreadUtil;
+import com.oraen.box.loader.DependencyQuorum;
+import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuorumDependencyTest {
+
+    private static AssembleDataLoader<Integer> replica(String name, long sleepMillis, Integer value) {
+        return AssembleDataLoader.<Integer>builder()
+                .name(name)
+                .dataFunction(context -> {
+                    ThreadUtil.sleep(sleepMillis);
+                    if(value == null) {
+                        throw new IllegalStateException(name + " failed");
+                    }
+                    return value;
+                })
+                .fallback((context, e) -> null)
+                .build();
+    }
+
+    private static AssembleDataLoader<Integer> consumer(String name, List<String> dependencies, DependencyQuorum quorum) {
+        return AssembleDataLoader.<Integer>builder()
+                .name(name)
+                .dependencies(dependencies)
+                .dependencyQuorums(ListUtil.of(quorum))
+                .dataFunction(context -> {
+                    int sum = 0;
+                    for (String dependency : dependencies) {
+                        if(context.getDataLoadStatus(dependency) == LoadContext.LoadStatus.SUCCESS) {
+                            sum += context.<Integer>getDataLoadData(dependency);
+                        }
+                    }
+                    return sum;
+                })
+                .build();
+    }
+
+    @Test
+    public void testAnyOf() {
+        AssembleDataLoader<Integer> fast = replica("qFast", 10, 1);
+        AssembleDataLoader<Integer> slow = replica("qSlow", 500, 2);
+        AssembleDataLoader<Integer> consumer = consumer("qAny", ListUtil.of("qFast", "qSlow"), DependencyQuorum.anyOf("qFast", "qSlow"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(fast, slow, consumer)), null, (Object) null);
+            long start = System.currentTimeMillis();
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, null));
+            //不等慢的副本，慢的副本被取消
+            assertTrue(System.currentTimeMillis() - start < 300);
+            assertEquals(1, loadContext.<Integer>getDataLoadData("qAny"));
+            assertEquals(LoadContext.LoadStatus.ABANDON, loadContext.getDataLoadStatus("qSlow"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testQuorumWithFailure() {
+        AssembleDataLoader<Integer> a = replica("qA", 0, null);
+        AssembleDataLoader<Integer> b = replica("qB", 10, 10);
+        AssembleDataLoader<Integer> c = replica("qC", 30, 100);
+        AssembleDataLoader<Integer> d = replica("qD", 500, 1000);
+        List<String> sources = ListUtil.of("qA", "qB", "qC", "qD");
+        AssembleDataLoader<Integer> consumer = consumer("qQuorum", sources, DependencyQuorum.quorum(2, "qA", "qB", "qC", "qD"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(a, b, c, d, consumer)), null, (Object) null);
+            long start = System.currentTimeMillis();
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, null));
+            assertTrue(System.currentTimeMillis() - start < 300);
+            assertEquals(110, loadContext.<Integer>getDataLoadData("qQuorum"));
+            assertEquals(LoadContext.LoadStatus.FALLBACK, loadContext.getDataLoadStatus("qA"));
+            assertEquals(LoadContext.LoadStatus.ABANDON, loadContext.getDataLoadStatus("qD"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testAllFailedAndShared() {
+        AssembleDataLoader<Integer> x = replica("qX", 0, null);
+        AssembleDataLoader<Integer> y = replica("qY", 20, null);
+        AssembleDataLoader<Integer> failed = consumer("qFailed", ListUtil.of("qX", "qY"), DependencyQuorum.anyOf("qX", "qY"));
+        AssembleDataLoader<Integer> first = replica("qFirst", 0, 1);
+        AssembleDataLoader<Integer> shared = replica("qShared", 50, 2);
+        AssembleDataLoader<Integer> consumer = consumer("qSharedConsumer", ListUtil.of("qFirst", "qShared"), DependencyQuorum.anyOf("qFirst", "qShared"));
+        //其他节点也依赖的副本不取消
+        AssembleDataLoader<Integer> other = new AssembleDataLoader<>("qOther", ListUtil.of("qShared"), context -> context.<Integer>getDataLoadData("qShared"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(x, y, failed, first, shared, consumer, other)), null, (Object) null);
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, null));
+            //都失败时也会执行，由节点自己处理
+            assertEquals(0, loadContext.<Integer>getDataLoadData("qFailed"));
+            assertEquals(1, loadContext.<Integer>getDataLoadData("qSharedConsumer"));
+            assertEquals(LoadContext.LoadStatus.SUCCESS, loadContext.getDataLoadStatus("qShared"));
+            assertEquals(2, loadContext.<Integer>getDataLoadData("qOther"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testInvalidQuorum() {
+        AssembleDataLoader<Integer> a = replica("qInvalidA", 0, 1);
+        AssembleDataLoader<Integer> consumer = consumer("qInvalid", ListUtil.of("qInvalidA"), DependencyQuorum.anyOf("qInvalidA", "qMissing"));
+        assertThrows(IllegalStateException.class, () -> ExecutionPlan.compile(ListUtil.of(a, consumer)));
+        AssembleDataLoader<Integer> tooMany = consumer("qTooMany", ListUtil.of("qInvalidA"), DependencyQuorum.quorum(2, "qInvalidA"));
+        assertThrows(IllegalStateException.class, () -> ExecutionPlan.compile(ListUtil.of(a, tooMany)));
+    }
+}
@@ -0,0 +1,83 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.loader.ExecResult;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import com.oraen.box.loader.resilience.RetryBackoff;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryBackoffTest {
+
+    @Test
+    public void testBackoffReleasesThread() {
+        AtomicInteger calls = new AtomicInteger(0);
+        AtomicLong otherDoneTime = new AtomicLong(0);
+        AssembleDataLoader<Integer> flaky = AssembleDataLoader.<Integer>builder()
+                .name("flaky")
+                .dataFunction(context -> {
+                    if(calls.incrementAndGet() < 3) {
+                        throw new IllegalStateException("brownout");
+                    }
+                    return 1;
+                })
+                .maxRetry(3)
+                .retryBackoff(RetryBackoff.builder().initialDelayMillis(100).multiplier(1).jitter(0).build())
+                .build();
+        AssembleDataLoader<Integer> other = new AssembleDataLoader<>("other", null, context -> {
+            otherDoneTime.set(System.currentTimeMillis());
+            return 2;
+        });
+
+        //单线程池，退避期间线程可以执行其他节点
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(flaky, other)), null, (Object) null);
+            long start = System.currentTimeMillis();
+            assertNull(LoadLogic.exec(loadContext, executor, 2000L, null));
+            long cost = System.currentTimeMillis() - start;
+
+            ExecResult execResult = loadContext.getDataLoadResult("flaky");
+            assertEquals(ExecResult.STATUS_SUCCESS, execResult.getStatus());
+            assertEquals(3, execResult.getRetry());
+            assertTrue(cost >= 200);
+            assertTrue(otherDoneTime.get() - start < 100);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testBackoffBoundedByBudget() {
+        AtomicInteger calls = new AtomicInteger(0);
+        AssembleDataLoader<Integer> flaky = AssembleDataLoader.<Integer>builder()
+                .name("flaky")
+                .dataFunction(context -> {
+                    calls.incrementAndGet();
+                    throw new IllegalStateException("brownout");
+                })
+                .fallback((context, e) -> -1)
+                .maxRetry(3)
+                .retryBackoff(RetryBackoff.builder().initialDelayMillis(1000).jitter(0).build())
+                .build();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(flaky)), null, (Object) null);
+            assertNull(LoadLogic.exec(loadContext, executor, 300L, null));
+            assertEquals(1, calls.get());
+            assertEquals(ExecResult.STATUS_FALLBACK, loadContext.getDataLoadResult("flaky").getStatus());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import com.oraen.box.loader.resilience.RetryBudget;
+import com.oraen.box.loader.resilience.RetryBudgetPolicy;
+import com.oraen.box.loader.resilience.RetryBudgets;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryBudgetTest {
+
+    @Test
+    public void testRetryStorm() {
+        RetryBudgets.remove("storm");
+        AtomicInteger calls = new AtomicInteger(0);
+        AssembleDataLoader<Integer> storm = AssembleDataLoader.<Integer>builder()
+                .name("storm")
+                .dataFunction(context -> {
+                    calls.incrementAndGet();
+                    throw new IllegalStateException("downstream down");
+                })
+                .fallback((context, e) -> -1)
+                .maxRetry(5)
+                .retryBudgetPolicy(RetryBudgetPolicy.builder().ratio(0.5).maxTokens(2).build())
+                .build();
+
+        ExecutionPlan plan = ExecutionPlan.compile(ListUtil.of(storm));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int i = 0; i < 3; i++) {
+                assertNull(LoadLogic.exec(new CommonLoadContext(plan, null, (Object) null), executor, 1000L, null));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        //第一次请求用完两次重试，之后的请求不再重试
+        assertEquals(5, calls.get());
+        RetryBudget retryBudget = RetryBudgets.getBudget("storm");
+        assertEquals(2, retryBudget.getRetryCount());
+        assertEquals(3, retryBudget.getDeniedCount());
+
+        //成功调用按比例补充令牌
+        retryBudget.recordSuccess();
+        retryBudget.recordSuccess();
+        assertEquals(1.0, retryBudget.getAvailableTokens(), 0.001);
+    }
+
+    @Test
+    public void testOptIn() {
+        //默认不限制重试
+        assertNull(new AssembleDataLoader<>("noBudget", null, context -> 1).retryBudgetPolicy());
+        assertNull(ExecutionPlan.compile(ListUtil.of(new AssembleDataLoader<>("noBudget", null, context -> 1))).getRetryBudget(0));
+
+        //共享的默认配置不能被修改
+        assertThrows(UnsupportedOperationException.class, () -> RetryBudgetPolicy.DEFAULT.setRatio(1.0));
+        assertThrows(UnsupportedOperationException.class, () -> RetryBudgetPolicy.DEFAULT.setMaxTokens(100));
+        assertEquals(0.1, RetryBudgetPolicy.DEFAULT.getRatio(), 0.0001);
+        assertEquals(10, RetryBudgetPolicy.DEFAULT.getMaxTokens());
+    }
+}
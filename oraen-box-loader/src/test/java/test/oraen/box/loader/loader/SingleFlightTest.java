@@ -0,0 +1,92 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ThreadUtil;
+import com.oraen.box.loader.ExecLog;
+import com.oraen.box.loader.ExecResult;
+import com.oraen.box.loader.LoadContext;
+import com.oraen.box.loader.cache.SingleFlight;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoaderHandler;
+import com.oraen.box.loader.core.CommonMapDataLoaderContainer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testCoalesce() throws Exception {
+        AtomicInteger calls = new AtomicInteger(0);
+        AssembleDataLoader<Integer> hot = AssembleDataLoader.<Integer>builder()
+                .name("hot")
+                .dataFunction(context -> {
+                    calls.incrementAndGet();
+                    ThreadUtil.sleep(200);
+                    return context.<Integer>getInitParam() * 10;
+                })
+                .coalesceKey(LoadContext::getInitParam)
+                .build();
+
+        List<ExecLog> execLogs = execConcurrently(hot, 8);
+        assertEquals(1, calls.get());
+        for (ExecLog execLog : execLogs) {
+            ExecResult execResult = execLog.getContext().getDataLoadResult("hot");
+            assertEquals(ExecResult.STATUS_SUCCESS, execResult.getStatus());
+            assertEquals(10, execResult.<Integer>getResult());
+        }
+        assertEquals(0, SingleFlight.inFlightCount());
+    }
+
+    @Test
+    public void testShareFallback() throws Exception {
+        AtomicInteger calls = new AtomicInteger(0);
+        AssembleDataLoader<Integer> broken = AssembleDataLoader.<Integer>builder()
+                .name("broken")
+                .dataFunction(context -> {
+                    calls.incrementAndGet();
+                    ThreadUtil.sleep(200);
+                    throw new IllegalStateException("downstream down");
+                })
+                .fallback((context, e) -> -1)
+                .coalesceKey(context -> "all")
+                .build();
+
+        List<ExecLog> execLogs = execConcurrently(broken, 4);
+        assertEquals(1, calls.get());
+        for (ExecLog execLog : execLogs) {
+            ExecResult execResult = execLog.getContext().getDataLoadResult("broken");
+            assertEquals(ExecResult.STATUS_FALLBACK, execResult.getStatus());
+            assertEquals(-1, execResult.<Integer>getResult());
+            assertInstanceOf(IllegalStateException.class, execResult.getException());
+        }
+    }
+
+    private List<ExecLog> execConcurrently(AssembleDataLoader<Integer> dataLoader, int requests) throws Exception {
+        CommonMapDataLoaderContainer container = new CommonMapDataLoaderContainer().addDataLoaders(dataLoader);
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            CommonLoaderHandler handler = new CommonLoaderHandler(container, Collections.singletonList(executor), 1000L);
+            List<CompletableFuture<ExecLog>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                futures.add(handler.execDataLoadAsync(dataLoader, 1, null));
+            }
+
+            List<ExecLog> execLogs = new ArrayList<>();
+            for (CompletableFuture<ExecLog> future : futures) {
+                execLogs.add(future.get(1, TimeUnit.SECONDS));
+            }
+            return execLogs;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
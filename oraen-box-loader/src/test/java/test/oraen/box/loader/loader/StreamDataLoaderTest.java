@@ -0,0 +1,148 @@
+package test.oraen.box.loader.loader;
+
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.common.util.ThreadUtil;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import com.oraen.box.loader.stream.AssembleStreamDataLoader;
+import com.oraen.box.loader.stream.Flow;
+import com.oraen.box.loader.stream.ReplayPublisher;
+import com.oraen.box.loader.stream.StreamSubscribers;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamDataLoaderTest {
+
+    @Test
+    public void testPipelined() {
+        AtomicLong producedAt = new AtomicLong(0);
+        AtomicLong firstConsumedAt = new AtomicLong(0);
+        AssembleStreamDataLoader<Integer> hits = new AssembleStreamDataLoader<>("sHits", null, (context, sink) -> {
+            for (int i = 1; i <= 20; i++) {
+                ThreadUtil.sleep(10);
+                if(! sink.emit(i)) {
+                    return;
+                }
+            }
+            producedAt.set(System.nanoTime());
+        });
+        AssembleDataLoader<Integer> sum = new AssembleDataLoader<>("sSum", ListUtil.of("sHits"), context -> {
+            Flow.Publisher<Integer> publisher = context.getDataLoadData("sHits");
+            AtomicInteger total = new AtomicInteger(0);
+            StreamSubscribers.forEach(publisher, 4, item -> {
+                firstConsumedAt.compareAndSet(0, System.nanoTime());
+                ThreadUtil.sleep(10);
+                total.addAndGet(item);
+            }).join();
+            return total.get();
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CommonLoadContext loadContext = new CommonLoadContext(ExecutionPlan.compile(ListUtil.of(hits, sum)), null, (Object) null);
+            long start = System.currentTimeMillis();
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, null));
+            long elapsed = System.currentTimeMillis() - start;
+            assertEquals(210, loadContext.<Integer>getDataLoadData("sSum"));
+            //生产结束前已经开始处理
+            assertTrue(firstConsumedAt.get() - producedAt.get() < 0);
+            //生产和处理各需要 200 毫秒，同时进行时总耗时明显小于两者之和
+            assertTrue(elapsed < 320, "elapsed " + elapsed);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testBackpressureAndReplay() throws Exception {
+        ReplayPublisher<Integer> publisher = new ReplayPublisher<>(4);
+        AtomicReference<Flow.Subscription> slow = new AtomicReference<>();
+        List<Integer> slowItems = Collections.synchronizedList(new ArrayList<>());
+        publisher.subscribe(new Flow.Subscriber<Integer>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                slow.set(subscription);
+                subscription.request(2);
+            }
+
+            @Override
+            public void onNext(Integer item) {
+                slowItems.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        AtomicBoolean produced = new AtomicBoolean(false);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                publisher.emit(i);
+            }
+            publisher.complete();
+            produced.set(true);
+        });
+        producer.start();
+        ThreadUtil.sleep(100);
+        //订阅者只要了 2 条，生产者最多领先 bufferSize 条
+        assertFalse(produced.get());
+        assertEquals(2, slowItems.size());
+        assertTrue(publisher.getSize() <= 6);
+
+        slow.get().cancel();
+        producer.join(1000);
+        assertTrue(produced.get());
+
+        //后订阅的订阅者从头收到完整的流
+        List<Integer> replayed = new ArrayList<>();
+        StreamSubscribers.forEach(publisher, 16, replayed::add).get();
+        assertEquals(100, replayed.size());
+        assertEquals(99, (int) replayed.get(99));
+    }
+
+    @Test
+    public void testSingleThreadPool() throws Exception {
+        //生产者和发送任务共用唯一的线程，订阅者比 bufferSize 慢，生产者等待时需要代为发送
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ReplayPublisher<Integer> publisher = new ReplayPublisher<>(4, executor);
+            List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+            CompletableFuture<Void> consumed = StreamSubscribers.forEach(publisher, 2, item -> {
+                ThreadUtil.sleep(2);
+                received.add(item);
+            });
+            executor.execute(() -> {
+                for (int i = 0; i < 20; i++) {
+                    publisher.emit(i);
+                }
+                publisher.complete();
+            });
+
+            consumed.get(2, TimeUnit.SECONDS);
+            assertEquals(20, received.size());
+            assertEquals(20, publisher.getSize());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
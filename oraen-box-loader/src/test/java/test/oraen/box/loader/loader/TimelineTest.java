@@ -0,0 +1,72 @@
+package test.oraen.box.loader.loader;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.oraen.box.common.util.ListUtil;
+import com.oraen.box.common.util.ThreadUtil;
+import com.oraen.box.loader.ExecResult;
+import com.oraen.box.loader.core.AssembleDataLoader;
+import com.oraen.box.loader.core.CommonLoadContext;
+import com.oraen.box.loader.core.ExecutionPlan;
+import com.oraen.box.loader.core.LoadLogic;
+import com.oraen.box.loader.metrics.TimelineLoaderHook;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimelineTest {
+
+    @Test
+    public void testChromeTrace() throws Exception {
+        AssembleDataLoader<Integer> remote = AssembleDataLoader.<Integer>builder()
+                .name("remote")
+                .dataFunction(context -> {
+                    ThreadUtil.sleep(20);
+                    throw new IllegalStateException("remote \"down\"");
+                })
+                .fallback((context, e) -> 0)
+                .build();
+        AssembleDataLoader<Integer> page = new AssembleDataLoader<>("page", ListUtil.of("remote"), context -> 1);
+        ExecutionPlan plan = ExecutionPlan.compile(ListUtil.of(remote, page));
+
+        List<String> traces = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            //没有采样，也没有超过慢请求阈值
+            CommonLoadContext loadContext = new CommonLoadContext(plan, null, (Object) null);
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, ListUtil.of(new TimelineLoaderHook(0, 1000L, traces::add))));
+            assertTrue(traces.isEmpty());
+            ExecResult execResult = loadContext.getDataLoadResult("remote");
+            assertEquals(0, execResult.getFallbackStartNanos());
+            assertTrue(execResult.getStartNanos() - execResult.getSubmitNanos() >= 0);
+            assertTrue(execResult.getEndNanos() - execResult.getStartNanos() >= 20_000_000L);
+
+            loadContext = new CommonLoadContext(plan, null, (Object) null);
+            assertNull(LoadLogic.exec(loadContext, executor, 1000L, ListUtil.of(new TimelineLoaderHook(1, 0, traces::add))));
+            assertEquals(1, traces.size());
+            assertTrue(loadContext.getDataLoadResult("remote").getFallbackEndNanos() != 0);
+        } finally {
+            executor.shutdown();
+        }
+
+        JsonNode events = new ObjectMapper().readTree(traces.get(0)).get("traceEvents");
+        Set<String> names = new HashSet<>();
+        for (JsonNode event : events) {
+            if("X".equals(event.get("ph").asText())) {
+                names.add(event.get("cat").asText() + ":" + event.get("name").asText());
+                assertTrue(event.get("dur").asDouble() >= 0);
+            }
+        }
+        assertTrue(names.contains("request:page"));
+        assertTrue(names.contains("exec:remote"));
+        assertTrue(names.contains("queue:queue"));
+        assertTrue(names.contains("fallback:fallback"));
+    }
+}